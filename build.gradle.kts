@@ -2,6 +2,19 @@ plugins {
     java
     id("org.springframework.boot") version "3.4.2"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.3"
+    id("org.graalvm.buildtools.native") version "0.10.4" apply false
+}
+
+// ./gradlew bootJar -Paot precomputes bean definitions with Spring AOT; run the jar with -Dspring.aot.enabled=true.
+// ./gradlew nativeCompile -Pnative builds a GraalVM native executable (needs a GraalVM JDK) and implies AOT.
+// Conditions such as @ConditionalOnProperty and @Profile are evaluated once, when the AOT sources are generated.
+val nativeImage = providers.gradleProperty("native").map { it != "false" }.getOrElse(false)
+val aot = providers.gradleProperty("aot").map { it != "false" }.getOrElse(false)
+if (nativeImage) {
+    apply(plugin = "org.graalvm.buildtools.native")
+} else if (aot) {
+    apply(plugin = "org.springframework.boot.aot")
 }
 
 group = "org.usermanagement"
@@ -23,9 +36,25 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-web")
     runtimeOnly("com.mysql:mysql-connector-j")
 
+    // reactive variant, only started with the reactive profile
+    implementation("org.springframework.boot:spring-boot-starter-webflux")
+    implementation("org.springframework.boot:spring-boot-starter-data-r2dbc")
+    runtimeOnly("io.asyncer:r2dbc-mysql:1.3.0")
+
     //validation
     implementation("org.springframework.boot:spring-boot-starter-validation")
 
+    // caching and monitoring
+    implementation("org.springframework.boot:spring-boot-starter-cache")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("com.github.ben-manes.caffeine:caffeine")
+    implementation("org.springframework.boot:spring-boot-starter-aop")
+    implementation("org.hibernate.orm:hibernate-micrometer")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
+
+    // faster Jackson serialization through generated accessors
+    implementation("com.fasterxml.jackson.module:jackson-module-blackbird")
+
     // mapping
     implementation("org.mapstruct:mapstruct:1.6.3")
     annotationProcessor("org.mapstruct:mapstruct-processor:1.6.3")
@@ -39,8 +68,40 @@ dependencies {
     //uuid-creator
     implementation("com.github.f4b6a3:uuid-creator:6.1.1")
 
+    // outbox relay sink
+    implementation("org.springframework.kafka:spring-kafka")
+
+    // bloom filter for the email index
+    implementation("com.google.guava:guava:33.4.0-jre")
+
     testImplementation("org.springframework.boot:spring-boot-starter-test")
+    testImplementation("io.projectreactor:reactor-test")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    testRuntimeOnly("com.h2database:h2")
+
+    // benchmarks run the service against an embedded database
+    jmhRuntimeOnly("com.h2database:h2")
+}
+
+// ./gradlew jmh -PjmhIncludes=UserMapperBenchmark
+jmh {
+    jmhVersion = "1.37"
+    includes = providers.gradleProperty("jmhIncludes").map { listOf(it) }.orElse(listOf())
+    // UuidStorageBenchmark needs a running MySQL, so it only runs when selected explicitly
+    excludes = providers.gradleProperty("jmhIncludes").map { listOf<String>() }.orElse(listOf("UuidStorageBenchmark"))
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+}
+
+// layers.idx lets the Dockerfile put dependencies and application classes into separate image layers
+tasks.bootJar {
+    layered {
+        enabled = true
+    }
 }
 
 tasks.withType<Test> {
@@ -0,0 +1,55 @@
+// k6 test holding many concurrent clients open against either stack.
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=10000 load-tests/concurrency.js
+// Every VU is one keep-alive client that reads a user, pages through the list now and then and
+// thinks for THINK_TIME seconds in between, so the server holds VUS connections while the database
+// sees only a fraction of them. scripts/compare-stacks.sh runs this against the servlet and the
+// reactive profile and samples threads, memory and connections at the plateau. Rate limiting only
+// exists on the servlet stack, so it should be disabled there for a like-for-like run.
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const USERS = `${BASE_URL}/v/api/users`;
+const VUS = Number(__ENV.VUS || 10000);
+const THINK_TIME = Number(__ENV.THINK_TIME || 1);
+
+export const options = {
+    scenarios: {
+        clients: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { target: VUS, duration: __ENV.RAMP || '1m' },
+                { target: VUS, duration: __ENV.PLATEAU || '2m' },
+                { target: 0, duration: '15s' },
+            ],
+        },
+    },
+    thresholds: {
+        'checks': ['rate>0.99'],
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+    const ids = [];
+    for (let i = 0; i < 100; i++) {
+        const email = `concurrency-${Date.now()}-${i}@example.com`;
+        const res = http.post(USERS, JSON.stringify({ data: { firstName: 'Load', lastName: 'Test', email } }),
+            { headers: { 'Content-Type': 'application/json' } });
+        if (res.status === 201) {
+            ids.push(res.json('data.id'));
+        }
+    }
+    return { ids };
+}
+
+export default function (data) {
+    if (Math.random() < 0.8 && data.ids.length > 0) {
+        const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+        check(http.get(`${USERS}/${id}`, { tags: { name: 'getUser' } }), { 'get 200': (r) => r.status === 200 });
+    } else {
+        check(http.get(`${USERS}/cursor?size=20`, { tags: { name: 'getUsers' } }), { 'list 200': (r) => r.status === 200 });
+    }
+    sleep(THINK_TIME * (0.5 + Math.random()));
+}
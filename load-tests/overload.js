@@ -0,0 +1,79 @@
+// k6 overload test for the rate limiter and the adaptive concurrency limit.
+//   k6 run -e BASE_URL=http://localhost:8080 -e PEAK_RATE=5000 load-tests/overload.js
+// Ramps the arrival rate far beyond what the connection pool can serve, from a few heavy clients
+// and many light ones. Requests shed with 429 or 503 count as expected responses, so the
+// http_req_duration{expected_response:true} and accepted_duration thresholds describe the latency
+// of the requests that were admitted; they should stay bounded while shed_requests grows.
+// Run it once with USER_RATE_LIMIT_ENABLED=false to see the unbounded p99 for comparison.
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter, Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const USERS = `${BASE_URL}/v/api/users`;
+const PEAK_RATE = Number(__ENV.PEAK_RATE || 5000);
+
+const shed = new Counter('shed_requests');
+const acceptedDuration = new Trend('accepted_duration', true);
+
+http.setResponseCallback(http.expectedStatuses({ min: 200, max: 399 }, 429, 503));
+
+export const options = {
+    scenarios: {
+        spike: {
+            executor: 'ramping-arrival-rate',
+            startRate: 50,
+            timeUnit: '1s',
+            preAllocatedVUs: 500,
+            maxVUs: Number(__ENV.MAX_VUS || 5000),
+            stages: [
+                { target: PEAK_RATE / 10, duration: '30s' },
+                { target: PEAK_RATE, duration: '1m' },
+                { target: PEAK_RATE, duration: '2m' },
+                { target: PEAK_RATE / 10, duration: '30s' },
+            ],
+        },
+    },
+    thresholds: {
+        accepted_duration: ['p(99)<1000'],
+        'http_req_duration{expected_response:true}': ['p(99)<1000'],
+        'checks{check:no 5xx other than shed}': ['rate>0.999'],
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+    const ids = [];
+    for (let i = 0; i < 100; i++) {
+        const email = `overload-${Date.now()}-${i}@example.com`;
+        const res = http.post(USERS, JSON.stringify({ data: { firstName: 'Load', lastName: 'Test', email } }),
+            { headers: { 'Content-Type': 'application/json', 'X-Client-Id': `k6-setup-${i}` } });
+        if (res.status === 201) {
+            ids.push(res.json('data.id'));
+        }
+    }
+    return { ids };
+}
+
+export default function (data) {
+    // a fifth of the traffic comes from three noisy clients that blow through their own budget
+    const client = Math.random() < 0.2 ? `noisy-${__ITER % 3}` : `client-${__VU}`;
+    const params = (name) => ({ headers: { 'Content-Type': 'application/json', 'X-Client-Id': client }, tags: { name } });
+
+    let res;
+    if (Math.random() < 0.8 && data.ids.length > 0) {
+        const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+        res = http.get(`${USERS}/${id}`, params('getUser'));
+    } else {
+        const email = `overload-${__VU}-${__ITER}-${Date.now()}@example.com`;
+        res = http.post(USERS, JSON.stringify({ data: { firstName: 'Load', lastName: 'Test', email } }), params('createUser'));
+    }
+
+    if (res.status === 429 || res.status === 503) {
+        shed.add(1, { status: String(res.status) });
+        check(res, { 'shed with Retry-After': (r) => r.headers['Retry-After'] !== undefined });
+    } else {
+        acceptedDuration.add(res.timings.duration);
+    }
+    check(res, { 'no 5xx other than shed': (r) => r.status < 500 || r.status === 503 });
+}
@@ -0,0 +1,54 @@
+// k6 load test for the user endpoints.
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=500 -e DURATION=2m load-tests/users.js
+// Compare runs with SPRING_THREADS_VIRTUAL_ENABLED=false and =true; k6 prints
+// http_reqs (throughput) and http_req_duration p(99) in its summary. Each VU sends its own
+// X-Client-Id so the per-client rate limit applies per VU rather than to the whole run.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const USERS = `${BASE_URL}/v/api/users`;
+const JSON_HEADERS = { 'Content-Type': 'application/json' };
+
+function params(name, json, client) {
+    const headers = Object.assign({ 'X-Client-Id': client || `k6-${__VU}` }, json ? JSON_HEADERS : {});
+    return name ? { headers, tags: { name } } : { headers };
+}
+
+export const options = {
+    scenarios: {
+        mixed: {
+            executor: 'constant-vus',
+            vus: Number(__ENV.VUS || 200),
+            duration: __ENV.DURATION || '1m',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+    const ids = [];
+    for (let i = 0; i < 100; i++) {
+        const email = `load-${Date.now()}-${i}@example.com`;
+        const res = http.post(USERS, JSON.stringify({ data: { firstName: 'Load', lastName: 'Test', email } }), params(null, true, `k6-setup-${i}`));
+        if (res.status === 201) {
+            ids.push(res.json('data.id'));
+        }
+    }
+    return { ids };
+}
+
+export default function (data) {
+    const roll = Math.random();
+    if (roll < 0.7 && data.ids.length > 0) {
+        const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+        check(http.get(`${USERS}/${id}`, params('getUser')), { 'get 200': (r) => r.status === 200 });
+    } else if (roll < 0.9) {
+        check(http.get(`${USERS}/cursor?size=20`, params('getUsers')), { 'list 200': (r) => r.status === 200 });
+    } else {
+        const email = `load-${__VU}-${__ITER}-${Date.now()}@example.com`;
+        const res = http.post(USERS, JSON.stringify({ data: { firstName: 'Load', lastName: 'Test', email } }),
+            params('createUser', true));
+        check(res, { 'create 201': (r) => r.status === 201 });
+    }
+}
@@ -0,0 +1,59 @@
+#!/bin/sh
+# Runs load-tests/concurrency.js against the servlet stack on platform threads, the servlet stack on
+# virtual threads and the reactive stack, and samples each at the plateau: live JVM threads, heap
+# used, resident memory, database connections in use and established client connections.
+#   scripts/compare-stacks.sh IMAGE [VUS]
+# Start MySQL first (docker compose up -d mysql_db), keep .env pointing at mysql_db:3306 and set
+# SPRING_R2DBC_URL. k6 needs a raised open file limit for 10k clients (ulimit -n 65536).
+set -eu
+
+IMAGE=$1
+VUS=${2:-10000}
+NETWORK=${NETWORK:-$(basename "$(pwd)" | tr '[:upper:]' '[:lower:]')_user_management_network}
+PORT=${PORT:-18080}
+BASE_URL="http://localhost:${PORT}"
+RAMP=${RAMP:-1m}
+PLATEAU=${PLATEAU:-2m}
+
+metric() {
+    # first measurement of an actuator metric, optionally filtered by tag
+    curl -s "${BASE_URL}/actuator/metrics/$1${2:+?tag=$2}" | sed -n 's/.*"value":\([0-9.E+-]*\).*/\1/p' | head -1
+}
+
+run() {
+    label=$1
+    shift
+    name=stack-probe-$$-${label}
+    # Tomcat accepts 8192 connections by default; raise it so it is not the first limit hit
+    docker run -d --rm --name "$name" --network "$NETWORK" --env-file .env -p "${PORT}:8080" \
+        -e USER_RATE_LIMIT_ENABLED=false -e SERVER_TOMCAT_MAXCONNECTIONS=$((VUS * 2)) "$@" "$IMAGE" > /dev/null
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' "${BASE_URL}/v/api/users/cursor?size=1")" = "200" ]; do
+        sleep 0.5
+    done
+
+    k6 run -q -e BASE_URL="$BASE_URL" -e VUS="$VUS" -e RAMP="$RAMP" -e PLATEAU="$PLATEAU" \
+        --summary-export "build/compare-${label}.json" load-tests/concurrency.js > "build/compare-${label}.log" 2>&1 &
+    k6_pid=$!
+
+    # sample in the middle of the plateau
+    sleep $(( $(echo "$RAMP" | tr -d 'm') * 60 + $(echo "$PLATEAU" | tr -d 'm') * 30 ))
+    threads=$(metric jvm.threads.live)
+    heap=$(metric jvm.memory.used area:heap)
+    hikari=$(metric hikaricp.connections.active)
+    r2dbc=$(metric r2dbc.pool.acquired)
+    rss=$(docker exec "$name" sh -c "grep VmRSS /proc/1/status" | awk '{print $2}')
+    clients=$(docker exec "$name" sh -c "cat /proc/net/tcp /proc/net/tcp6 2>/dev/null" | awk '$4 == "01"' | wc -l)
+
+    wait "$k6_pid" || true
+    docker stop "$name" > /dev/null
+    p99=$(awk -F: '/"http_req_duration"/ { found = 1 } found && /"p\(99\)"/ { gsub(/[^0-9.]/, "", $2); print $2; exit }' \
+        "build/compare-${label}.json")
+
+    printf '%-9s threads=%-6s heap_mb=%-5s rss_mb=%-5s jdbc_active=%-4s r2dbc_acquired=%-4s client_connections=%-6s p99_ms=%s\n' \
+        "$label" "${threads%.*}" "$(( ${heap%.*} / 1048576 ))" "$(( rss / 1024 ))" "${hikari%.*}" "${r2dbc:-n/a}" "$clients" "$p99"
+}
+
+mkdir -p build
+run servlet
+run virtual -e SPRING_THREADS_VIRTUAL_ENABLED=true
+run reactive -e SPRING_PROFILES_ACTIVE=reactive
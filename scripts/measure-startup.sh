@@ -0,0 +1,36 @@
+#!/bin/sh
+# Measures time to first successful request and resident memory of one image variant.
+#   scripts/measure-startup.sh IMAGE [extra docker run args...]
+# Start MySQL first (docker compose up -d mysql_db) and keep .env pointing at mysql_db:3306.
+#
+#   docker build -t um:baseline --build-arg CDS=false .
+#   docker build -t um:cds .
+#   docker build -t um:aot-cds --build-arg AOT=true .
+#   scripts/measure-startup.sh um:baseline
+#   scripts/measure-startup.sh um:cds
+#   scripts/measure-startup.sh um:aot-cds
+#   scripts/measure-startup.sh um:cds -e SPRING_PROFILES_ACTIVE=lazy
+set -eu
+
+IMAGE=$1
+shift
+NETWORK=${NETWORK:-$(basename "$(pwd)" | tr '[:upper:]' '[:lower:]')_user_management_network}
+PORT=${PORT:-18080}
+URL="http://localhost:${PORT}/v/api/users/cursor?size=1"
+NAME=startup-probe-$$
+
+start=$(date +%s%N)
+docker run -d --rm --name "$NAME" --network "$NETWORK" --env-file .env -p "${PORT}:8080" "$@" "$IMAGE" > /dev/null
+trap 'docker stop "$NAME" > /dev/null' EXIT
+
+until [ "$(curl -s -o /dev/null -w '%{http_code}' "$URL")" = "200" ]; do
+    sleep 0.05
+done
+ready=$(date +%s%N)
+
+# RSS right after the first request, and again once the JIT and caches had a few seconds of traffic
+rss_first=$(docker exec "$NAME" sh -c "grep VmRSS /proc/1/status" | awk '{print $2}')
+for _ in $(seq 1 200); do curl -s -o /dev/null "$URL"; done
+rss_warm=$(docker exec "$NAME" sh -c "grep VmRSS /proc/1/status" | awk '{print $2}')
+
+echo "image=${IMAGE} args=$* first_request_ms=$(( (ready - start) / 1000000 )) rss_first_mb=$(( rss_first / 1024 )) rss_warm_mb=$(( rss_warm / 1024 ))"
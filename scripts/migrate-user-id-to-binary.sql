@@ -0,0 +1,34 @@
+-- Converts user_entity.id from CHAR(36) text to BINARY(16) for databases created before ids were
+-- mapped explicitly. Run against MySQL 8 with the application stopped, after a backup:
+--
+--   mysql -u mysql -p usermanagement < scripts/migrate-user-id-to-binary.sql
+--
+-- UUID_TO_BIN is called without the swap flag so the bytes keep standard UUID order, the same
+-- order Hibernate writes and in which UUIDv7 ids sort by creation time. Skip this script when
+-- SHOW CREATE TABLE user_entity already reports `id` binary(16).
+
+ALTER TABLE user_entity ADD COLUMN id_bin BINARY(16) NULL;
+
+DELIMITER //
+CREATE PROCEDURE fill_user_entity_id_bin()
+BEGIN
+    -- small batches keep each transaction, its undo log and the replication lag short
+    REPEAT
+        UPDATE user_entity SET id_bin = UUID_TO_BIN(id) WHERE id_bin IS NULL LIMIT 10000;
+    UNTIL ROW_COUNT() = 0 END REPEAT;
+END //
+DELIMITER ;
+
+CALL fill_user_entity_id_bin();
+DROP PROCEDURE fill_user_entity_id_bin;
+
+-- rebuilds the table once, clustered on the new key; clauses name the columns of the original
+-- table, so the rename and the NOT NULL change are one CHANGE COLUMN on id_bin
+ALTER TABLE user_entity
+    DROP PRIMARY KEY,
+    DROP COLUMN id,
+    CHANGE COLUMN id_bin id BINARY(16) NOT NULL FIRST,
+    ADD PRIMARY KEY (id);
+
+-- rebuild secondary indexes and refresh statistics after the key change
+OPTIMIZE TABLE user_entity;
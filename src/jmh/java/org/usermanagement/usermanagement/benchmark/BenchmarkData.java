@@ -0,0 +1,33 @@
+package org.usermanagement.usermanagement.benchmark;
+
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.entity.base.UserEntity;
+
+import java.util.UUID;
+
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static UserDto userDto(int i) {
+        UserDto userDto = new UserDto();
+        userDto.setId(UUID.randomUUID());
+        userDto.setFirstName("First" + i);
+        userDto.setLastName("Last" + i);
+        userDto.setEmail("user" + i + "@example.com");
+        userDto.setPhoneNumber("+1234567" + String.format("%03d", i % 1000));
+        return userDto;
+    }
+
+    static UserEntity userEntity(int i) {
+        return UserEntity.builder()
+                .id(UUID.randomUUID())
+                .firstName("First" + i)
+                .lastName("Last" + i)
+                .email("user" + i + "@example.com")
+                .phoneNumber("+1234567" + String.format("%03d", i % 1000))
+                .isActive(true)
+                .build();
+    }
+}
@@ -0,0 +1,59 @@
+package org.usermanagement.usermanagement.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.usermanagement.usermanagement.dto.GlobalApiResponse;
+import org.usermanagement.usermanagement.dto.PageResponse;
+import org.usermanagement.usermanagement.dto.UserDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Serializes the list endpoint response the way Spring MVC does: the old shape with the full PageImpl
+ * metadata on a plain ObjectMapper, and the current PageResponse on the Blackbird-enabled mapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper blackbirdObjectMapper;
+    private Page<UserDto> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        blackbirdObjectMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(new BlackbirdModule()).build();
+        List<UserDto> users = IntStream.range(0, pageSize).mapToObj(BenchmarkData::userDto).toList();
+        page = new PageImpl<>(users, PageRequest.of(0, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public byte[] globalApiResponseOfPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(GlobalApiResponse.success(page));
+    }
+
+    @Benchmark
+    public byte[] globalApiResponseOfPageResponse() throws JsonProcessingException {
+        return blackbirdObjectMapper.writeValueAsBytes(GlobalApiResponse.success(PageResponse.of(page)));
+    }
+}
@@ -0,0 +1,51 @@
+package org.usermanagement.usermanagement.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.entity.base.UserEntity;
+import org.usermanagement.usermanagement.mapper.UserMapper;
+import org.usermanagement.usermanagement.mapper.UserMapperImpl;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserMapperBenchmark {
+
+    private UserMapper userMapper;
+    private UserEntity userEntity;
+    private UserDto userDto;
+    private UserDto patch;
+
+    @Setup
+    public void setUp() {
+        userMapper = new UserMapperImpl();
+        userEntity = BenchmarkData.userEntity(1);
+        userDto = BenchmarkData.userDto(1);
+        patch = new UserDto();
+        patch.setFirstName("Patched");
+    }
+
+    @Benchmark
+    public UserDto toUserDto() {
+        return userMapper.toUserDto(userEntity);
+    }
+
+    @Benchmark
+    public UserEntity toUserEntity() {
+        return userMapper.toUserEntity(userDto);
+    }
+
+    @Benchmark
+    public UserEntity updateEntityFromDto() {
+        userMapper.updateEntityFromDto(patch, userEntity);
+        return userEntity;
+    }
+}
@@ -0,0 +1,173 @@
+package org.usermanagement.usermanagement.benchmark;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.usermanagement.usermanagement.UserManagementApplication;
+import org.usermanagement.usermanagement.config.CacheConfig;
+import org.usermanagement.usermanagement.dto.BulkUserResult;
+import org.usermanagement.usermanagement.dto.CursorPage;
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.mapper.UserMapper;
+import org.usermanagement.usermanagement.repository.UserRepository;
+import org.usermanagement.usermanagement.service.impl.UserService;
+import org.usermanagement.usermanagement.util.CursorCodec;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Runs UserServiceImpl inside a full Spring context against an in-memory H2 database in MySQL mode.
+ * The statements aux counter reports JDBC statements per iteration; divide by ops to get statements
+ * per call, e.g. to see the duplicate check skipped by the email index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UserServiceBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    @Param({"true", "false"})
+    private boolean emailIndex;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private UserRepository userRepository;
+    private UserMapper userMapper;
+    private TransactionTemplate readOnlyTransaction;
+    private Cache usersCache;
+    private Statistics statistics;
+    private List<UUID> ids;
+    private String deepCursor;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(UserManagementApplication.class)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=true",
+                        "user-management.email-index.enabled=" + emailIndex,
+                        // keep the background relay out of the statement counts
+                        "user-management.outbox.relay-enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        userService = context.getBean(UserService.class);
+        userRepository = context.getBean(UserRepository.class);
+        userMapper = context.getBean(UserMapper.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        usersCache = context.getBean(CacheManager.class).getCache(CacheConfig.USERS_CACHE);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        List<UserDto> seed = IntStream.range(0, USERS).mapToObj(BenchmarkData::userDto).toList();
+        seed.forEach(user -> user.setId(null));
+        ids = userService.createUsers(seed.iterator()).getResults().stream().map(BulkUserResult::getId).toList();
+        deepCursor = CursorCodec.encode(ids.get(USERS - 50));
+    }
+
+    @TearDown
+    public void tearDown() {
+        SpringApplication.exit(context);
+    }
+
+    @Benchmark
+    public UserDto getUserByIdCached(Statements statements) {
+        UUID id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        return statements.count(() -> userService.getUserById(id));
+    }
+
+    @Benchmark
+    public UserDto getUserByIdUncached(Statements statements) {
+        UUID id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        usersCache.evict(id);
+        return statements.count(() -> userService.getUserById(id));
+    }
+
+    /**
+     * The read path before projections: load a managed entity, then map it. Compare the
+     * gc.alloc.rate.norm of this and {@link #projectionReadPath} for the allocation per request.
+     */
+    @Benchmark
+    public UserDto entityReadPath() {
+        UUID id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        return readOnlyTransaction.execute(status -> userMapper.toUserDto(userRepository.findById(id).orElseThrow()));
+    }
+
+    @Benchmark
+    public UserDto projectionReadPath() {
+        UUID id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        return readOnlyTransaction.execute(status -> userRepository.findDtoById(id).orElseThrow());
+    }
+
+    @Benchmark
+    public Page<UserDto> userListDeepOffsetPage(Statements statements) {
+        return statements.count(() -> userService.userList(PageRequest.of(USERS / 20 - 2, 20)));
+    }
+
+    @Benchmark
+    public CursorPage<UserDto> userListDeepCursorPage(Statements statements) {
+        return statements.count(() -> userService.userList(deepCursor, 20));
+    }
+
+    @Benchmark
+    public UserDto createUser(Statements statements) {
+        UserDto user = BenchmarkData.userDto(0);
+        user.setId(null);
+        user.setEmail("new-" + SEQUENCE.incrementAndGet() + "@example.com");
+        return statements.count(() -> userService.createUser(user));
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Statements {
+
+        public long statements;
+
+        private Statistics statistics;
+
+        @Setup(Level.Trial)
+        public void setUp(UserServiceBenchmark benchmark) {
+            statistics = benchmark.statistics;
+        }
+
+        <T> T count(Supplier<T> call) {
+            long before = statistics.getPrepareStatementCount();
+            T result = call.get();
+            statements += statistics.getPrepareStatementCount() - before;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package org.usermanagement.usermanagement.benchmark;
+
+import com.github.f4b6a3.uuid.UuidCreator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares primary key layouts for user_entity on a real MySQL: BINARY(16) with UUIDv7 (the current
+ * mapping), CHAR(36) with UUIDv7, and BINARY(16) with random UUIDv4. Needs a running database, e.g.
+ * the docker-compose one; set BENCH_JDBC_URL, BENCH_JDBC_USER and BENCH_JDBC_PASSWORD to use another.
+ * <p>
+ * The table is loaded once per layout with {@code rows} rows; data and index sizes from
+ * information_schema are printed at the end of each trial. For the 10M row comparison run the
+ * benchmark jar directly:
+ * {@code ./gradlew jmhJar && java -jar build/libs/*-jmh.jar UuidStorageBenchmark -p rows=10000000}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UuidStorageBenchmark {
+
+    private static final int INSERT_BATCH = 1_000;
+    private static final int SAMPLE = 100_000;
+    private static final int RANGE = 100;
+
+    public enum Layout {
+        BINARY16_V7("BINARY(16)"),
+        CHAR36_V7("CHAR(36)"),
+        BINARY16_V4("BINARY(16)");
+
+        private final String columnType;
+
+        Layout(String columnType) {
+            this.columnType = columnType;
+        }
+    }
+
+    @Param({"BINARY16_V7", "CHAR36_V7", "BINARY16_V4"})
+    private Layout layout;
+
+    @Param({"1000000"})
+    private int rows;
+
+    private Connection connection;
+    private String table;
+    private Object[] sampleIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                env("BENCH_JDBC_URL", "jdbc:mysql://localhost:3307/usermanagement?rewriteBatchedStatements=true"),
+                env("BENCH_JDBC_USER", "mysql"),
+                env("BENCH_JDBC_PASSWORD", "mysql"));
+        table = "uuid_bench_" + layout.name().toLowerCase(Locale.ROOT);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            // mirrors user_entity: clustered primary key plus the unique email index
+            statement.execute("CREATE TABLE " + table + " ("
+                    + "id " + layout.columnType + " NOT NULL PRIMARY KEY, "
+                    + "email VARCHAR(255) NOT NULL UNIQUE, "
+                    + "first_name VARCHAR(255) NOT NULL, "
+                    + "created_at DATETIME(6) NOT NULL) ENGINE=InnoDB");
+        }
+
+        sampleIds = new Object[SAMPLE];
+        connection.setAutoCommit(false);
+        int loaded = 0;
+        while (loaded < rows) {
+            int batch = Math.min(INSERT_BATCH, rows - loaded);
+            insertBatch(batch, loaded);
+            loaded += batch;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE " + table);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet sizes = statement.executeQuery("SELECT data_length, index_length FROM information_schema.tables"
+                     + " WHERE table_schema = DATABASE() AND table_name = '" + table + "'")) {
+            if (sizes.next()) {
+                System.out.printf("%n%s with %,d rows: clustered index %,d MB, secondary indexes %,d MB%n",
+                        layout, rows, sizes.getLong(1) >> 20, sizes.getLong(2) >> 20);
+            }
+            statement.execute("DROP TABLE " + table);
+        }
+        connection.close();
+    }
+
+    /**
+     * Inserts one JDBC batch of 1000 rows into the loaded table; divide by 1000 for per-row cost.
+     */
+    @Benchmark
+    public void insertBatch() throws SQLException {
+        insertBatch(INSERT_BATCH, -1);
+    }
+
+    @Benchmark
+    public void pointLookup(Blackhole blackhole) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT email FROM " + table + " WHERE id = ?")) {
+            statement.setObject(1, randomSampleId());
+            try (ResultSet result = statement.executeQuery()) {
+                if (result.next()) {
+                    blackhole.consume(result.getString(1));
+                }
+            }
+        }
+        connection.commit();
+    }
+
+    /**
+     * A keyset page as served by the cursor endpoint; on v7 keys it is also a creation time range.
+     */
+    @Benchmark
+    public void rangeScan(Blackhole blackhole) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id, email FROM " + table + " WHERE id > ? ORDER BY id LIMIT " + RANGE)) {
+            statement.setObject(1, randomSampleId());
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    blackhole.consume(result.getString(2));
+                }
+            }
+        }
+        connection.commit();
+    }
+
+    private void insertBatch(int size, int offset) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO " + table + " (id, email, first_name, created_at) VALUES (?, ?, ?, NOW(6))")) {
+            for (int i = 0; i < size; i++) {
+                UUID id = layout == Layout.BINARY16_V4 ? UUID.randomUUID() : UuidCreator.getTimeOrderedEpoch();
+                Object key = toKey(id);
+                statement.setObject(1, key);
+                statement.setString(2, id + "@example.com");
+                statement.setString(3, "User");
+                statement.addBatch();
+                if (offset >= 0) {
+                    int index = offset + i;
+                    // reservoir sample so lookups hit the whole key range
+                    if (index < SAMPLE) {
+                        sampleIds[index] = key;
+                    } else {
+                        int slot = ThreadLocalRandom.current().nextInt(index + 1);
+                        if (slot < SAMPLE) {
+                            sampleIds[slot] = key;
+                        }
+                    }
+                }
+            }
+            statement.executeBatch();
+        }
+        connection.commit();
+    }
+
+    private Object randomSampleId() {
+        return sampleIds[ThreadLocalRandom.current().nextInt(Math.min(rows, SAMPLE))];
+    }
+
+    private Object toKey(UUID id) {
+        if (layout == Layout.CHAR36_V7) {
+            return id.toString();
+        }
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+
+    private static String env(String name, String fallback) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? fallback : value;
+    }
+}
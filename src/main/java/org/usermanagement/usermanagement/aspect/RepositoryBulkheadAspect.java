@@ -0,0 +1,111 @@
+package org.usermanagement.usermanagement.aspect;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
+import org.usermanagement.usermanagement.exception.ServiceUnavailableException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps how many threads can be inside the service and repository layer at once. With virtual threads
+ * thousands of requests can be in flight, and without this they would all queue inside Hikari until
+ * connection-timeout. Runs outside the transaction interceptor so a rejected call never takes a
+ * connection, and after the cache interceptor so cache hits do not need a permit. Calls made outside
+ * an HTTP request, such as the outbox relay, index rebuilds, scheduled sweeps and streamed exports,
+ * take permits of a separate, smaller bulkhead: they queue there without a time limit and never
+ * compete with requests for theirs.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RepositoryBulkheadAspect {
+
+    private static final ThreadLocal<Boolean> HOLDS_PERMIT = new ThreadLocal<>();
+
+    private final UserManagementProperties.Bulkhead config;
+    private final Semaphore permits;
+    private final Semaphore backgroundPermits;
+    private final Counter rejected;
+
+    public RepositoryBulkheadAspect(UserManagementProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getBulkhead();
+        this.permits = new Semaphore(requestPermits(config), true);
+        this.backgroundPermits = new Semaphore(config.getBackgroundMaxConcurrentCalls(), true);
+        this.rejected = Counter.builder("user.bulkhead.rejected").register(meterRegistry);
+        Gauge.builder("user.bulkhead.available.permits", permits, Semaphore::availablePermits).register(meterRegistry);
+        Gauge.builder("user.bulkhead.background.available.permits", backgroundPermits, Semaphore::availablePermits).register(meterRegistry);
+    }
+
+    /**
+     * Every permit must be backed by a connection, otherwise callers holding one wait inside Hikari
+     * until connection-timeout and fail with 500 instead of being rejected here with 503.
+     */
+    static int requestPermits(UserManagementProperties.Bulkhead config) {
+        int available = config.getConnectionPoolSize() - config.getBackgroundMaxConcurrentCalls() - config.getReservedConnections();
+        int requestPermits = config.getMaxConcurrentCalls() != null ? config.getMaxConcurrentCalls() : available;
+        if (config.isEnabled() && (requestPermits < 1 || requestPermits > available)) {
+            throw new IllegalStateException("Bulkhead needs " + requestPermits + " request, " + config.getBackgroundMaxConcurrentCalls()
+                    + " background and " + config.getReservedConnections() + " reserved connections, but the pool has "
+                    + config.getConnectionPoolSize() + "; raise spring.datasource.hikari.maximum-pool-size or lower the bulkhead limits");
+        }
+        return Math.max(requestPermits, 1);
+    }
+
+    // reactive repositories return before any work is done, and blocking for a permit would stall the event loop
+    @Around("(execution(public * org.usermanagement.usermanagement.service.impl.UserService+.*(..))"
+            + " || this(org.springframework.data.repository.Repository))"
+            + " && !this(org.springframework.data.repository.reactive.ReactiveCrudRepository)")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        // nested calls (service -> repository) run on the permit their caller already holds
+        if (!config.isEnabled() || HOLDS_PERMIT.get() != null) {
+            return joinPoint.proceed();
+        }
+        boolean inRequest = RequestContextHolder.getRequestAttributes() != null;
+        Semaphore acquired = inRequest ? permits : backgroundPermits;
+        if (!inRequest) {
+            backgroundPermits.acquire();
+        } else if (!permits.tryAcquire(config.getMaxWait().toMillis(), TimeUnit.MILLISECONDS)) {
+            rejected.increment();
+            log.warn("Bulkhead full, rejecting {}", joinPoint.getSignature().toShortString());
+            throw new ServiceUnavailableException("Too many concurrent requests, please retry later");
+        }
+        HOLDS_PERMIT.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            HOLDS_PERMIT.remove();
+            acquired.release();
+        }
+    }
+
+    /**
+     * Lets work that the caller fans out to other threads, such as a query on every shard, run on
+     * the caller's permit instead of queueing behind it for permits of its own.
+     */
+    public static <T> Callable<T> onCallersPermit(Callable<T> task) {
+        if (HOLDS_PERMIT.get() == null) {
+            return task;
+        }
+        return () -> {
+            HOLDS_PERMIT.set(Boolean.TRUE);
+            try {
+                return task.call();
+            } finally {
+                HOLDS_PERMIT.remove();
+            }
+        };
+    }
+}
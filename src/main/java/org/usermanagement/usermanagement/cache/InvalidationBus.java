@@ -0,0 +1,18 @@
+package org.usermanagement.usermanagement.cache;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Carries user invalidations between the instances sharing the database. Subscribers also receive
+ * the invalidations of their own instance.
+ */
+public interface InvalidationBus {
+
+    /**
+     * Called after the change committed.
+     */
+    void publish(List<UserInvalidation> invalidations);
+
+    void subscribe(Consumer<UserInvalidation> subscriber);
+}
@@ -0,0 +1,85 @@
+package org.usermanagement.usermanagement.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts invalidations over a Kafka topic. Every instance consumes with a group of its own, so
+ * each one sees every message, starting from the latest offset. Delivery is best effort: a message
+ * lost between commit and send leaves the entry cached until the cache TTL expires it.
+ */
+@Slf4j
+public class KafkaInvalidationBus implements InvalidationBus, AutoCloseable {
+
+    private final List<Consumer<UserInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final String topic;
+    private final KafkaMessageListenerContainer<String, String> container;
+
+    public KafkaInvalidationBus(KafkaTemplate<String, String> kafkaTemplate, ConsumerFactory<String, String> consumerFactory,
+                                ObjectMapper objectMapper, String topic) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.topic = topic;
+        ContainerProperties containerProperties = new ContainerProperties(topic);
+        containerProperties.setGroupId("user-management-cache-" + UUID.randomUUID());
+        containerProperties.setMessageListener((MessageListener<String, String>) message -> deliver(message.value()));
+        this.container = new KafkaMessageListenerContainer<>(consumerFactory, containerProperties);
+    }
+
+    @Override
+    public void publish(List<UserInvalidation> invalidations) {
+        for (UserInvalidation invalidation : invalidations) {
+            kafkaTemplate.send(topic, invalidation.userId().toString(), toJson(invalidation))
+                    .whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            log.warn("Could not broadcast the invalidation of user {}", invalidation.userId(), ex);
+                        }
+                    });
+        }
+    }
+
+    @Override
+    public synchronized void subscribe(Consumer<UserInvalidation> subscriber) {
+        subscribers.add(subscriber);
+        if (!container.isRunning()) {
+            container.start();
+        }
+    }
+
+    @Override
+    public void close() {
+        container.stop();
+    }
+
+    private void deliver(String json) {
+        UserInvalidation invalidation;
+        try {
+            invalidation = objectMapper.readValue(json, UserInvalidation.class);
+        } catch (JsonProcessingException ex) {
+            log.warn("Ignoring malformed cache invalidation {}", json, ex);
+            return;
+        }
+        subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+    }
+
+    private String toJson(UserInvalidation invalidation) {
+        try {
+            return objectMapper.writeValueAsString(invalidation);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize the invalidation of user " + invalidation.userId(), ex);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.usermanagement.usermanagement.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers invalidations within the JVM, on the publishing thread. Enough for a single instance, and
+ * lets tests run several caches against one bus.
+ */
+public class LocalInvalidationBus implements InvalidationBus {
+
+    private final List<Consumer<UserInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(List<UserInvalidation> invalidations) {
+        for (UserInvalidation invalidation : invalidations) {
+            subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<UserInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+}
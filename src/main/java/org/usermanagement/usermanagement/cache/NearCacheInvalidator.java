@@ -0,0 +1,108 @@
+package org.usermanagement.usermanagement.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.usermanagement.usermanagement.config.CacheConfig;
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.enums.UserEventType;
+import org.usermanagement.usermanagement.event.UserChangedEvent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the users cache of this instance in step with changes made on any instance. Committed
+ * updates and deletes are announced on the {@link InvalidationBus}; every received invalidation
+ * raises the version floor of the user and evicts a cached copy that is older.
+ * <p>
+ * Measured as {@code user.cache.invalidation.lag}, the time from commit to applying the invalidation
+ * here, and {@code user.cache.staleness}, the same time but only for invalidations that found an
+ * outdated entry, i.e. how long that instance could have served it.
+ */
+@Component
+public class NearCacheInvalidator {
+
+    private final InvalidationBus invalidationBus;
+    private final VersionFloors versionFloors;
+    private final Map<Object, Object> entries;
+    private final Counter evicted;
+    private final Counter current;
+    private final Counter absent;
+    private final Timer lag;
+    private final Timer staleness;
+
+    @SuppressWarnings("unchecked")
+    public NearCacheInvalidator(InvalidationBus invalidationBus, CacheManager cacheManager, VersionFloors versionFloors,
+                                MeterRegistry meterRegistry) {
+        this.invalidationBus = invalidationBus;
+        this.versionFloors = versionFloors;
+        Cache users = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        this.entries = ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) users.getNativeCache()).asMap();
+        this.evicted = outcome(meterRegistry, "evicted");
+        this.current = outcome(meterRegistry, "current");
+        this.absent = outcome(meterRegistry, "absent");
+        this.lag = Timer.builder("user.cache.invalidation.lag")
+                .description("Time from commit to applying the invalidation on this instance")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.staleness = Timer.builder("user.cache.staleness")
+                .description("How long an outdated user stayed cached after the change committed")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        FunctionCounter.builder("user.cache.stale.puts.rejected", versionFloors, VersionFloors::rejectedCount)
+                .description("Loaded users not cached because a newer version was already announced")
+                .register(meterRegistry);
+        invalidationBus.subscribe(this::apply);
+    }
+
+    // creates are skipped: an id cannot be cached before it exists
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.type() == UserEventType.CREATED) {
+            return;
+        }
+        Instant committedAt = Instant.now();
+        List<UserInvalidation> invalidations = event.users().stream()
+                .map(user -> UserInvalidation.of(event.type(), user, committedAt))
+                .toList();
+        invalidationBus.publish(invalidations);
+    }
+
+    void apply(UserInvalidation invalidation) {
+        versionFloors.raise(invalidation.userId(), invalidation.version());
+        AtomicReference<Counter> outcome = new AtomicReference<>(absent);
+        entries.computeIfPresent(invalidation.userId(), (key, value) -> {
+            if (value instanceof UserDto user && user.getVersion() != null && user.getVersion() >= invalidation.version()) {
+                outcome.set(current);
+                return value;
+            }
+            outcome.set(evicted);
+            return null;
+        });
+        outcome.get().increment();
+
+        // clocks of different instances are not perfectly in sync, a negative lag counts as none
+        Duration elapsed = Duration.between(invalidation.changedAt(), Instant.now());
+        Duration measured = elapsed.isNegative() ? Duration.ZERO : elapsed;
+        lag.record(measured);
+        if (outcome.get() == evicted) {
+            staleness.record(measured);
+        }
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("user.cache.invalidations")
+                .description("Invalidations applied to the users cache")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,134 @@
+package org.usermanagement.usermanagement.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.entity.base.OutboxEventEntity;
+import org.usermanagement.usermanagement.enums.UserEventType;
+import org.usermanagement.usermanagement.repository.OutboxEventRepository;
+import org.usermanagement.usermanagement.shard.UserShards;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Reads invalidations from the outbox, which already records every change in the transaction that
+ * made it, so nothing is lost when an instance dies right after a commit. Each poll rescans from the
+ * first missing sequence number, as the change feed stops at it: a transaction that took its number
+ * earlier but committed later is picked up on a later poll instead of being skipped. With sharding the
+ * outbox of every shard is scanned, each with its own position.
+ */
+@Slf4j
+public class OutboxInvalidationBus implements InvalidationBus {
+
+    private final List<Consumer<UserInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration gapTimeout;
+    private final int batchSize;
+    private final UserShards userShards;
+
+    // only touched by the scheduler thread, one entry per shard
+    private final long[] settled;
+    private final List<Set<Long>> delivered;
+
+    public OutboxInvalidationBus(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper, Duration gapTimeout, int batchSize,
+                                 UserShards userShards) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        this.gapTimeout = gapTimeout;
+        this.batchSize = batchSize;
+        this.userShards = userShards;
+        this.settled = new long[userShards.count()];
+        Arrays.fill(settled, -1);
+        this.delivered = new ArrayList<>();
+        for (int shard = 0; shard < userShards.count(); shard++) {
+            delivered.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Nothing to send: the outbox writer stored the change with the transaction.
+     */
+    @Override
+    public void publish(List<UserInvalidation> invalidations) {
+    }
+
+    @Override
+    public void subscribe(Consumer<UserInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Scheduled(fixedDelayString = "${user-management.cache.invalidation-poll-interval:500ms}")
+    public void poll() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        userShards.forEachShard(shard -> {
+            try {
+                if (settled[shard] < 0) {
+                    // the cache starts empty, so older changes do not matter
+                    settled[shard] = outboxEventRepository.findMaxSequence();
+                    return;
+                }
+                scan(shard);
+            } catch (RuntimeException ex) {
+                log.warn("Polling the outbox of shard {} for cache invalidations failed", shard, ex);
+            }
+        });
+    }
+
+    private void scan(int shard) {
+        LocalDateTime gapsExpireBefore = LocalDateTime.now().minus(gapTimeout);
+        Set<Long> delivered = this.delivered.get(shard);
+        long cursor = settled[shard];
+        boolean settling = true;
+        List<OutboxEventEntity> batch;
+        do {
+            batch = outboxEventRepository.findChangesAfter(cursor, Limit.of(batchSize));
+            for (OutboxEventEntity event : batch) {
+                if (delivered.add(event.getSequence()) && event.getEventType() != UserEventType.CREATED) {
+                    deliver(event);
+                }
+                settling = settling && (event.getSequence() == cursor + 1 || event.getCreatedAt().isBefore(gapsExpireBefore));
+                if (settling) {
+                    settled[shard] = event.getSequence();
+                }
+                cursor = event.getSequence();
+            }
+        } while (batch.size() == batchSize);
+        delivered.removeIf(sequence -> sequence <= settled[shard]);
+    }
+
+    private void deliver(OutboxEventEntity event) {
+        UserDto user = new UserDto();
+        user.setId(event.getUserId());
+        user.setVersion(version(event));
+        UserInvalidation invalidation = UserInvalidation.of(event.getEventType(), user,
+                event.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant());
+        subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+    }
+
+    // read from the tree: UserDto ignores a version in request bodies, and so in this payload too
+    private Long version(OutboxEventEntity event) {
+        try {
+            JsonNode version = objectMapper.readTree(event.getPayload()).get("version");
+            return version != null && version.canConvertToLong() ? version.asLong() : null;
+        } catch (JsonProcessingException ex) {
+            // without a version the entry can only be dropped unconditionally
+            return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.usermanagement.usermanagement.cache;
+
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.enums.UserEventType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Tells every instance that a user reached the given version. Cached copies with a lower version are
+ * stale, copies with the same or a higher one are not, so messages can be applied in any order and
+ * any number of times.
+ */
+public record UserInvalidation(UUID userId, long version, Instant changedAt) {
+
+    /**
+     * A deleted user has no later version to wait for, so the deletion outranks every version.
+     */
+    public static final long DELETED = Long.MAX_VALUE;
+
+    public static UserInvalidation of(UserEventType type, UserDto user, Instant changedAt) {
+        long version = type == UserEventType.DELETED || user.getVersion() == null ? DELETED : user.getVersion();
+        return new UserInvalidation(user.getId(), version, changedAt);
+    }
+}
@@ -0,0 +1,53 @@
+package org.usermanagement.usermanagement.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
+import org.usermanagement.usermanagement.dto.UserDto;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The highest version each recently changed user is known to have reached. A load that read an older
+ * row, from a lagging replica or because it started before the change, must not be cached after the
+ * invalidation already went by; the floor outlives the eviction for that reason.
+ */
+@Component
+public class VersionFloors {
+
+    private final Cache<UUID, Long> floors;
+    private final LongAdder rejected = new LongAdder();
+
+    public VersionFloors(UserManagementProperties properties) {
+        UserManagementProperties.Cache config = properties.getCache();
+        this.floors = Caffeine.newBuilder()
+                .expireAfterWrite(config.getVersionRetention())
+                .maximumSize(config.getMaximumSize())
+                .build();
+    }
+
+    public void raise(UUID userId, long version) {
+        floors.asMap().merge(userId, version, Math::max);
+    }
+
+    /**
+     * Whether the value is older than a version already announced for its key; counts the rejection.
+     */
+    public boolean isStale(Object key, Object value) {
+        if (!(key instanceof UUID userId) || !(value instanceof UserDto user) || user.getVersion() == null) {
+            return false;
+        }
+        Long floor = floors.getIfPresent(userId);
+        if (floor != null && user.getVersion() < floor) {
+            rejected.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,105 @@
+package org.usermanagement.usermanagement.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.usermanagement.usermanagement.dto.UserDto;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Keeps the newest version of each user: a put never replaces a newer entry and is dropped when an
+ * invalidation already announced a later version. The check runs inside the map compute, so it is
+ * atomic with respect to the eviction done by {@link NearCacheInvalidator}.
+ */
+public class VersionedCache implements Cache {
+
+    private final Cache target;
+    private final Map<Object, Object> entries;
+    private final VersionFloors versionFloors;
+
+    @SuppressWarnings("unchecked")
+    public VersionedCache(Cache target, VersionFloors versionFloors) {
+        this.target = target;
+        this.entries = ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) target.getNativeCache()).asMap();
+        this.versionFloors = versionFloors;
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return target.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return target.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return target.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            target.put(key, null);
+            return;
+        }
+        entries.compute(key, (k, current) -> newest(key, current, value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        if (value == null) {
+            return target.putIfAbsent(key, null);
+        }
+        Object[] existing = new Object[1];
+        entries.compute(key, (k, current) -> {
+            existing[0] = current;
+            return current != null || versionFloors.isStale(key, value) ? current : value;
+        });
+        return existing[0] == null ? null : new SimpleValueWrapper(existing[0]);
+    }
+
+    @Override
+    public void evict(Object key) {
+        target.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return target.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        target.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return target.invalidate();
+    }
+
+    private Object newest(Object key, Object current, Object candidate) {
+        if (versionFloors.isStale(key, candidate)) {
+            return current;
+        }
+        if (current instanceof UserDto cached && candidate instanceof UserDto user
+                && cached.getVersion() != null && user.getVersion() != null && cached.getVersion() > user.getVersion()) {
+            return current;
+        }
+        return candidate;
+    }
+}
@@ -0,0 +1,153 @@
+package org.usermanagement.usermanagement.coalescing;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.exception.ResourceNotFoundException;
+import org.usermanagement.usermanagement.exception.ServiceUnavailableException;
+import org.usermanagement.usermanagement.mapper.UserMapper;
+import org.usermanagement.usermanagement.service.impl.UserService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Merges bursts of PATCH requests for the same user into one update. The first request of a user
+ * opens a batch and waits up to the window for more; the patches are then merged in arrival order,
+ * each non-null field overriding the earlier ones like updateEntityFromDto would, and written in one
+ * transaction whose result every caller receives. If the merged update fails, the patches are applied
+ * one by one so that only the request at fault sees the error. Requests with If-Match are never
+ * merged, since their precondition refers to the version before any other patch.
+ * Batches are per instance: patches of one user arriving at different instances are not merged.
+ */
+@Slf4j
+@Component
+public class UserUpdateCoalescer {
+
+    private final Map<UUID, Batch> batches = new ConcurrentHashMap<>();
+    private final UserService userService;
+    private final UserMapper userMapper;
+    private final UserManagementProperties properties;
+    private final DistributionSummary batchSize;
+
+    public UserUpdateCoalescer(UserService userService, UserMapper userMapper, UserManagementProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.userService = userService;
+        this.userMapper = userMapper;
+        this.properties = properties;
+        this.batchSize = DistributionSummary.builder("user.update.coalesced")
+                .description("PATCH requests written by one merged update")
+                .register(meterRegistry);
+    }
+
+    public UserDto updateUser(UserDto patch, UUID userId, Long expectedVersion) {
+        if (!properties.getUpdateCoalescing().isEnabled() || expectedVersion != null) {
+            return userService.updateUser(patch, userId, expectedVersion);
+        }
+        int maxBatchSize = properties.getUpdateCoalescing().getMaxBatchSize();
+        while (true) {
+            Batch created = new Batch();
+            Batch batch = batches.putIfAbsent(userId, created);
+            if (batch == null) {
+                CompletableFuture<UserDto> result = created.join(patch, maxBatchSize);
+                write(userId, created);
+                return await(result);
+            }
+            CompletableFuture<UserDto> result = batch.join(patch, maxBatchSize);
+            if (result != null) {
+                return await(result);
+            }
+            // the batch was closed between lookup and join, its leader is already writing it
+        }
+    }
+
+    private void write(UUID userId, Batch batch) {
+        try {
+            batch.full.get(properties.getUpdateCoalescing().getWindow().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            // the window is over, write what arrived
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex);
+        }
+        batches.remove(userId, batch);
+        List<Pending> pending = batch.close();
+        batchSize.record(pending.size());
+
+        try {
+            UserDto merged = new UserDto();
+            pending.forEach(request -> userMapper.mergePatch(request.patch(), merged));
+            UserDto updated = userService.updateUser(merged, userId, null);
+            pending.forEach(request -> request.result().complete(updated));
+        } catch (RuntimeException ex) {
+            if (pending.size() == 1 || ex instanceof ResourceNotFoundException) {
+                pending.forEach(request -> request.result().completeExceptionally(ex));
+                return;
+            }
+            log.debug("Merged update of {} patches for user {} failed, applying them one by one", pending.size(), userId, ex);
+            for (Pending request : pending) {
+                try {
+                    request.result().complete(userService.updateUser(request.patch(), userId, null));
+                } catch (RuntimeException single) {
+                    request.result().completeExceptionally(single);
+                }
+            }
+        } finally {
+            // no-op for completed requests; keeps the others from waiting forever after an Error
+            pending.forEach(request -> request.result().completeExceptionally(new ServiceUnavailableException("Coalesced update failed, please retry")));
+        }
+    }
+
+    private static UserDto await(CompletableFuture<UserDto> result) {
+        try {
+            return result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ServiceUnavailableException("Coalesced update failed, please retry");
+        }
+    }
+
+    private static final class Batch {
+
+        private final List<Pending> pending = new ArrayList<>();
+        private final CompletableFuture<Void> full = new CompletableFuture<>();
+        private boolean closed;
+
+        /**
+         * @return null if the batch no longer takes patches
+         */
+        synchronized CompletableFuture<UserDto> join(UserDto patch, int maxBatchSize) {
+            if (closed) {
+                return null;
+            }
+            Pending request = new Pending(patch, new CompletableFuture<>());
+            pending.add(request);
+            if (pending.size() >= maxBatchSize) {
+                full.complete(null);
+            }
+            return request.result();
+        }
+
+        synchronized List<Pending> close() {
+            closed = true;
+            return List.copyOf(pending);
+        }
+    }
+
+    private record Pending(UserDto patch, CompletableFuture<UserDto> result) {
+    }
+}
@@ -0,0 +1,112 @@
+package org.usermanagement.usermanagement.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.usermanagement.usermanagement.cache.InvalidationBus;
+import org.usermanagement.usermanagement.cache.KafkaInvalidationBus;
+import org.usermanagement.usermanagement.cache.LocalInvalidationBus;
+import org.usermanagement.usermanagement.cache.OutboxInvalidationBus;
+import org.usermanagement.usermanagement.cache.VersionFloors;
+import org.usermanagement.usermanagement.cache.VersionedCache;
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.repository.OutboxEventRepository;
+import org.usermanagement.usermanagement.shard.UserShards;
+import org.usermanagement.usermanagement.util.SingleFlight;
+import org.usermanagement.usermanagement.util.SingleFlightCache;
+
+import java.util.List;
+
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+    public static final String USERS_CACHE = "users";
+
+    private static final String BUS_PREFIX = "user-management.cache";
+
+    @Bean
+    public CacheManager cacheManager(UserManagementProperties properties, SingleFlight singleFlight, VersionFloors versionFloors) {
+        UserManagementProperties.Cache config = properties.getCache();
+        Caffeine<Object, Object> caffeine = Caffeine.newBuilder()
+                .expireAfterWrite(config.getTtl())
+                .recordStats();
+        if (config.getMaximumWeight() > 0) {
+            caffeine = caffeine.maximumWeight(config.getMaximumWeight()).weigher((key, value) -> weigh(value));
+        } else {
+            caffeine = caffeine.maximumSize(config.getMaximumSize());
+        }
+
+        // concurrent misses on the same key share one load, see SingleFlightCache; VersionedCache
+        // keeps loads older than an invalidation from other instances out
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new SingleFlightCache(new VersionedCache(super.adaptCaffeineCache(name, cache), versionFloors), singleFlight);
+            }
+        };
+        cacheManager.setCaffeine(caffeine);
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCacheNames(List.of(USERS_CACHE));
+        // evictions are applied after commit so a rolled back update never drops a valid entry
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = BUS_PREFIX, name = "invalidation-bus", havingValue = "local", matchIfMissing = true)
+    public InvalidationBus localInvalidationBus() {
+        return new LocalInvalidationBus();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = BUS_PREFIX, name = "invalidation-bus", havingValue = "outbox")
+    public InvalidationBus outboxInvalidationBus(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper,
+                                                 UserManagementProperties properties, UserShards userShards) {
+        UserManagementProperties.Outbox outbox = properties.getOutbox();
+        return new OutboxInvalidationBus(outboxEventRepository, objectMapper, outbox.getGapTimeout(), outbox.getBatchSize(), userShards);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = BUS_PREFIX, name = "invalidation-bus", havingValue = "kafka")
+    public InvalidationBus kafkaInvalidationBus(KafkaTemplate<String, String> kafkaTemplate, ConsumerFactory<String, String> consumerFactory,
+                                                ObjectMapper objectMapper, UserManagementProperties properties) {
+        return new KafkaInvalidationBus(kafkaTemplate, consumerFactory, objectMapper, properties.getCache().getInvalidationTopic());
+    }
+
+    /**
+     * Keeps the cache.* meters: Boot only binds CaffeineCache instances, and the users cache is wrapped.
+     */
+    @Bean
+    @SuppressWarnings("unchecked")
+    public CacheMeterBinderProvider<SingleFlightCache> singleFlightCacheMeterBinderProvider() {
+        return (cache, tags) -> new CaffeineCacheMetrics<>(
+                (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache.getNativeCache(), cache.getName(), tags);
+    }
+
+    /**
+     * Rough retained size in bytes, good enough to bound the cache by memory instead of entry count.
+     */
+    private static int weigh(Object value) {
+        if (!(value instanceof UserDto user)) {
+            return 1;
+        }
+        return 96 + 2 * (length(user.getFirstName()) + length(user.getLastName())
+                + length(user.getEmail()) + length(user.getPhoneNumber()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,27 @@
+package org.usermanagement.usermanagement.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.usermanagement.usermanagement.metrics.QueryCountStatementInspector;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Enables @Timed on the service layer; controllers and repositories are timed by Spring Boot
+     * as http.server.requests and spring.data.repository.invocations.
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountCustomizer(QueryCountStatementInspector statementInspector) {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, statementInspector);
+    }
+}
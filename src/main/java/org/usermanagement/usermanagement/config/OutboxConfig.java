@@ -0,0 +1,38 @@
+package org.usermanagement.usermanagement.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.usermanagement.usermanagement.outbox.FileOutboxSink;
+import org.usermanagement.usermanagement.outbox.InMemoryOutboxSink;
+import org.usermanagement.usermanagement.outbox.KafkaOutboxSink;
+import org.usermanagement.usermanagement.outbox.OutboxSink;
+
+@Configuration
+@EnableScheduling
+public class OutboxConfig {
+
+    private static final String SINK_PREFIX = "user-management.outbox";
+
+    @Bean
+    @ConditionalOnProperty(prefix = SINK_PREFIX, name = "sink", havingValue = "memory", matchIfMissing = true)
+    public OutboxSink inMemoryOutboxSink(UserManagementProperties properties) {
+        return new InMemoryOutboxSink(properties.getOutbox().getMemoryCapacity());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = SINK_PREFIX, name = "sink", havingValue = "file")
+    public OutboxSink fileOutboxSink(UserManagementProperties properties, ObjectMapper objectMapper) {
+        return new FileOutboxSink(properties.getOutbox().getFile(), objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = SINK_PREFIX, name = "sink", havingValue = "kafka")
+    public OutboxSink kafkaOutboxSink(UserManagementProperties properties, KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper) {
+        UserManagementProperties.Outbox config = properties.getOutbox();
+        return new KafkaOutboxSink(kafkaTemplate, objectMapper, config.getKafkaTopic(), config.getSendTimeout());
+    }
+}
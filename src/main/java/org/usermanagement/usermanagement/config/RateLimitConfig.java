@@ -0,0 +1,29 @@
+package org.usermanagement.usermanagement.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.usermanagement.usermanagement.constant.ApiConstants;
+import org.usermanagement.usermanagement.ratelimit.RateLimitInterceptor;
+
+@Configuration
+@ConditionalOnProperty(prefix = "user-management.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+
+    public RateLimitConfig(UserManagementProperties properties, MeterRegistry meterRegistry) {
+        this.rateLimitInterceptor = new RateLimitInterceptor(properties, meterRegistry);
+    }
+
+    /**
+     * Registered as an interceptor rather than a filter so limits can be looked up by the handler
+     * method, while still running before argument resolution reads the request body.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor).addPathPatterns(ApiConstants.User.USER_BASE_API + "/**");
+    }
+}
@@ -0,0 +1,78 @@
+package org.usermanagement.usermanagement.config;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The reactive stack: WebFlux in front of R2DBC, enabled with the reactive profile. JPA keeps running
+ * next to it for the outbox relay, the change feed and the in-memory indexes.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+    /**
+     * Ids are BINARY(16) in UUID byte order, see UuidV7Generator; R2DBC drivers have no such mapping.
+     */
+    @Bean
+    public R2dbcCustomConversions r2dbcCustomConversions(ConnectionFactory connectionFactory) {
+        return R2dbcCustomConversions.of(DialectResolver.getDialect(connectionFactory),
+                List.of(UuidToBytes.INSTANCE, BytesToUuid.INSTANCE, ByteBufferToUuid.INSTANCE));
+    }
+
+    /**
+     * The R2DBC transaction manager is not registered as a bean: a second TransactionManager would make
+     * {@code @Transactional} on the blocking service ambiguous and stop Boot from creating the JPA one.
+     */
+    @Bean
+    public TransactionalOperator reactiveTransactionalOperator(ConnectionFactory connectionFactory) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+
+    @WritingConverter
+    enum UuidToBytes implements Converter<UUID, byte[]> {
+        INSTANCE;
+
+        @Override
+        public byte[] convert(UUID source) {
+            return ByteBuffer.allocate(16)
+                    .putLong(source.getMostSignificantBits())
+                    .putLong(source.getLeastSignificantBits())
+                    .array();
+        }
+    }
+
+    @ReadingConverter
+    enum BytesToUuid implements Converter<byte[], UUID> {
+        INSTANCE;
+
+        @Override
+        public UUID convert(byte[] source) {
+            return ByteBufferToUuid.INSTANCE.convert(ByteBuffer.wrap(source));
+        }
+    }
+
+    @ReadingConverter
+    enum ByteBufferToUuid implements Converter<ByteBuffer, UUID> {
+        INSTANCE;
+
+        @Override
+        public UUID convert(ByteBuffer source) {
+            ByteBuffer bytes = source.duplicate();
+            return new UUID(bytes.getLong(), bytes.getLong());
+        }
+    }
+}
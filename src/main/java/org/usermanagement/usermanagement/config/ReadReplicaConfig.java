@@ -0,0 +1,90 @@
+package org.usermanagement.usermanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.usermanagement.usermanagement.constant.ApiConstants;
+import org.usermanagement.usermanagement.datasource.ReadYourWrites;
+import org.usermanagement.usermanagement.datasource.ReadYourWritesInterceptor;
+import org.usermanagement.usermanagement.datasource.ReplicaDataSource;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replicas. The lazy proxy only fetches a connection on the first
+ * statement, when the transaction manager has already marked it read-only, and then takes it from the
+ * replicas instead of the primary. Anything that writes, including Hibernate schema updates and the
+ * outbox relay, keeps using the primary pool configured under spring.datasource.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "user-management.read-replicas", name = "enabled", havingValue = "true")
+public class ReadReplicaConfig implements WebMvcConfigurer {
+
+    private final UserManagementProperties properties;
+    private final ReadYourWrites readYourWrites;
+
+    public ReadReplicaConfig(UserManagementProperties properties, ReadYourWrites readYourWrites) {
+        this.properties = properties;
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaDataSource replicaDataSource(HikariDataSource primaryDataSource, DataSourceProperties dataSourceProperties,
+                                               MeterRegistry meterRegistry) {
+        UserManagementProperties.ReadReplicas config = properties.getReadReplicas();
+        List<String> urls = config.getUrls();
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("user-management.read-replicas.urls must list at least one replica");
+        }
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(urls.get(i))
+                    .username(config.getUsername() != null ? config.getUsername() : dataSourceProperties.determineUsername())
+                    .password(config.getPassword() != null ? config.getPassword() : dataSourceProperties.determinePassword())
+                    .build();
+            replica.setPoolName(primaryDataSource.getPoolName() + "-replica-" + i);
+            replica.setMaximumPoolSize(config.getMaximumPoolSize());
+            replica.setConnectionTimeout(primaryDataSource.getConnectionTimeout());
+            replica.setReadOnly(true);
+            replica.setMetricRegistry(meterRegistry);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new ReplicaDataSource(primaryDataSource, replicas, config.getBalancing(), config.getMaxReplicationLag(), meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadYourWritesInterceptor(readYourWrites, properties.getRateLimit().getClientHeader(),
+                properties.getRateLimit().getTrustedProxies()))
+                .addPathPatterns(ApiConstants.User.USER_BASE_API + "/**");
+    }
+}
@@ -0,0 +1,118 @@
+package org.usermanagement.usermanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.usermanagement.usermanagement.shard.EmailClaimSweeper;
+import org.usermanagement.usermanagement.shard.EmailDirectory;
+import org.usermanagement.usermanagement.shard.ShardContext;
+import org.usermanagement.usermanagement.shard.ShardMap;
+import org.usermanagement.usermanagement.shard.ShardRebalancer;
+import org.usermanagement.usermanagement.shard.ShardedDataSource;
+import org.usermanagement.usermanagement.shard.ShardsEndpoint;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spreads user_entity over several MySQL databases. The lazy proxy only fetches a connection on the
+ * first statement, after the service has routed the thread to the shard of the user, so one
+ * transaction always works on one shard. Everything that is not routed, Hibernate schema updates and
+ * the idempotency table included, runs on shard 0, the pool configured under spring.datasource.
+ * The other shards need the user_entity and outbox_event tables before they are added.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "user-management.shards", name = "enabled", havingValue = "true")
+public class ShardConfig {
+
+    private final UserManagementProperties properties;
+
+    public ShardConfig(UserManagementProperties properties) {
+        if (properties.getReadReplicas().isEnabled()) {
+            throw new IllegalStateException("user-management.shards and user-management.read-replicas cannot be enabled together");
+        }
+        this.properties = properties;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource firstShardDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ShardedDataSource shardedDataSource(HikariDataSource firstShardDataSource, DataSourceProperties dataSourceProperties,
+                                               MeterRegistry meterRegistry) {
+        UserManagementProperties.Shards config = properties.getShards();
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(firstShardDataSource);
+        for (String url : config.getUrls()) {
+            HikariDataSource shard = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(url)
+                    .username(config.getUsername() != null ? config.getUsername() : dataSourceProperties.determineUsername())
+                    .password(config.getPassword() != null ? config.getPassword() : dataSourceProperties.determinePassword())
+                    .build();
+            shard.setPoolName(firstShardDataSource.getPoolName() + "-shard-" + shards.size());
+            shard.setMaximumPoolSize(config.getMaximumPoolSize());
+            shard.setConnectionTimeout(firstShardDataSource.getConnectionTimeout());
+            shard.setMetricRegistry(meterRegistry);
+            shards.add(shard);
+        }
+        return new ShardedDataSource(shards, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardedDataSource shardedDataSource) {
+        return new LazyConnectionDataSourceProxy(shardedDataSource);
+    }
+
+    // after the entity manager factory, whose schema update creates the directory tables on shard 0
+    @Bean
+    @DependsOn("entityManagerFactory")
+    public ShardMap shardMap(ShardedDataSource shardedDataSource) {
+        shardedDataSource.requireTable("user_entity");
+        shardedDataSource.requireTable("outbox_event");
+        ShardMap shardMap = new ShardMap(new JdbcTemplate(shardedDataSource.shard(ShardContext.DIRECTORY)),
+                properties.getShards().getBuckets(), shardedDataSource.size());
+        shardMap.load();
+        return shardMap;
+    }
+
+    @Bean
+    @DependsOn("entityManagerFactory")
+    public EmailDirectory emailDirectory(ShardedDataSource shardedDataSource) {
+        EmailDirectory emailDirectory = new EmailDirectory(new JdbcTemplate(shardedDataSource.shard(ShardContext.DIRECTORY)));
+        emailDirectory.backfill();
+        return emailDirectory;
+    }
+
+    @Bean
+    public EmailClaimSweeper emailClaimSweeper(EmailDirectory emailDirectory, ShardedDataSource shardedDataSource) {
+        UserManagementProperties.Shards config = properties.getShards();
+        return new EmailClaimSweeper(emailDirectory, shardedDataSource, config.getClaimGracePeriod(), config.getMoveBatchSize());
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardMap shardMap, ShardedDataSource shardedDataSource) {
+        UserManagementProperties.Shards config = properties.getShards();
+        return new ShardRebalancer(shardMap, shardedDataSource, config.getMoveBatchSize(), config.getRefreshInterval().multipliedBy(2));
+    }
+
+    @Bean
+    public ShardsEndpoint shardsEndpoint(ShardMap shardMap, ShardRebalancer shardRebalancer) {
+        return new ShardsEndpoint(shardMap, shardRebalancer);
+    }
+}
@@ -0,0 +1,410 @@
+package org.usermanagement.usermanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "user-management")
+public class UserManagementProperties {
+
+    private Bulk bulk = new Bulk();
+
+    private Pagination pagination = new Pagination();
+
+    private Cache cache = new Cache();
+
+    private EmailIndex emailIndex = new EmailIndex();
+
+    private Bulkhead bulkhead = new Bulkhead();
+
+    private Outbox outbox = new Outbox();
+
+    private Search search = new Search();
+
+    private RateLimit rateLimit = new RateLimit();
+
+    private Idempotency idempotency = new Idempotency();
+
+    private ReadReplicas readReplicas = new ReadReplicas();
+
+    private Shards shards = new Shards();
+
+    private UpdateCoalescing updateCoalescing = new UpdateCoalescing();
+
+    @Getter
+    @Setter
+    public static class Bulk {
+        /**
+         * Rows persisted per transaction; keep aligned with hibernate.jdbc.batch_size.
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Most ids accepted by one batch get.
+         */
+        private int maxBatchGetIds = 500;
+
+        /**
+         * Ids per IN query of a batch get; larger batches are split into several queries.
+         */
+        private int batchGetChunkSize = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class Pagination {
+        /**
+         * Upper bound for the size of a cursor page.
+         */
+        private int maxPageSize = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+        /**
+         * Time after which a cached user is reloaded even without an explicit eviction.
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+
+        /**
+         * Maximum number of cached users, used when no weight bound is configured.
+         */
+        private long maximumSize = 100_000;
+
+        /**
+         * Approximate upper bound in bytes; takes precedence over maximumSize when positive.
+         */
+        private long maximumWeight = 0;
+
+        /**
+         * How invalidations reach the other instances: local (this JVM only), outbox (polls the
+         * outbox table) or kafka (broadcast on invalidationTopic).
+         */
+        private String invalidationBus = "local";
+
+        private Duration invalidationPollInterval = Duration.ofMillis(500);
+
+        private String invalidationTopic = "user-cache-invalidations";
+
+        /**
+         * How long the newest announced version of a user keeps older loads out of the cache.
+         */
+        private Duration versionRetention = Duration.ofMinutes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class EmailIndex {
+        private boolean enabled = true;
+
+        /**
+         * Sizes the filter; memory is about -n * ln(p) / ln(2)^2 bits, roughly 1.2 MB per million emails at 1%.
+         */
+        private long expectedInsertions = 1_000_000;
+
+        private double falsePositiveRate = 0.01;
+    }
+
+    @Getter
+    @Setter
+    public static class Bulkhead {
+        private boolean enabled = true;
+
+        /**
+         * Concurrent service and repository calls of HTTP requests. Unset, it is whatever the pool has
+         * left after backgroundMaxConcurrentCalls and reservedConnections; startup fails when the three
+         * together exceed the pool.
+         */
+        private Integer maxConcurrentCalls;
+
+        /**
+         * Concurrent calls made outside a request: outbox relay, index rebuilds, sweeps and streamed exports.
+         */
+        private int backgroundMaxConcurrentCalls = 4;
+
+        /**
+         * Connections kept for JDBC work that bypasses the bulkhead: email directory, shard map refresh
+         * and idempotency records.
+         */
+        private int reservedConnections = 2;
+
+        /**
+         * The Hikari maximum pool size the permits are carved out of.
+         */
+        private int connectionPoolSize = 20;
+
+        /**
+         * How long a call may queue for a permit before it is rejected with 503.
+         */
+        private Duration maxWait = Duration.ofSeconds(2);
+    }
+
+    @Getter
+    @Setter
+    public static class Outbox {
+        /**
+         * Events locked, published and marked per relay transaction.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Pause between relay runs once the outbox is drained.
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        private boolean relayEnabled = true;
+
+        /**
+         * memory, file or kafka.
+         */
+        private String sink = "memory";
+
+        private int memoryCapacity = 10_000;
+
+        private Path file = Path.of("outbox", "user-events.ndjson");
+
+        private String kafkaTopic = "user-events";
+
+        private Duration sendTimeout = Duration.ofSeconds(10);
+
+        /**
+         * How long the change feed stops at a missing sequence number before skipping it. The number
+         * belongs to a transaction that has not committed yet or rolled back, so this must exceed the
+         * longest user transaction plus the clock skew between instances.
+         */
+        private Duration gapTimeout = Duration.ofSeconds(30);
+
+        /**
+         * How long published events stay available to the change feed.
+         */
+        private Duration retention = Duration.ofDays(7);
+
+        private Duration purgeInterval = Duration.ofHours(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Search {
+        private boolean enabled = true;
+
+        /**
+         * Upper bound on the terms a single query token may expand to through prefix or fuzzy
+         * matching, which keeps one-letter queries from touching the whole index.
+         */
+        private int maxExpansions = 128;
+
+        /**
+         * The index is rebuilt once replaced and deleted documents exceed this share of the live ones.
+         */
+        private double maxTombstoneRatio = 0.5;
+
+        /**
+         * Age after which the index is rebuilt regardless, bounding how long users created on other
+         * instances stay unsearchable here.
+         */
+        private Duration refreshInterval = Duration.ofMinutes(15);
+
+        private Duration compactionCheckInterval = Duration.ofMinutes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class ReadReplicas {
+        private boolean enabled = false;
+
+        /**
+         * JDBC URLs of the replicas; credentials and driver are shared with spring.datasource.
+         */
+        private List<String> urls = new ArrayList<>();
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 20;
+
+        /**
+         * round-robin or least-connections.
+         */
+        private String balancing = "round-robin";
+
+        private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+        /**
+         * Replicas further behind the primary are taken out of rotation; only checked on MySQL replicas.
+         */
+        private Duration maxReplicationLag = Duration.ofSeconds(5);
+
+        /**
+         * How long reads of a written user, and all reads of the client that wrote it, stay on the primary.
+         * Keep it above the replication lag you are willing to tolerate.
+         */
+        private Duration readYourWritesWindow = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Shards {
+        private boolean enabled = false;
+
+        /**
+         * JDBC URLs of the shards after the first; spring.datasource is shard 0 and also holds the
+         * bucket assignment and the email directory. Shards can be added at the end, never removed.
+         */
+        private List<String> urls = new ArrayList<>();
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 20;
+
+        /**
+         * Ids hash into this many buckets, and whole buckets are assigned to shards. Fixed once users
+         * are stored; keep it well above the largest number of shards you expect.
+         */
+        private int buckets = 1024;
+
+        /**
+         * How often every instance reloads the bucket assignment. Moves wait twice this long before
+         * each step, so all instances follow them.
+         */
+        private Duration refreshInterval = Duration.ofSeconds(5);
+
+        /**
+         * Users scanned and copied per statement while buckets move, and email claims checked per
+         * statement by the claim sweep.
+         */
+        private int moveBatchSize = 500;
+
+        /**
+         * An email claim whose user is not stored this long after the claim is released again. Must
+         * exceed the longest transaction that creates a user or changes an email.
+         */
+        private Duration claimGracePeriod = Duration.ofMinutes(10);
+
+        private Duration claimSweepInterval = Duration.ofMinutes(10);
+    }
+
+    @Getter
+    @Setter
+    public static class UpdateCoalescing {
+        private boolean enabled = false;
+
+        /**
+         * How long the first PATCH of a user waits for more to arrive; the added latency of every
+         * coalesced request is at most this plus the one merged update.
+         */
+        private Duration window = Duration.ofMillis(10);
+
+        /**
+         * A batch is written as soon as it holds this many patches, without waiting out the window.
+         */
+        private int maxBatchSize = 32;
+    }
+
+    @Getter
+    @Setter
+    public static class Idempotency {
+        /**
+         * How long the response to an Idempotency-Key is replayed.
+         */
+        private Duration ttl = Duration.ofHours(24);
+
+        private long maximumSize = 100_000;
+
+        /**
+         * Also records keys in the idempotency_key table, so retries landing on another instance
+         * or after a restart are still answered from the first response.
+         */
+        private boolean jdbcEnabled = false;
+
+        /**
+         * How long a claimed key blocks other instances before it is considered abandoned.
+         */
+        private Duration pendingTimeout = Duration.ofMinutes(1);
+
+        /**
+         * How long a duplicate waits for the request it coalesced with before giving up with 409.
+         */
+        private Duration maxWait = Duration.ofSeconds(10);
+
+        private Duration purgeInterval = Duration.ofHours(1);
+    }
+
+    @Getter
+    @Setter
+    public static class RateLimit {
+        private boolean enabled = true;
+
+        /**
+         * Header identifying the client, set by a proxy in front of the service. Requests without an
+         * authenticated principal are keyed by this header only when they come from a trusted proxy,
+         * otherwise by remote address.
+         */
+        private String clientHeader = "X-Client-Id";
+
+        /**
+         * Remote addresses of the proxies whose client header is believed; empty trusts none.
+         */
+        private List<String> trustedProxies = new ArrayList<>();
+
+        /**
+         * Upper bound on tracked clients; idle buckets are dropped after clientIdleTimeout.
+         */
+        private long maxClients = 100_000;
+
+        private Duration clientIdleTimeout = Duration.ofMinutes(10);
+
+        /**
+         * Limits for endpoints without an entry in {@link #endpoints}.
+         */
+        private Endpoint defaults = new Endpoint();
+
+        /**
+         * Limits keyed by UserController method name, e.g. createUser or getUser. An entry replaces
+         * the defaults as a whole, so unset fields fall back to the built-in values, not to defaults.
+         */
+        private Map<String, Endpoint> endpoints = new HashMap<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Endpoint {
+        /**
+         * Sustained requests per second a single client may send; zero disables the client bucket.
+         */
+        private double clientRate = 50;
+
+        private int clientBurst = 100;
+
+        /**
+         * Sustained requests per second across all clients; zero disables the global bucket.
+         */
+        private double globalRate = 1000;
+
+        private int globalBurst = 2000;
+
+        /**
+         * Whether concurrent requests are capped by the latency-based limit. Off for long-running
+         * responses such as the export, whose running time says nothing about database congestion.
+         */
+        private boolean adaptive = true;
+
+        private int initialConcurrency = 20;
+
+        private int minConcurrency = 4;
+
+        private int maxConcurrency = 200;
+    }
+}
@@ -6,13 +6,26 @@ public final class ApiConstants {
 
     public static final String TEST = "/test";
 
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     public static final class User{
         public static final String USER_BASE_API=API_VERSION+"/users";
         public static final String CREATE_USER_API="";
         public static final String GET_USER="/{userId}";
         public static final String GET_USERS="";
+        public static final String GET_USERS_CURSOR="/cursor";
         public static final String UPDATE_USER_API="/{userId}";
         public static final String DELETE_USER_API="/{userId}";
+        public static final String BULK_CREATE_USERS_API="/bulk";
+        public static final String BULK_UPDATE_USERS_API="/bulk";
+        public static final String BULK_DELETE_USERS_API="/bulk/delete";
+        public static final String BATCH_GET_USERS_API="/batch-get";
+        public static final String GET_USER_CHANGES="/changes";
+        public static final String SEARCH_USERS="/search";
+        public static final String EXPORT_USERS="/export";
+        public static final String STREAM_USERS="/stream";
 
     }
 }
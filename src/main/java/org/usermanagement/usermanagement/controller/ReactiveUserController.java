@@ -0,0 +1,107 @@
+package org.usermanagement.usermanagement.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.usermanagement.usermanagement.constant.ApiConstants;
+import org.usermanagement.usermanagement.dto.CursorPage;
+import org.usermanagement.usermanagement.dto.GlobalApiRequest;
+import org.usermanagement.usermanagement.dto.GlobalApiResponse;
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.service.impl.ReactiveUserService;
+import org.usermanagement.usermanagement.util.ETags;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The user endpoints on WebFlux, active with the reactive profile in place of UserController. Paths,
+ * request and response bodies are the same, and errors go through the same GlobalExceptionHandler.
+ * Bulk, batch, search, export and change feed endpoints are only served by the servlet stack.
+ */
+@RestController
+@RequestMapping(ApiConstants.User.USER_BASE_API)
+@Slf4j
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveUserController {
+
+    private final ReactiveUserService reactiveUserService;
+
+    @PostMapping(ApiConstants.User.CREATE_USER_API)
+    public Mono<ResponseEntity<GlobalApiResponse<UserDto>>> createUser(@RequestBody @Valid GlobalApiRequest<UserDto> request) {
+        return reactiveUserService.createUser(request.getData())
+                .map(createdUser -> ResponseEntity.status(HttpStatus.CREATED).body(GlobalApiResponse.success(createdUser)));
+    }
+
+    @PatchMapping(ApiConstants.User.UPDATE_USER_API)
+    public Mono<ResponseEntity<GlobalApiResponse<UserDto>>> updateUser(@RequestBody @Valid GlobalApiRequest<UserDto> request, @PathVariable UUID userId,
+                                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return expectedVersion(userId, ifMatch)
+                .flatMap(expectedVersion -> reactiveUserService.updateUser(request.getData(), userId, expectedVersion.orElse(null)))
+                .map(updatedUser -> ResponseEntity.ok().eTag(ETags.of(updatedUser.getVersion())).body(GlobalApiResponse.success(updatedUser)));
+    }
+
+    /**
+     * The service takes a single version, so a list-valued If-Match is narrowed to the current one first.
+     */
+    private Mono<Optional<Long>> expectedVersion(UUID userId, String ifMatch) {
+        List<Long> versions = ETags.expectedVersions(ifMatch);
+        if (versions == null || versions.size() == 1) {
+            return Mono.just(Optional.ofNullable(versions == null ? null : versions.get(0)));
+        }
+        return reactiveUserService.getUserById(userId)
+                .map(user -> Optional.of(ETags.select(versions, user.getVersion())));
+    }
+
+    /**
+     * If-None-Match is compared with the cached user, like on the servlet stack.
+     */
+    @GetMapping(ApiConstants.User.GET_USER)
+    public Mono<ResponseEntity<GlobalApiResponse<UserDto>>> getUser(@PathVariable UUID userId,
+                                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return reactiveUserService.getUserById(userId)
+                .map(user -> ifNoneMatch != null && ETags.matchesAny(ifNoneMatch, user.getVersion())
+                        ? ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ETags.of(user.getVersion())).<GlobalApiResponse<UserDto>>build()
+                        : ResponseEntity.ok().eTag(ETags.of(user.getVersion())).body(GlobalApiResponse.success(user)));
+    }
+
+    @GetMapping(ApiConstants.User.GET_USERS_CURSOR)
+    public Mono<ResponseEntity<GlobalApiResponse<CursorPage<UserDto>>>> getUsersByCursor(@RequestParam(required = false) String cursor,
+                                                                                        @RequestParam(defaultValue = "20") int size) {
+        return reactiveUserService.userList(cursor, size)
+                .map(users -> ResponseEntity.ok(GlobalApiResponse.success(users)));
+    }
+
+    /**
+     * One user per line, written as the database delivers them and no faster than the client reads.
+     */
+    @GetMapping(value = ApiConstants.User.STREAM_USERS, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserDto> streamUsers() {
+        return reactiveUserService.streamUsers();
+    }
+
+    @DeleteMapping(ApiConstants.User.DELETE_USER_API)
+    public Mono<ResponseEntity<GlobalApiResponse<Void>>> deleteUser(@PathVariable UUID userId) {
+        return reactiveUserService.deleteUser(userId)
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok(GlobalApiResponse.<Void>success(null))));
+    }
+}
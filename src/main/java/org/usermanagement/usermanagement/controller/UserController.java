@@ -1,11 +1,16 @@
 package org.usermanagement.usermanagement.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,49 +18,152 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.usermanagement.usermanagement.coalescing.UserUpdateCoalescer;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
 import org.usermanagement.usermanagement.constant.ApiConstants;
+import org.usermanagement.usermanagement.dto.BatchGetRequest;
+import org.usermanagement.usermanagement.dto.BatchUserResponse;
+import org.usermanagement.usermanagement.dto.BulkMutationResponse;
+import org.usermanagement.usermanagement.dto.BulkUserResponse;
+import org.usermanagement.usermanagement.dto.BulkUserSelection;
+import org.usermanagement.usermanagement.dto.BulkUserUpdateRequest;
+import org.usermanagement.usermanagement.dto.CursorPage;
 import org.usermanagement.usermanagement.dto.GlobalApiRequest;
 import org.usermanagement.usermanagement.dto.GlobalApiResponse;
+import org.usermanagement.usermanagement.dto.PageResponse;
 import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.dto.UserEvent;
+import org.usermanagement.usermanagement.enums.ExportFormat;
+import org.usermanagement.usermanagement.idempotency.IdempotencyStore;
+import org.usermanagement.usermanagement.idempotency.IdempotentResponse;
 import org.usermanagement.usermanagement.service.impl.UserService;
+import org.usermanagement.usermanagement.util.ClientKeys;
+import org.usermanagement.usermanagement.util.ETags;
+import org.usermanagement.usermanagement.util.JsonStreamReader;
 
+import java.io.InputStream;
 import java.util.UUID;
 
 @RestController
 @RequestMapping(ApiConstants.User.USER_BASE_API)
 @Slf4j
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class UserController
 {
 
     private final UserService userService;
+    private final JsonStreamReader jsonStreamReader;
+    private final IdempotencyStore idempotencyStore;
+    private final UserUpdateCoalescer userUpdateCoalescer;
+    private final UserManagementProperties properties;
 
     @PostMapping(ApiConstants.User.CREATE_USER_API)
-    public ResponseEntity<GlobalApiResponse<UserDto>> createUser(@RequestBody @Valid GlobalApiRequest<UserDto> request) {
-        UserDto createdUser = userService.createUser(request.getData());
-        return ResponseEntity.status(HttpStatus.CREATED).body(GlobalApiResponse.success(createdUser));
+    public ResponseEntity<GlobalApiResponse<UserDto>> createUser(@RequestBody @Valid GlobalApiRequest<UserDto> request,
+                                                                 @RequestHeader(value = ApiConstants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                                 HttpServletRequest httpRequest) {
+        if (idempotencyKey == null) {
+            UserDto createdUser = userService.createUser(request.getData());
+            return ResponseEntity.status(HttpStatus.CREATED).body(GlobalApiResponse.success(createdUser));
+        }
+        UserManagementProperties.RateLimit clients = properties.getRateLimit();
+        String client = ClientKeys.resolve(httpRequest, clients.getClientHeader(), clients.getTrustedProxies());
+        IdempotentResponse<UserDto> response = idempotencyStore.execute("createUser", client, idempotencyKey, request.getData(),
+                UserDto.class, () -> GlobalApiResponse.success(userService.createUser(request.getData())));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(ApiConstants.IDEMPOTENT_REPLAYED_HEADER, Boolean.toString(response.replayed()))
+                .body(response.body());
+    }
+
+    @PostMapping(value = ApiConstants.User.BULK_CREATE_USERS_API,
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<GlobalApiResponse<BulkUserResponse>> createUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body) {
+        BulkUserResponse response = userService.createUsers(jsonStreamReader.read(body, contentType, UserDto.class));
+        return ResponseEntity.ok(GlobalApiResponse.success(response));
     }
 
     @PatchMapping(ApiConstants.User.UPDATE_USER_API)
-    public ResponseEntity<GlobalApiResponse<UserDto>> updateUser(@RequestBody @Valid GlobalApiRequest<UserDto> request, @PathVariable UUID userId) {
-        UserDto updatedUser = userService.updateUser(request.getData(), userId);
-        return ResponseEntity.status(HttpStatus.OK).body(GlobalApiResponse.success(updatedUser));
+    public ResponseEntity<GlobalApiResponse<UserDto>> updateUser(@RequestBody @Valid GlobalApiRequest<UserDto> request, @PathVariable UUID userId,
+                                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        UserDto updatedUser = userUpdateCoalescer.updateUser(request.getData(), userId, ETags.expectedVersion(ifMatch, () -> userService.getUserById(userId).getVersion()));
+        return ResponseEntity.status(HttpStatus.OK).eTag(ETags.of(updatedUser.getVersion())).body(GlobalApiResponse.success(updatedUser));
+    }
+
+    @PatchMapping(ApiConstants.User.BULK_UPDATE_USERS_API)
+    public ResponseEntity<GlobalApiResponse<BulkMutationResponse>> updateUsers(@RequestBody @Valid GlobalApiRequest<BulkUserUpdateRequest> request) {
+        BulkMutationResponse response = userService.updateUsers(request.getData());
+        return ResponseEntity.ok(GlobalApiResponse.success(response));
+    }
+
+    @PostMapping(ApiConstants.User.BULK_DELETE_USERS_API)
+    public ResponseEntity<GlobalApiResponse<BulkMutationResponse>> deleteUsers(@RequestBody @Valid GlobalApiRequest<BulkUserSelection> request) {
+        BulkMutationResponse response = userService.deleteUsers(request.getData());
+        return ResponseEntity.ok(GlobalApiResponse.success(response));
+    }
+
+    @PostMapping(ApiConstants.User.BATCH_GET_USERS_API)
+    public ResponseEntity<GlobalApiResponse<BatchUserResponse>> getUsersByIds(@RequestBody @Valid GlobalApiRequest<BatchGetRequest> request) {
+        BatchUserResponse response = userService.getUsersByIds(request.getData().getIds());
+        return ResponseEntity.ok(GlobalApiResponse.success(response));
     }
 
     @GetMapping(ApiConstants.User.GET_USER)
-    public ResponseEntity<GlobalApiResponse<UserDto>> getUser(@PathVariable UUID userId) {
+    public ResponseEntity<GlobalApiResponse<UserDto>> getUser(@PathVariable UUID userId,
+                                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         UserDto user = userService.getUserById(userId);
-        return ResponseEntity.ok(GlobalApiResponse.success(user));
+        if (ifNoneMatch != null && ETags.matchesAny(ifNoneMatch, user.getVersion())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ETags.of(user.getVersion())).build();
+        }
+        return ResponseEntity.ok().eTag(ETags.of(user.getVersion())).body(GlobalApiResponse.success(user));
     }
 
     @GetMapping(ApiConstants.User.GET_USERS)
-    public ResponseEntity<GlobalApiResponse<Page<UserDto>>> getUsers(Pageable pageable) {
+    public ResponseEntity<GlobalApiResponse<PageResponse<UserDto>>> getUsers(Pageable pageable) {
         Page<UserDto> users = userService.userList(pageable);
+        return ResponseEntity.ok(GlobalApiResponse.success(PageResponse.of(users)));
+    }
+
+    @GetMapping(ApiConstants.User.GET_USERS_CURSOR)
+    public ResponseEntity<GlobalApiResponse<CursorPage<UserDto>>> getUsersByCursor(@RequestParam(required = false) String cursor,
+                                                                                  @RequestParam(defaultValue = "20") int size) {
+        CursorPage<UserDto> users = userService.userList(cursor, size);
         return ResponseEntity.ok(GlobalApiResponse.success(users));
     }
 
+    @GetMapping(ApiConstants.User.SEARCH_USERS)
+    public ResponseEntity<GlobalApiResponse<PageResponse<UserDto>>> searchUsers(@RequestParam String q, Pageable pageable) {
+        Page<UserDto> users = userService.searchUsers(q, pageable);
+        return ResponseEntity.ok(GlobalApiResponse.success(PageResponse.of(users)));
+    }
+
+    /**
+     * The body is written after this method returns, on an async request thread, so the export
+     * transaction is opened and closed inside the streaming callback.
+     */
+    @GetMapping(ApiConstants.User.EXPORT_USERS)
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "ndjson") String format,
+                                                             @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        String filename = "users." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> userService.exportUsers(exportFormat, gzip, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    @GetMapping(ApiConstants.User.GET_USER_CHANGES)
+    public ResponseEntity<GlobalApiResponse<CursorPage<UserEvent>>> getUserChanges(@RequestParam(required = false) String cursor,
+                                                                                  @RequestParam(defaultValue = "100") int size) {
+        CursorPage<UserEvent> changes = userService.userChanges(cursor, size);
+        return ResponseEntity.ok(GlobalApiResponse.success(changes));
+    }
+
     @DeleteMapping(ApiConstants.User.DELETE_USER_API)
     public ResponseEntity<GlobalApiResponse<Void>> deleteUser(@PathVariable UUID userId) {
         userService.deleteUser(userId);
@@ -0,0 +1,95 @@
+package org.usermanagement.usermanagement.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.event.UserChangedEvent;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Remembers recent writes so that reads which could observe replication lag go to the primary.
+ * Two windows are tracked: per user id, so a lagging replica can never put an outdated user into the
+ * cache, and per client, so a client sees its own changes in lists and searches. A pin is thread
+ * bound and picked up by {@link ReplicaDataSource} when the read-only transaction takes its connection.
+ */
+@Component
+public class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+    private static final Pin NOT_PINNED = () -> {
+    };
+
+    private final boolean enabled;
+    private final Cache<UUID, Boolean> recentUsers;
+    private final Cache<String, Boolean> recentClients;
+
+    public ReadYourWrites(UserManagementProperties properties) {
+        UserManagementProperties.ReadReplicas config = properties.getReadReplicas();
+        this.enabled = config.isEnabled();
+        this.recentUsers = Caffeine.newBuilder().expireAfterWrite(config.getReadYourWritesWindow()).build();
+        this.recentClients = Caffeine.newBuilder().expireAfterWrite(config.getReadYourWritesWindow()).build();
+    }
+
+    public static boolean isPinned() {
+        return PINNED.get() != null;
+    }
+
+    /**
+     * Pins the current thread to the primary until the returned pin is closed.
+     */
+    public static Pin pin() {
+        if (isPinned()) {
+            return NOT_PINNED;
+        }
+        PINNED.set(Boolean.TRUE);
+        return PINNED::remove;
+    }
+
+    public Pin pinIfRecentlyWritten(UUID userId) {
+        return enabled && recentUsers.getIfPresent(userId) != null ? pin() : NOT_PINNED;
+    }
+
+    public Pin pinIfRecentlyWritten(Collection<UUID> userIds) {
+        if (!enabled) {
+            return NOT_PINNED;
+        }
+        for (UUID userId : userIds) {
+            if (recentUsers.getIfPresent(userId) != null) {
+                return pin();
+            }
+        }
+        return NOT_PINNED;
+    }
+
+    public Pin pinIfRecentClient(String client) {
+        return enabled && recentClients.getIfPresent(client) != null ? pin() : NOT_PINNED;
+    }
+
+    public void recordClientWrite(String client) {
+        if (enabled) {
+            recentClients.put(client, Boolean.TRUE);
+        }
+    }
+
+    // recorded when the change is made rather than after commit, so the window is already open when
+    // the transaction-aware cache applies its eviction; a rolled back change only pins needlessly
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (enabled) {
+            for (UserDto user : event.users()) {
+                recentUsers.put(user.getId(), Boolean.TRUE);
+            }
+        }
+    }
+
+    public interface Pin extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
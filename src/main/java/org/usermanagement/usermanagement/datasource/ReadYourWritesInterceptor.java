@@ -0,0 +1,58 @@
+package org.usermanagement.usermanagement.datasource;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.usermanagement.usermanagement.util.ClientKeys;
+
+import java.util.List;
+
+/**
+ * Keeps the reads of a client that just wrote on the primary, so lists and searches reflect its own
+ * changes while the replicas catch up. Clients are identified the same way as for rate limiting.
+ */
+@RequiredArgsConstructor
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PIN = ReadYourWritesInterceptor.class.getName() + ".PIN";
+
+    private final ReadYourWrites readYourWrites;
+    private final String clientHeader;
+    private final List<String> trustedProxies;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (isRead(request)) {
+            request.setAttribute(PIN, readYourWrites.pinIfRecentClient(ClientKeys.resolve(request, clientHeader, trustedProxies)));
+        }
+        return true;
+    }
+
+    // the pin is bound to the container thread, so it must not outlive the initial dispatch
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        unpin(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (isRead(request)) {
+            unpin(request);
+        } else if (!isRead(request) && ex == null && response.getStatus() < 400) {
+            readYourWrites.recordClientWrite(ClientKeys.resolve(request, clientHeader, trustedProxies));
+        }
+    }
+
+    private static void unpin(HttpServletRequest request) {
+        if (request.getAttribute(PIN) instanceof ReadYourWrites.Pin pin) {
+            pin.close();
+            request.removeAttribute(PIN);
+        }
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+    }
+}
@@ -0,0 +1,170 @@
+package org.usermanagement.usermanagement.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The read-only side of the routing data source: hands out connections of healthy replicas, chosen
+ * round robin or by fewest active connections. Falls back to the primary when the thread is pinned
+ * by {@link ReadYourWrites}, when no replica is healthy, or when the chosen replica refuses a connection.
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    public static final String ROUND_ROBIN = "round-robin";
+    public static final String LEAST_CONNECTIONS = "least-connections";
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final boolean leastConnections;
+    private final long maxReplicationLagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter replicaReads;
+    private final Counter primaryReads;
+
+    public ReplicaDataSource(DataSource primary, Map<String, DataSource> replicas, String balancing,
+                             Duration maxReplicationLag, MeterRegistry meterRegistry) {
+        if (!ROUND_ROBIN.equals(balancing) && !LEAST_CONNECTIONS.equals(balancing)) {
+            throw new IllegalArgumentException("Unknown replica balancing: " + balancing);
+        }
+        this.primary = primary;
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        this.leastConnections = LEAST_CONNECTIONS.equals(balancing);
+        this.maxReplicationLagSeconds = maxReplicationLag.toSeconds();
+        this.replicaReads = Counter.builder("user.datasource.reads").tag("target", "replica").register(meterRegistry);
+        this.primaryReads = Counter.builder("user.datasource.reads").tag("target", "primary").register(meterRegistry);
+        Gauge.builder("user.datasource.replicas.healthy", this.replicas,
+                all -> all.stream().filter(replica -> replica.healthy).count()).register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!ReadYourWrites.isPinned()) {
+            Replica replica = choose();
+            if (replica != null) {
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replicaReads.increment();
+                    return connection;
+                } catch (SQLException ex) {
+                    markDown(replica, ex.getMessage());
+                }
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    /**
+     * Validates every replica and, on MySQL, checks how far it lags behind its source. Replicas come
+     * back into rotation on the first check they pass.
+     */
+    @Scheduled(fixedDelayString = "${user-management.read-replicas.health-check-interval:5s}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    markDown(replica, "connection is not valid");
+                } else if (!withinLag(connection)) {
+                    markDown(replica, "replication lag above " + maxReplicationLagSeconds + "s");
+                } else if (!replica.healthy) {
+                    log.info("Replica {} is healthy again", replica.name);
+                    replica.healthy = true;
+                }
+            } catch (SQLException ex) {
+                markDown(replica, ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception ex) {
+                    log.warn("Could not close replica {}", replica.name, ex);
+                }
+            }
+        }
+    }
+
+    private Replica choose() {
+        List<Replica> healthy = replicas.stream().filter(replica -> replica.healthy).toList();
+        if (healthy.isEmpty()) {
+            return null;
+        }
+        if (leastConnections) {
+            return healthy.stream().min(Comparator.comparingInt(Replica::activeConnections)).orElseThrow();
+        }
+        return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+    }
+
+    private boolean withinLag(Connection connection) {
+        try (Statement statement = connection.createStatement();
+             ResultSet status = statement.executeQuery("SHOW REPLICA STATUS")) {
+            if (!status.next()) {
+                return true;
+            }
+            long lag = status.getLong("Seconds_Behind_Source");
+            // NULL means replication is stopped
+            return !status.wasNull() && lag <= maxReplicationLagSeconds;
+        } catch (SQLException ex) {
+            // not a MySQL replica, e.g. an embedded stand-in: nothing to check
+            return true;
+        }
+    }
+
+    private void markDown(Replica replica, String reason) {
+        if (replica.healthy) {
+            log.warn("Taking replica {} out of rotation: {}", replica.name, reason);
+            replica.healthy = false;
+        }
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private int activeConnections() {
+            if (dataSource instanceof HikariDataSource hikari) {
+                HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                return pool == null ? 0 : pool.getActiveConnections();
+            }
+            return 0;
+        }
+    }
+}
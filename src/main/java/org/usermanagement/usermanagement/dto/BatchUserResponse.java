@@ -0,0 +1,29 @@
+package org.usermanagement.usermanagement.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.usermanagement.usermanagement.enums.BatchGetStatus;
+
+import java.util.List;
+
+/**
+ * One result per requested id, in request order; repeated ids are answered repeatedly.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class BatchUserResponse {
+
+    private int total;
+    private int found;
+    private int notFound;
+    private List<BatchUserResult> results;
+
+    public BatchUserResponse(List<BatchUserResult> results) {
+        this.results = results;
+        this.total = results.size();
+        this.found = (int) results.stream().filter(result -> result.getStatus() == BatchGetStatus.FOUND).count();
+        this.notFound = total - found;
+    }
+}
@@ -0,0 +1,22 @@
+package org.usermanagement.usermanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.usermanagement.usermanagement.enums.BatchGetStatus;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchUserResult {
+
+    private UUID id;
+    private BatchGetStatus status;
+    private UserDto user;
+}
@@ -0,0 +1,17 @@
+package org.usermanagement.usermanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkMutationResponse {
+
+    // ids looked at, including ones that were already deleted or do not exist
+    private long matched;
+    private long affected;
+}
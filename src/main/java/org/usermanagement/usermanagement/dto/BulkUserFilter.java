@@ -0,0 +1,26 @@
+package org.usermanagement.usermanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUserFilter {
+
+    // matches users whose email is at this domain, e.g. "example.com"
+    private String emailDomain;
+
+    private LocalDateTime createdAfter;
+
+    private LocalDateTime createdBefore;
+
+    public boolean isEmpty() {
+        return (emailDomain == null || emailDomain.isBlank()) && createdAfter == null && createdBefore == null;
+    }
+}
@@ -0,0 +1,26 @@
+package org.usermanagement.usermanagement.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.usermanagement.usermanagement.enums.BulkRowStatus;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class BulkUserResponse {
+
+    private int total;
+    private int created;
+    private int failed;
+    private List<BulkUserResult> results;
+
+    public BulkUserResponse(List<BulkUserResult> results) {
+        this.results = results;
+        this.total = results.size();
+        this.created = (int) results.stream().filter(result -> result.getStatus() == BulkRowStatus.CREATED).count();
+        this.failed = total - created;
+    }
+}
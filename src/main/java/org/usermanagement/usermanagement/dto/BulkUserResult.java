@@ -0,0 +1,24 @@
+package org.usermanagement.usermanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.usermanagement.usermanagement.enums.BulkRowStatus;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkUserResult {
+
+    private int index;
+    private BulkRowStatus status;
+    private UUID id;
+    private String email;
+    private String message;
+}
@@ -0,0 +1,23 @@
+package org.usermanagement.usermanagement.dto;
+
+import jakarta.validation.Valid;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Users targeted by a bulk operation: either an explicit id list or a filter, not both.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class BulkUserSelection {
+
+    private List<UUID> ids;
+
+    @Valid
+    private BulkUserFilter filter;
+}
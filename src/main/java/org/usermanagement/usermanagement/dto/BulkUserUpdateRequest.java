@@ -0,0 +1,26 @@
+package org.usermanagement.usermanagement.dto;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Fields applied to every selected user; null fields are left unchanged. Emails are unique and
+ * therefore cannot be set in bulk.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class BulkUserUpdateRequest extends BulkUserSelection {
+
+    @Size(min = 1, max = 100, message = "First name must be between 1 and 100 characters")
+    private String firstName;
+
+    @Size(min = 1, message = "Last name must not be blank.")
+    private String lastName;
+
+    @Pattern(regexp = "^\\+?\\d{10,15}$", message = "Phone number must be valid")
+    private String phoneNumber;
+}
@@ -0,0 +1,28 @@
+package org.usermanagement.usermanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.usermanagement.usermanagement.enums.UserEventType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserEvent {
+
+    private Long sequence;
+    private UserEventType eventType;
+    private UUID userId;
+
+    // the user as it was after the change, already serialized by the outbox writer
+    @JsonRawValue
+    private String payload;
+
+    private LocalDateTime createdAt;
+}
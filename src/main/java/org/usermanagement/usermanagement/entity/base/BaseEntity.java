@@ -1,17 +1,18 @@
 package org.usermanagement.usermanagement.entity.base;
 
-import com.github.f4b6a3.uuid.UuidCreator;
 import jakarta.persistence.Column;
 import jakarta.persistence.EntityListeners;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.MappedSuperclass;
-import jakarta.persistence.PrePersist;
+import jakarta.persistence.Version;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -27,20 +28,15 @@ import java.util.UUID;
 @EntityListeners(AuditingEntityListener.class)
 public abstract class BaseEntity {
 
+    /**
+     * Stored as BINARY(16) in UUID byte order; see {@link UuidV7Generator} for why the layout matters.
+     */
     @Id
-    @GeneratedValue
+    @UuidV7
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(columnDefinition = "BINARY(16)", updatable = false, nullable = false)
     private UUID id;
 
-
-    @PrePersist
-    public void generateUUID()
-    {
-        if (id == null)
-        {
-            id = UuidCreator.getTimeOrderedEpoch();
-        }
-    }
-
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -53,4 +49,13 @@ public abstract class BaseEntity {
     @Builder.Default
     private boolean isActive = true;
 
+    /**
+     * Optimistic lock version, also the source of the ETag of a resource. Left null on new entities
+     * so Spring Data still treats them as new.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
 }
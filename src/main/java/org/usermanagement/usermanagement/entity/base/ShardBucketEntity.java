@@ -0,0 +1,31 @@
+package org.usermanagement.usermanagement.entity.base;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Assignment of an id hash bucket to a shard, stored on the first shard. Rows are read and written by
+ * {@code ShardMap}; the entity only describes the table.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "shard_bucket")
+public class ShardBucketEntity {
+
+    @Id
+    private Integer bucket;
+
+    @Column(nullable = false)
+    private Integer shard;
+
+    // writes to the bucket are rejected while its rows are copied to another shard
+    @Column(nullable = false)
+    private boolean moving;
+}
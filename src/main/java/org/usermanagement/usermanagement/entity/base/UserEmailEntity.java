@@ -0,0 +1,41 @@
+package org.usermanagement.usermanagement.entity.base;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Email of a user on any shard, stored on the first shard so emails stay unique across shards. Rows
+ * are written by {@code EmailDirectory}; the entity only describes the table.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "user_email", indexes = @Index(name = "idx_user_email_claimed_at", columnList = "claimed_at"))
+public class UserEmailEntity {
+
+    // lower case
+    @Id
+    private String email;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(columnDefinition = "BINARY(16)", nullable = false)
+    private UUID userId;
+
+    /**
+     * When the email was claimed, until a sweep found the user stored; a claim that stays unconfirmed
+     * past the grace period belongs to a user that was never written.
+     */
+    private LocalDateTime claimedAt;
+}
@@ -10,7 +10,6 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
-import org.hibernate.annotations.DynamicInsert;
 import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.SQLRestriction;
@@ -19,11 +18,10 @@ import org.hibernate.annotations.SQLRestriction;
 @Getter
 @Setter
 @DynamicUpdate
-@DynamicInsert
 @SuperBuilder
 @NoArgsConstructor
 @SQLRestriction("is_active=true")
-@SQLDelete(sql="UPDATE user_entity SET is_active = false WHERE id=?")
+@SQLDelete(sql="UPDATE user_entity SET is_active = false, version = version + 1 WHERE id=? AND version=?")
 public class UserEntity extends BaseEntity {
 
     @NotBlank(message = "First name must not be blank.")
@@ -0,0 +1,48 @@
+package org.usermanagement.usermanagement.entity.base;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * The user_entity row as read and written by the reactive stack over R2DBC. Hibernate owns the
+ * schema through {@link UserEntity}; this mapping follows it column by column. Soft deletion is not
+ * applied implicitly here, so queries filter on {@code active} themselves.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Table("user_entity")
+public class UserRow {
+
+    @Id
+    private UUID id;
+
+    private String firstName;
+
+    private String lastName;
+
+    private String email;
+
+    private String phoneNumber;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    @Column("is_active")
+    private boolean active;
+
+    /**
+     * Null on new rows so Spring Data inserts them; updates check and increment it like Hibernate does.
+     */
+    @Version
+    private Long version;
+}
@@ -0,0 +1,33 @@
+package org.usermanagement.usermanagement.entity.base;
+
+import com.github.f4b6a3.uuid.UuidCreator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.util.EnumSet;
+
+/**
+ * UUIDv7 starts with a 48-bit millisecond timestamp, so its big-endian bytes sort by creation time.
+ * Stored as BINARY(16), new rows append to the right edge of the clustered index instead of
+ * splitting pages at random like UUIDv4 keys. An id assigned before persisting is kept, so sharding
+ * can pick the shard of a new user before it is written.
+ */
+public class UuidV7Generator implements BeforeExecutionGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return currentValue != null ? currentValue : UuidCreator.getTimeOrderedEpoch();
+    }
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
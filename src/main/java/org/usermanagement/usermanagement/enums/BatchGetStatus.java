@@ -0,0 +1,6 @@
+package org.usermanagement.usermanagement.enums;
+
+public enum BatchGetStatus {
+    FOUND,
+    NOT_FOUND
+}
@@ -0,0 +1,8 @@
+package org.usermanagement.usermanagement.enums;
+
+public enum BulkRowStatus {
+    CREATED,
+    DUPLICATE,
+    INVALID,
+    FAILED
+}
@@ -10,9 +10,15 @@ public enum ErrorCode {
 
     RESOURCE_NOT_FOUND(404, "The requested resource was not found."),
     DUPLICATE_ENTITY(409, "Entity already exists."),
+    CONCURRENT_MODIFICATION(409, "The resource was modified concurrently, reload it and retry."),
+    PRECONDITION_FAILED(412, "The resource does not match the given version."),
+    IDEMPOTENCY_KEY_IN_PROGRESS(409, "A request with this Idempotency-Key is still being processed."),
+    IDEMPOTENCY_KEY_REUSED(422, "The Idempotency-Key was already used for a different request."),
     INVALID_CREDENTIALS(401, "Invalid username or password."),
     BAD_REQUEST(400, "Invalid request parameters."),
     INTERNAL_SERVER_ERROR(500, "Something went wrong."),
+    SERVICE_UNAVAILABLE(503, "The service is busy, please retry later."),
+    TOO_MANY_REQUESTS(429, "Too many requests, please retry later."),
     OAUTH_ACCOUNT_LINKED_EXCEPTION(401, "This account is already linked to oauth provider so this service is not available."),
     UNAUTHORIZED(403, "Access denied."),
     SAME_USER_MESSAGE_SEND(403, "You are not allowed to send a message to the same user."),
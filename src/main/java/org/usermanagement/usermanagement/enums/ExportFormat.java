@@ -0,0 +1,26 @@
+package org.usermanagement.usermanagement.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.usermanagement.usermanagement.exception.BadRequestException;
+
+import java.util.Locale;
+
+@Getter
+@AllArgsConstructor
+public enum ExportFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    public static ExportFormat from(String format) {
+        try {
+            return valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Unsupported export format: " + format);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package org.usermanagement.usermanagement.enums;
+
+public enum UserEventType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
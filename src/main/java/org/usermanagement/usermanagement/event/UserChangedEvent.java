@@ -0,0 +1,17 @@
+package org.usermanagement.usermanagement.event;
+
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.enums.UserEventType;
+
+import java.util.List;
+
+/**
+ * Published by the user service inside the transaction that changed the users. Listeners that need
+ * the change to be durable should use {@code @TransactionalEventListener}.
+ */
+public record UserChangedEvent(UserEventType type, List<UserDto> users) {
+
+    public static UserChangedEvent of(UserEventType type, UserDto user) {
+        return new UserChangedEvent(type, List.of(user));
+    }
+}
@@ -0,0 +1,14 @@
+package org.usermanagement.usermanagement.exception;
+
+import org.usermanagement.usermanagement.enums.ErrorCode;
+
+public class BadRequestException extends BaseException {
+
+    public BadRequestException(String message) {
+        super(ErrorCode.BAD_REQUEST, message);
+    }
+
+    public BadRequestException() {
+        super(ErrorCode.BAD_REQUEST);
+    }
+}
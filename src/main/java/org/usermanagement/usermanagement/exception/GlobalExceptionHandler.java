@@ -1,11 +1,15 @@
 package org.usermanagement.usermanagement.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import org.usermanagement.usermanagement.dto.ErrorResponse;
 import org.usermanagement.usermanagement.dto.GlobalApiResponse;
 import org.usermanagement.usermanagement.enums.ErrorCode;
@@ -23,11 +27,37 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(ex.getErrorCode().getHttpStatus()).body(GlobalApiResponse.error(errorResponse, ex.getMessage()));
     }
 
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<GlobalApiResponse<ErrorResponse>> handleRateLimitExceeded(RateLimitExceededException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getErrorCode(), ex.getMessage());
+        // Retry-After takes whole seconds; round up so clients never come back before a permit is due
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(ex.getErrorCode().getHttpStatus())
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(GlobalApiResponse.error(errorResponse, ex.getMessage()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<GlobalApiResponse<ErrorResponse>> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        ErrorCode errorCode = ErrorCode.CONCURRENT_MODIFICATION;
+        ErrorResponse errorResponse = new ErrorResponse(errorCode, errorCode.getMessage());
+        return ResponseEntity.status(errorCode.getHttpStatus()).body(GlobalApiResponse.error(errorResponse, errorCode.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<GlobalApiResponse<Map<String, String>>> handleValidationExceptions(MethodArgumentNotValidException ex) {
+        return validationFailed(ex.getBindingResult());
+    }
+
+    // the WebFlux counterpart of MethodArgumentNotValidException, raised by the reactive controller
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<GlobalApiResponse<Map<String, String>>> handleWebExchangeBindException(WebExchangeBindException ex) {
+        return validationFailed(ex.getBindingResult());
+    }
 
+    private ResponseEntity<GlobalApiResponse<Map<String, String>>> validationFailed(BindingResult bindingResult) {
         Map<String, String> errors = new HashMap<>();
-        ex.getBindingResult().getAllErrors().forEach((error) -> {
+        bindingResult.getAllErrors().forEach((error) -> {
             String fieldName = error instanceof FieldError ? ((FieldError) error).getField() : error.getObjectName();
 
             if (fieldName.startsWith("data.")) {
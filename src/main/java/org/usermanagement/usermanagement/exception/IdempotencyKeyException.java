@@ -0,0 +1,14 @@
+package org.usermanagement.usermanagement.exception;
+
+import org.usermanagement.usermanagement.enums.ErrorCode;
+
+public class IdempotencyKeyException extends BaseException {
+
+    public IdempotencyKeyException(ErrorCode errorCode, String message) {
+        super(errorCode, message);
+    }
+
+    public IdempotencyKeyException(ErrorCode errorCode) {
+        super(errorCode);
+    }
+}
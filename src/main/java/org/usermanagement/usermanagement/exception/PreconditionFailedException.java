@@ -0,0 +1,14 @@
+package org.usermanagement.usermanagement.exception;
+
+import org.usermanagement.usermanagement.enums.ErrorCode;
+
+public class PreconditionFailedException extends BaseException {
+
+    public PreconditionFailedException(String message) {
+        super(ErrorCode.PRECONDITION_FAILED, message);
+    }
+
+    public PreconditionFailedException() {
+        super(ErrorCode.PRECONDITION_FAILED);
+    }
+}
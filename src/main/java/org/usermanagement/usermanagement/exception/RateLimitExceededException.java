@@ -0,0 +1,20 @@
+package org.usermanagement.usermanagement.exception;
+
+import lombok.Getter;
+import org.usermanagement.usermanagement.enums.ErrorCode;
+
+import java.time.Duration;
+
+/**
+ * A request shed before reaching the controller; {@link #retryAfter} becomes the Retry-After header.
+ */
+@Getter
+public class RateLimitExceededException extends BaseException {
+
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(ErrorCode errorCode, String message, Duration retryAfter) {
+        super(errorCode, message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,14 @@
+package org.usermanagement.usermanagement.exception;
+
+import org.usermanagement.usermanagement.enums.ErrorCode;
+
+public class ServiceUnavailableException extends BaseException {
+
+    public ServiceUnavailableException(String message) {
+        super(ErrorCode.SERVICE_UNAVAILABLE, message);
+    }
+
+    public ServiceUnavailableException() {
+        super(ErrorCode.SERVICE_UNAVAILABLE);
+    }
+}
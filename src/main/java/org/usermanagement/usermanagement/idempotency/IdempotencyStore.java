@@ -0,0 +1,211 @@
+package org.usermanagement.usermanagement.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
+import org.usermanagement.usermanagement.dto.GlobalApiResponse;
+import org.usermanagement.usermanagement.enums.ErrorCode;
+import org.usermanagement.usermanagement.exception.BadRequestException;
+import org.usermanagement.usermanagement.exception.IdempotencyKeyException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per Idempotency-Key and replays its response to retries. Completed
+ * responses live in a bounded Caffeine cache for the configured TTL, so a retry is answered without
+ * touching the database. Duplicates arriving while the first request is still running wait for it
+ * and receive its response, or its exception, instead of running in parallel. With JDBC backing
+ * enabled the key is also claimed in the idempotency_key table, which extends both guarantees to
+ * retries that land on another instance. Only successful responses are stored; a failed request
+ * releases its key. Keys are scoped to the client that sent them, so one client cannot replay, or
+ * block, another client's request by guessing its key.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final UserManagementProperties.Idempotency config;
+    private final ObjectMapper objectMapper;
+    private final JdbcIdempotencyRepository jdbcRepository;
+    private final Cache<String, Completed> completed;
+    private final Map<String, CompletableFuture<Completed>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter replayed;
+
+    public IdempotencyStore(UserManagementProperties properties, ObjectMapper objectMapper,
+                            ObjectProvider<JdbcIdempotencyRepository> jdbcRepository, MeterRegistry meterRegistry) {
+        this.config = properties.getIdempotency();
+        this.objectMapper = objectMapper;
+        this.jdbcRepository = jdbcRepository.getIfAvailable();
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getTtl())
+                .build();
+        this.executed = Counter.builder("user.idempotency.requests").tag("outcome", "executed").register(meterRegistry);
+        this.replayed = Counter.builder("user.idempotency.requests").tag("outcome", "replayed").register(meterRegistry);
+    }
+
+    /**
+     * @param operation   namespace of the key, so one key cannot be replayed across endpoints
+     * @param client      the caller as resolved by ClientKeys, namespacing the key per client
+     * @param request     request payload; a retry whose payload differs is rejected with 422
+     * @param dataType    type of the response data, needed to read responses back from the database
+     */
+    public <T> IdempotentResponse<T> execute(String operation, String client, String idempotencyKey, Object request,
+                                             Class<T> dataType, Supplier<GlobalApiResponse<T>> action) {
+        String key = operation + ':' + clientDigest(client) + ':' + validate(idempotencyKey);
+        String fingerprint = fingerprint(request);
+
+        Completed done = completed.getIfPresent(key);
+        if (done != null) {
+            return replay(done, fingerprint);
+        }
+        CompletableFuture<Completed> owned = new CompletableFuture<>();
+        CompletableFuture<Completed> running = inFlight.putIfAbsent(key, owned);
+        if (running != null) {
+            return replay(await(running), fingerprint);
+        }
+        try {
+            // the previous owner may have finished between the cache lookup and putIfAbsent
+            done = completed.getIfPresent(key);
+            if (done == null && jdbcRepository != null) {
+                done = load(key, dataType);
+            }
+            boolean ran = done == null;
+            if (ran) {
+                done = new Completed(fingerprint, run(key, fingerprint, action));
+            }
+            completed.put(key, done);
+            owned.complete(done);
+            if (!ran) {
+                return replay(done, fingerprint);
+            }
+            executed.increment();
+            return new IdempotentResponse<>(cast(done.response()), false);
+        } catch (RuntimeException ex) {
+            owned.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, owned);
+        }
+    }
+
+    private <T> GlobalApiResponse<T> run(String key, String fingerprint, Supplier<GlobalApiResponse<T>> action) {
+        if (jdbcRepository == null) {
+            return action.get();
+        }
+        if (!jdbcRepository.claim(key, fingerprint, LocalDateTime.now().plus(config.getPendingTimeout()))) {
+            throw new IdempotencyKeyException(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+        }
+        GlobalApiResponse<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException ex) {
+            jdbcRepository.release(key);
+            throw ex;
+        }
+        try {
+            jdbcRepository.complete(key, objectMapper.writeValueAsString(response), LocalDateTime.now().plus(config.getTtl()));
+        } catch (JsonProcessingException | RuntimeException ex) {
+            // the change is committed and this instance still replays it; other instances see the
+            // pending claim until it expires
+            log.warn("Could not store the response for idempotency key {}", key, ex);
+        }
+        return response;
+    }
+
+    private Completed load(String key, Class<?> dataType) {
+        JdbcIdempotencyRepository.StoredKey stored = jdbcRepository.find(key).orElse(null);
+        if (stored == null) {
+            return null;
+        }
+        if (stored.response() == null) {
+            throw new IdempotencyKeyException(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+        }
+        JavaType type = objectMapper.getTypeFactory().constructParametricType(GlobalApiResponse.class, dataType);
+        try {
+            return new Completed(stored.fingerprint(), objectMapper.readValue(stored.response(), type));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not read the stored response for idempotency key " + key, ex);
+        }
+    }
+
+    private Completed await(CompletableFuture<Completed> running) {
+        try {
+            return running.get(config.getMaxWait().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new IdempotencyKeyException(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyException(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+        }
+    }
+
+    private <T> IdempotentResponse<T> replay(Completed done, String fingerprint) {
+        if (!done.fingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyException(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+        }
+        replayed.increment();
+        return new IdempotentResponse<>(cast(done.response()), true);
+    }
+
+    private static String validate(String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        return idempotencyKey;
+    }
+
+    // fixed length, so the scoped key still fits the idempotency_key column next to a 255 character key
+    private static String clientDigest(String client) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(client.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Could not digest the client", ex);
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Could not fingerprint the request", ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> GlobalApiResponse<T> cast(GlobalApiResponse<?> response) {
+        return (GlobalApiResponse<T>) response;
+    }
+
+    private record Completed(String fingerprint, GlobalApiResponse<?> response) {
+    }
+}
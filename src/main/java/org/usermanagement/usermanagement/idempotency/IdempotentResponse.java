@@ -0,0 +1,9 @@
+package org.usermanagement.usermanagement.idempotency;
+
+import org.usermanagement.usermanagement.dto.GlobalApiResponse;
+
+/**
+ * @param replayed true when the body is the stored response of an earlier request with the same key
+ */
+public record IdempotentResponse<T>(GlobalApiResponse<T> body, boolean replayed) {
+}
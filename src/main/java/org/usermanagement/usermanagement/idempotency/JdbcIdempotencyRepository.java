@@ -0,0 +1,79 @@
+package org.usermanagement.usermanagement.idempotency;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Shares Idempotency-Keys between instances through the idempotency_key table. The primary key
+ * decides which instance runs a request; every statement autocommits so a claim is visible to the
+ * other instances before the request itself starts.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "user-management.idempotency", name = "jdbc-enabled", havingValue = "true")
+public class JdbcIdempotencyRepository {
+
+    private static final String FIND = "SELECT fingerprint, response FROM idempotency_key"
+            + " WHERE idempotency_key = ? AND expires_at > ?";
+    private static final String DELETE_EXPIRED = "DELETE FROM idempotency_key WHERE idempotency_key = ? AND expires_at <= ?";
+    private static final String CLAIM = "INSERT INTO idempotency_key (idempotency_key, fingerprint, created_at, expires_at)"
+            + " VALUES (?, ?, ?, ?)";
+    private static final String COMPLETE = "UPDATE idempotency_key SET response = ?, expires_at = ? WHERE idempotency_key = ?";
+    private static final String RELEASE = "DELETE FROM idempotency_key WHERE idempotency_key = ? AND response IS NULL";
+    private static final String PURGE = "DELETE FROM idempotency_key WHERE expires_at <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<StoredKey> find(String key) {
+        return jdbcTemplate.query(FIND, (rs, rowNum) -> new StoredKey(rs.getString(1), rs.getString(2)),
+                key, LocalDateTime.now()).stream().findFirst();
+    }
+
+    /**
+     * Inserts a pending row for the key.
+     *
+     * @return false if another instance holds an unexpired claim or response for the key
+     */
+    public boolean claim(String key, String fingerprint, LocalDateTime expiresAt) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(DELETE_EXPIRED, key, now);
+        try {
+            jdbcTemplate.update(CLAIM, key, fingerprint, now, expiresAt);
+            return true;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+    }
+
+    public void complete(String key, String response, LocalDateTime expiresAt) {
+        jdbcTemplate.update(COMPLETE, response, expiresAt, key);
+    }
+
+    // a failed request gives its key back, so the client's retry runs it again
+    public void release(String key) {
+        jdbcTemplate.update(RELEASE, key);
+    }
+
+    @Scheduled(fixedDelayString = "${user-management.idempotency.purge-interval:1h}")
+    public void purge() {
+        int purged = jdbcTemplate.update(PURGE, LocalDateTime.now());
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    /**
+     * @param response the serialized response, or null while the request is still running
+     */
+    public record StoredKey(String fingerprint, String response) {
+    }
+}
@@ -0,0 +1,127 @@
+package org.usermanagement.usermanagement.index;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
+import org.usermanagement.usermanagement.repository.UserRepository;
+import org.usermanagement.usermanagement.shard.UserShards;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filter over every stored email. A negative answer is definite, so the duplicate
+ * check on create can skip its database round trip; a positive answer still goes to the database.
+ * Removed or changed emails stay in the filter and only cost an extra lookup until the next rebuild.
+ * The unique constraint on user_entity.email remains the final arbiter.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailIndex implements MeterBinder {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final UserManagementProperties properties;
+    private final UserShards userShards;
+
+    private final LongAdder skippedLookups = new LongAdder();
+    private final LongAdder databaseLookups = new LongAdder();
+
+    private volatile BloomFilter<CharSequence> filter;
+    private volatile BloomFilter<CharSequence> building;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (properties.getEmailIndex().isEnabled()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Streams the email column into a fresh filter and swaps it in. Emails added while the rebuild
+     * runs are written to both filters so none are lost.
+     */
+    public synchronized void rebuild() {
+        UserManagementProperties.EmailIndex config = properties.getEmailIndex();
+        BloomFilter<CharSequence> fresh = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+                config.getExpectedInsertions(), config.getFalsePositiveRate());
+        building = fresh;
+        try {
+            long start = System.nanoTime();
+            LongAdder count = new LongAdder();
+            userShards.forEachShard(shard -> count.add(transactionTemplate.execute(status -> {
+                try (Stream<String> emails = userRepository.streamAllEmails()) {
+                    return emails.peek(email -> fresh.put(normalize(email))).count();
+                }
+            })));
+            filter = fresh;
+            log.info("Email index built with {} emails in {} ms (expected fpp {})",
+                    count.sum(), (System.nanoTime() - start) / 1_000_000, fresh.expectedFpp());
+        } finally {
+            building = null;
+        }
+    }
+
+    /**
+     * @return false only when the email is certainly not stored
+     */
+    public boolean mightContain(String email) {
+        BloomFilter<CharSequence> current = filter;
+        if (current == null || email == null || current.mightContain(normalize(email))) {
+            databaseLookups.increment();
+            return true;
+        }
+        skippedLookups.increment();
+        return false;
+    }
+
+    public void add(String email) {
+        if (email == null) {
+            return;
+        }
+        String normalized = normalize(email);
+        BloomFilter<CharSequence> current = filter;
+        BloomFilter<CharSequence> next = building;
+        if (current != null) {
+            current.put(normalized);
+            if (current.approximateElementCount() > properties.getEmailIndex().getExpectedInsertions()) {
+                log.warn("Email index holds more emails than expected, the false positive rate is degrading");
+            }
+        }
+        if (next != null) {
+            next.put(normalized);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("user.email.index.lookups", skippedLookups, LongAdder::sum)
+                .tag("result", "skipped")
+                .description("Duplicate email checks answered without a database round trip")
+                .register(registry);
+        FunctionCounter.builder("user.email.index.lookups", databaseLookups, LongAdder::sum)
+                .tag("result", "database")
+                .description("Duplicate email checks that still had to query the database")
+                .register(registry);
+        Gauge.builder("user.email.index.expected.fpp", this, index -> index.filter == null ? 1.0 : index.filter.expectedFpp())
+                .register(registry);
+    }
+
+    // MySQL's default collation compares emails case-insensitively
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,507 @@
+package org.usermanagement.usermanagement.index;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.usermanagement.usermanagement.cache.InvalidationBus;
+import org.usermanagement.usermanagement.cache.LocalInvalidationBus;
+import org.usermanagement.usermanagement.cache.UserInvalidation;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.enums.UserEventType;
+import org.usermanagement.usermanagement.event.UserChangedEvent;
+import org.usermanagement.usermanagement.exception.ServiceUnavailableException;
+import org.usermanagement.usermanagement.repository.UserRepository;
+import org.usermanagement.usermanagement.shard.ShardContext;
+import org.usermanagement.usermanagement.shard.UserShards;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over user names, emails and phone numbers for type-ahead search. Terms
+ * are kept sorted for prefix lookups and split into trigrams for typo-tolerant matching. Documents
+ * are append-only: an update tombstones the old document and adds a new one, and the next rebuild
+ * drops the tombstones. A rebuild runs once tombstones exceed a share of the live documents, and at
+ * the latest after the refresh interval.
+ * <p>
+ * The index is per instance and fed by the changes committed here. With a shared invalidation bus
+ * (outbox or kafka), updates and deletes made on other instances reload the user; users created on
+ * other instances only appear with the next rebuild.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserSearchIndex implements MeterBinder {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final float EXACT_SCORE = 3f;
+    private static final float PREFIX_SCORE = 2f;
+    private static final float FUZZY_SCORE = 1f;
+    private static final float MIN_TRIGRAM_SIMILARITY = 0.3f;
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final UserManagementProperties properties;
+    private final UserShards userShards;
+    private final InvalidationBus invalidationBus;
+
+    private volatile Segment segment;
+    private volatile long builtAt;
+    private volatile Segment building;
+    private volatile Timer queryTimer;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (properties.getSearch().isEnabled()) {
+            // the local bus only repeats what onUserChanged already applied
+            if (!(invalidationBus instanceof LocalInvalidationBus)) {
+                invalidationBus.subscribe(this::onInvalidation);
+            }
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuilds when tombstones outgrow their share of the documents, or when the segment is older
+     * than the refresh interval, which also picks up users created on other instances.
+     */
+    @Scheduled(fixedDelayString = "${user-management.search.compaction-check-interval:1m}")
+    public void compact() {
+        Segment current = segment;
+        if (!properties.getSearch().isEnabled() || current == null) {
+            return;
+        }
+        UserManagementProperties.Search config = properties.getSearch();
+        int tombstones = current.tombstoneCount();
+        boolean bloated = tombstones > 0 && tombstones > config.getMaxTombstoneRatio() * current.documentCount();
+        boolean expired = Duration.ofNanos(System.nanoTime() - builtAt).compareTo(config.getRefreshInterval()) >= 0;
+        if (bloated || expired) {
+            log.info("Rebuilding the search index ({} tombstones, {} documents)", tombstones, current.documentCount());
+            rebuild();
+        }
+    }
+
+    /**
+     * Streams every active user into a fresh segment and swaps it in. Changes committed while the
+     * rebuild runs are applied to both segments; versions decide which copy of a user wins, also
+     * for users read from two shards while their bucket moves.
+     */
+    public synchronized void rebuild() {
+        Segment fresh = new Segment();
+        building = fresh;
+        try {
+            long start = System.nanoTime();
+            userShards.forEachShard(shard -> transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<UserDto> users = userRepository.streamAllDtos()) {
+                    users.forEach(fresh::upsert);
+                }
+            }));
+            segment = fresh;
+            builtAt = System.nanoTime();
+            log.info("Search index built with {} users and {} terms in {} ms",
+                    fresh.documentCount(), fresh.termCount(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            building = null;
+        }
+    }
+
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        apply(segment, event);
+        apply(building, event);
+    }
+
+    /**
+     * Changes of this instance are already indexed at that version; for changes made elsewhere the
+     * user is read again, since invalidations only carry the id and version.
+     */
+    void onInvalidation(UserInvalidation invalidation) {
+        Segment current = segment;
+        if (current == null || current.indexedVersion(invalidation.userId()) >= invalidation.version()) {
+            return;
+        }
+        UserDto user = null;
+        if (invalidation.version() != UserInvalidation.DELETED) {
+            user = transactionTemplate.execute(status -> {
+                try (ShardContext.Scope shard = userShards.route(invalidation.userId())) {
+                    return userRepository.findDtoById(invalidation.userId()).orElse(null);
+                }
+            });
+        }
+        UserChangedEvent event;
+        if (user != null) {
+            event = UserChangedEvent.of(UserEventType.UPDATED, user);
+        } else {
+            UserDto deleted = new UserDto();
+            deleted.setId(invalidation.userId());
+            deleted.setVersion(invalidation.version());
+            event = UserChangedEvent.of(UserEventType.DELETED, deleted);
+        }
+        apply(segment, event);
+        apply(building, event);
+    }
+
+    /**
+     * Every query token must match a term exactly, as a prefix or within a small edit distance.
+     * Results are ranked by the summed match score, best first.
+     */
+    public Page<UserDto> search(String query, Pageable pageable) {
+        Segment current = segment;
+        if (current == null) {
+            throw new ServiceUnavailableException("Search index is not available yet");
+        }
+        long start = System.nanoTime();
+        try {
+            return current.search(tokens(query), pageable, properties.getSearch().getMaxExpansions());
+        } finally {
+            Timer timer = queryTimer;
+            if (timer != null) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("user.search.index.documents", this, index -> index.segment == null ? 0 : index.segment.documentCount())
+                .description("Users searchable in the index")
+                .register(registry);
+        Gauge.builder("user.search.index.terms", this, index -> index.segment == null ? 0 : index.segment.termCount())
+                .description("Distinct terms in the index")
+                .register(registry);
+        Gauge.builder("user.search.index.tombstones", this, index -> index.segment == null ? 0 : index.segment.tombstoneCount())
+                .description("Replaced or deleted documents still held until the next rebuild")
+                .register(registry);
+        queryTimer = Timer.builder("user.search.query")
+                .description("Time to answer a search query from the index")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static void apply(Segment target, UserChangedEvent event) {
+        if (target == null) {
+            return;
+        }
+        for (UserDto user : event.users()) {
+            if (event.type() == UserEventType.DELETED) {
+                target.remove(user);
+            } else {
+                target.upsert(user);
+            }
+        }
+    }
+
+    static List<String> tokens(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : NON_WORD.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return List.copyOf(tokens);
+    }
+
+    private static long version(UserDto user) {
+        return user.getVersion() == null ? 0 : user.getVersion();
+    }
+
+    private static final class Segment {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final List<UserDto> documents = new ArrayList<>();
+        private final Map<UUID, Integer> documentIds = new HashMap<>();
+        private final Map<UUID, Long> deletedVersions = new HashMap<>();
+        private final TreeMap<String, Term> terms = new TreeMap<>();
+        private final List<String> termsByOrdinal = new ArrayList<>();
+        private final Map<String, IntList> termsByTrigram = new HashMap<>();
+
+        void upsert(UserDto user) {
+            lock.writeLock().lock();
+            try {
+                Integer existing = documentIds.get(user.getId());
+                if (existing != null && version(documents.get(existing)) >= version(user)) {
+                    return;
+                }
+                Long deletedVersion = deletedVersions.get(user.getId());
+                if (deletedVersion != null && deletedVersion >= version(user)) {
+                    return;
+                }
+                if (existing != null) {
+                    documents.set(existing, null);
+                }
+                int documentId = documents.size();
+                documents.add(user);
+                documentIds.put(user.getId(), documentId);
+                Set<String> userTerms = new LinkedHashSet<>();
+                userTerms.addAll(tokens(user.getFirstName()));
+                userTerms.addAll(tokens(user.getLastName()));
+                userTerms.addAll(tokens(user.getEmail()));
+                userTerms.addAll(tokens(user.getPhoneNumber()));
+                for (String value : userTerms) {
+                    terms.computeIfAbsent(value, this::newTerm).documents.add(documentId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(UserDto user) {
+            lock.writeLock().lock();
+            try {
+                deletedVersions.merge(user.getId(), version(user), Math::max);
+                Integer existing = documentIds.get(user.getId());
+                if (existing != null && version(documents.get(existing)) <= version(user)) {
+                    documents.set(existing, null);
+                    documentIds.remove(user.getId());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        Page<UserDto> search(List<String> queryTokens, Pageable pageable, int maxExpansions) {
+            if (queryTokens.isEmpty()) {
+                return Page.empty(pageable);
+            }
+            lock.readLock().lock();
+            try {
+                Map<Integer, Float> scores = null;
+                for (String token : queryTokens) {
+                    Map<Integer, Float> tokenScores = match(token, maxExpansions);
+                    if (scores == null) {
+                        scores = tokenScores;
+                    } else {
+                        Map<Integer, Float> previous = scores;
+                        tokenScores.keySet().retainAll(previous.keySet());
+                        tokenScores.replaceAll((documentId, score) -> score + previous.get(documentId));
+                        scores = tokenScores;
+                    }
+                    if (scores.isEmpty()) {
+                        return Page.empty(pageable);
+                    }
+                }
+
+                List<Map.Entry<Integer, Float>> ranked = new ArrayList<>(scores.entrySet());
+                ranked.sort(Map.Entry.<Integer, Float>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()));
+                int from = (int) Math.min(pageable.getOffset(), ranked.size());
+                int to = Math.min(from + pageable.getPageSize(), ranked.size());
+                List<UserDto> content = new ArrayList<>(to - from);
+                for (Map.Entry<Integer, Float> entry : ranked.subList(from, to)) {
+                    content.add(documents.get(entry.getKey()));
+                }
+                return new PageImpl<>(content, pageable, ranked.size());
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Scores the live documents matching one token; the best match per document counts.
+         */
+        private Map<Integer, Float> match(String token, int maxExpansions) {
+            Map<Integer, Float> scores = new HashMap<>();
+            int expansions = 0;
+            for (Map.Entry<String, Term> entry : terms.tailMap(token, true).entrySet()) {
+                String value = entry.getKey();
+                if (!value.startsWith(token) || expansions++ == maxExpansions) {
+                    break;
+                }
+                float score = value.length() == token.length()
+                        ? EXACT_SCORE
+                        : PREFIX_SCORE * token.length() / value.length();
+                collect(entry.getValue().documents, score, scores);
+            }
+            if (token.length() >= MIN_FUZZY_LENGTH) {
+                for (int ordinal : similarTerms(token, maxExpansions)) {
+                    String value = termsByOrdinal.get(ordinal);
+                    if (value.startsWith(token)) {
+                        continue;
+                    }
+                    int distance = Math.min(editDistance(token, value),
+                            editDistance(token, value.substring(0, Math.min(value.length(), token.length()))));
+                    if (distance <= maxEdits(token)) {
+                        collect(terms.get(value).documents, FUZZY_SCORE * (1f - (float) distance / token.length()), scores);
+                    }
+                }
+            }
+            return scores;
+        }
+
+        private void collect(IntList postings, float score, Map<Integer, Float> scores) {
+            for (int i = 0; i < postings.size; i++) {
+                int documentId = postings.values[i];
+                if (documents.get(documentId) != null) {
+                    scores.merge(documentId, score, Math::max);
+                }
+            }
+        }
+
+        /**
+         * Terms sharing enough trigrams with the token, most similar first.
+         */
+        private List<Integer> similarTerms(String token, int limit) {
+            Set<String> grams = trigrams(token);
+            Map<Integer, Integer> shared = new HashMap<>();
+            for (String gram : grams) {
+                IntList ordinals = termsByTrigram.get(gram);
+                if (ordinals != null) {
+                    for (int i = 0; i < ordinals.size; i++) {
+                        shared.merge(ordinals.values[i], 1, Integer::sum);
+                    }
+                }
+            }
+            List<Map.Entry<Integer, Float>> candidates = new ArrayList<>();
+            for (Map.Entry<Integer, Integer> entry : shared.entrySet()) {
+                // a padded term of length n has n trigrams, close enough for the rare repeated gram
+                int termGrams = termsByOrdinal.get(entry.getKey()).length();
+                float similarity = 2f * entry.getValue() / (grams.size() + termGrams);
+                if (similarity >= MIN_TRIGRAM_SIMILARITY) {
+                    candidates.add(Map.entry(entry.getKey(), similarity));
+                }
+            }
+            candidates.sort(Map.Entry.comparingByValue(Comparator.reverseOrder()));
+            return candidates.stream().limit(limit).map(Map.Entry::getKey).toList();
+        }
+
+        private Term newTerm(String value) {
+            int ordinal = termsByOrdinal.size();
+            termsByOrdinal.add(value);
+            for (String gram : trigrams(value)) {
+                termsByTrigram.computeIfAbsent(gram, key -> new IntList()).add(ordinal);
+            }
+            return new Term();
+        }
+
+        int documentCount() {
+            lock.readLock().lock();
+            try {
+                return documentIds.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int termCount() {
+            lock.readLock().lock();
+            try {
+                return terms.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * The highest version seen for the user, live or deleted, or -1 if the index never saw it.
+         */
+        long indexedVersion(UUID userId) {
+            lock.readLock().lock();
+            try {
+                Integer existing = documentIds.get(userId);
+                long live = existing == null ? -1 : version(documents.get(existing));
+                return Math.max(live, deletedVersions.getOrDefault(userId, -1L));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int tombstoneCount() {
+            lock.readLock().lock();
+            try {
+                return documents.size() - documentIds.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private static Set<String> trigrams(String value) {
+        String padded = "$" + value + "$";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static int maxEdits(String token) {
+        return token.length() < 7 ? 1 : 2;
+    }
+
+    /**
+     * Optimal string alignment distance: Levenshtein plus adjacent transpositions, the most common
+     * typing mistake.
+     */
+    private static int editDistance(String a, String b) {
+        int[][] distance = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            distance[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            distance[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                distance[i][j] = Math.min(distance[i - 1][j - 1] + cost, Math.min(distance[i - 1][j], distance[i][j - 1]) + 1);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    distance[i][j] = Math.min(distance[i][j], distance[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return distance[a.length()][b.length()];
+    }
+
+    private static final class Term {
+        private final IntList documents = new IntList();
+    }
+
+    /**
+     * Growable int array; postings are appended in increasing document order.
+     */
+    private static final class IntList {
+        private int[] values = new int[2];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
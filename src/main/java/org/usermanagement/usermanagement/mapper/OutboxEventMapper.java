@@ -0,0 +1,11 @@
+package org.usermanagement.usermanagement.mapper;
+
+import org.mapstruct.Mapper;
+import org.usermanagement.usermanagement.dto.UserEvent;
+import org.usermanagement.usermanagement.entity.base.OutboxEventEntity;
+
+@Mapper(componentModel = "spring")
+public interface OutboxEventMapper {
+
+    UserEvent toUserEvent(OutboxEventEntity event);
+}
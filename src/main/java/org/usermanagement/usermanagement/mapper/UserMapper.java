@@ -2,18 +2,53 @@ package org.usermanagement.usermanagement.mapper;
 
 import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import org.mapstruct.NullValuePropertyMappingStrategy;
 import org.usermanagement.usermanagement.dto.UserDto;
 import org.usermanagement.usermanagement.entity.base.UserEntity;
+import org.usermanagement.usermanagement.entity.base.UserRow;
 
 @Mapper(componentModel = "spring")
 public interface UserMapper {
 
     UserDto toUserDto(UserEntity user);
 
+    // @SQLDelete bumps the version of the row it deactivates, like softDeleteAll, and DELETED events carry that version
+    @Mapping(target = "version", expression = "java(user.getVersion() == null ? null : user.getVersion() + 1)")
+    UserDto toDeletedUserDto(UserEntity user);
+
+    // ids are always generated server side, a client supplied id would turn persist into merge
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     UserEntity toUserEntity(UserDto userDto);
 
     @BeanMapping(nullValuePropertyMappingStrategy= NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     void updateEntityFromDto(UserDto userDto,@MappingTarget UserEntity user);
+
+    // same null handling as updateEntityFromDto, so patches merged in order change what they would have one by one
+    @BeanMapping(nullValuePropertyMappingStrategy= NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    void mergePatch(UserDto patch, @MappingTarget UserDto merged);
+
+    // named apart from toUserDto(UserEntity) so that untyped matchers and method references stay unambiguous
+    UserDto rowToUserDto(UserRow user);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "active", ignore = true)
+    UserRow toUserRow(UserDto userDto);
+
+    @BeanMapping(nullValuePropertyMappingStrategy= NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "active", ignore = true)
+    void updateRowFromDto(UserDto userDto, @MappingTarget UserRow user);
 }
@@ -0,0 +1,56 @@
+package org.usermanagement.usermanagement.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread, so a request can report how
+ * many queries it issued and N+1 patterns show up in the metrics.
+ */
+@Component
+public class QueryCountStatementInspector implements StatementInspector {
+
+    // shared with the threads a request fans out to, hence atomic
+    private static final ThreadLocal<AtomicInteger> COUNT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        AtomicInteger count = COUNT.get();
+        if (count != null) {
+            count.incrementAndGet();
+        }
+        return sql;
+    }
+
+    public void start() {
+        COUNT.set(new AtomicInteger());
+    }
+
+    public int stop() {
+        AtomicInteger count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Lets statements of work that the caller fans out to other threads, such as a query on every
+     * shard, count towards the caller's request.
+     */
+    public static <T> Callable<T> onCallersCount(Callable<T> task) {
+        AtomicInteger count = COUNT.get();
+        if (count == null) {
+            return task;
+        }
+        return () -> {
+            COUNT.set(count);
+            try {
+                return task.call();
+            } finally {
+                COUNT.remove();
+            }
+        };
+    }
+}
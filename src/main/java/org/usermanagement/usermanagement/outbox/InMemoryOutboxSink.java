@@ -0,0 +1,34 @@
+package org.usermanagement.usermanagement.outbox;
+
+import org.usermanagement.usermanagement.dto.UserEvent;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recent events in memory; meant for tests and local development.
+ */
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final int capacity;
+    private final Deque<UserEvent> events = new ArrayDeque<>();
+
+    public InMemoryOutboxSink(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void publish(List<UserEvent> batch) {
+        for (UserEvent event : batch) {
+            if (events.size() == capacity) {
+                events.removeFirst();
+            }
+            events.addLast(event);
+        }
+    }
+
+    public synchronized List<UserEvent> events() {
+        return List.copyOf(events);
+    }
+}
@@ -0,0 +1,57 @@
+package org.usermanagement.usermanagement.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.usermanagement.usermanagement.dto.UserEvent;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sends a batch to Kafka keyed by user id, so all events of one user land on the same partition in
+ * order. The sends are pipelined and the batch only counts as published once every send is acked.
+ */
+public class KafkaOutboxSink implements OutboxSink {
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final String topic;
+    private final Duration sendTimeout;
+
+    public KafkaOutboxSink(KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper, String topic, Duration sendTimeout) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.topic = topic;
+        this.sendTimeout = sendTimeout;
+    }
+
+    @Override
+    public void publish(List<UserEvent> events) {
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[events.size()];
+        for (int i = 0; i < sends.length; i++) {
+            UserEvent event = events.get(i);
+            sends[i] = kafkaTemplate.send(topic, event.getUserId().toString(), toJson(event));
+        }
+        try {
+            CompletableFuture.allOf(sends).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing user events", ex);
+        } catch (ExecutionException | TimeoutException ex) {
+            throw new IllegalStateException("Could not publish user events to " + topic, ex);
+        }
+    }
+
+    private String toJson(UserEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize user event " + event.getSequence(), ex);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.usermanagement.usermanagement.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
+import org.usermanagement.usermanagement.entity.base.OutboxEventEntity;
+import org.usermanagement.usermanagement.mapper.OutboxEventMapper;
+import org.usermanagement.usermanagement.repository.OutboxEventRepository;
+import org.usermanagement.usermanagement.shard.UserShards;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Drains the outbox into the configured sink. Each batch is locked, published and marked in one
+ * transaction, so a failed publish leaves the batch in place for the next run. Delivery is at least
+ * once: a crash between publish and commit sends the batch again. With sharding every shard has its
+ * own outbox, drained one after another.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "user-management.outbox", name = "relay-enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxEventMapper outboxEventMapper;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final UserManagementProperties properties;
+    private final UserShards userShards;
+    private final Counter published;
+    private final Counter failures;
+    private final Timer batchTimer;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxEventMapper outboxEventMapper, OutboxSink sink,
+                       TransactionTemplate transactionTemplate, UserManagementProperties properties, UserShards userShards,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxEventMapper = outboxEventMapper;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.userShards = userShards;
+        this.published = Counter.builder("user.outbox.published").description("User events handed to the sink").register(meterRegistry);
+        this.failures = Counter.builder("user.outbox.failures").description("Outbox batches that failed to publish").register(meterRegistry);
+        this.batchTimer = Timer.builder("user.outbox.batch").description("Time to lock, publish and mark one batch").register(meterRegistry);
+    }
+
+    /**
+     * Keeps draining while batches come back full, so a backlog is worked off without waiting for
+     * the next tick.
+     */
+    @Scheduled(fixedDelayString = "${user-management.outbox.flush-interval:1s}")
+    public void relay() {
+        int batchSize = properties.getOutbox().getBatchSize();
+        userShards.forEachShard(shard -> {
+            try {
+                int count;
+                do {
+                    count = batchTimer.record(() -> transactionTemplate.execute(status -> publishBatch(batchSize)));
+                } while (count == batchSize);
+            } catch (RuntimeException ex) {
+                failures.increment();
+                log.warn("Outbox relay failed on shard {}, the batch will be retried", shard, ex);
+            }
+        });
+    }
+
+    private int publishBatch(int batchSize) {
+        List<OutboxEventEntity> batch = outboxEventRepository.lockUnpublished(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        sink.publish(batch.stream().map(outboxEventMapper::toUserEvent).toList());
+        outboxEventRepository.markPublished(batch.stream().map(OutboxEventEntity::getSequence).toList(), LocalDateTime.now());
+        published.increment(batch.size());
+        return batch.size();
+    }
+
+    /**
+     * Published events stay readable through the change feed until the retention period ends.
+     */
+    @Scheduled(fixedDelayString = "${user-management.outbox.purge-interval:1h}")
+    public void purge() {
+        LocalDateTime before = LocalDateTime.now().minus(properties.getOutbox().getRetention());
+        int batchSize = properties.getOutbox().getBatchSize();
+        userShards.forEachShard(shard -> {
+            int deleted;
+            do {
+                deleted = transactionTemplate.execute(status -> outboxEventRepository.deletePublishedBefore(before, batchSize));
+            } while (deleted == batchSize);
+        });
+    }
+}
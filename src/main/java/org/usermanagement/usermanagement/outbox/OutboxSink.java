@@ -0,0 +1,14 @@
+package org.usermanagement.usermanagement.outbox;
+
+import org.usermanagement.usermanagement.dto.UserEvent;
+
+import java.util.List;
+
+/**
+ * Destination of the outbox relay. A batch counts as delivered once publish returns; throwing
+ * leaves the whole batch in the outbox to be retried, so sinks must tolerate duplicates.
+ */
+public interface OutboxSink {
+
+    void publish(List<UserEvent> events);
+}
@@ -0,0 +1,52 @@
+package org.usermanagement.usermanagement.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.event.UserChangedEvent;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends user changes to the outbox table on the caller's connection, so the event commits or
+ * rolls back together with the change. Plain JDBC is used because Hibernate cannot batch inserts
+ * into an auto-increment table, and a bulk import writes hundreds of events per transaction.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    private static final String INSERT_EVENT =
+            "INSERT INTO outbox_event (user_id, event_type, payload, created_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @EventListener
+    public void write(UserChangedEvent event) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("User changes must be recorded inside the transaction that made them");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>(event.users().size());
+        for (UserDto user : event.users()) {
+            rows.add(new Object[]{user.getId().toString(), event.type().name(), serialize(user), now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_EVENT, rows);
+    }
+
+    private String serialize(UserDto user) {
+        try {
+            return objectMapper.writeValueAsString(user);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize user " + user.getId(), ex);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.usermanagement.usermanagement.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
+import org.usermanagement.usermanagement.enums.ErrorCode;
+import org.usermanagement.usermanagement.exception.RateLimitExceededException;
+import org.usermanagement.usermanagement.util.ClientKeys;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sheds load before a request reaches UserController. Each endpoint, identified by its controller
+ * method name, has a token bucket per client, a token bucket shared by all clients and an adaptive
+ * concurrency limit. Exhausted buckets answer 429, a full concurrency limit answers 503, both with
+ * Retry-After; either way the request never touches the connection pool.
+ */
+@Slf4j
+public class RateLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String STARTED_AT = RateLimitInterceptor.class.getName() + ".startedAt";
+    private static final String LIMITER = RateLimitInterceptor.class.getName() + ".limiter";
+    private static final Duration CONCURRENCY_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final UserManagementProperties.RateLimit config;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, TokenBucket> clientBuckets;
+    private final Map<String, TokenBucket> globalBuckets = new ConcurrentHashMap<>();
+    private final Map<String, GradientLimiter> limiters = new ConcurrentHashMap<>();
+
+    public RateLimitInterceptor(UserManagementProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getRateLimit();
+        this.meterRegistry = meterRegistry;
+        this.clientBuckets = Caffeine.newBuilder()
+                .maximumSize(config.getMaxClients())
+                .expireAfterAccess(config.getClientIdleTimeout())
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // the async dispatch of a streaming response was admitted by the initial dispatch
+        if (!(handler instanceof HandlerMethod method) || request.getAttribute(STARTED_AT) != null) {
+            return true;
+        }
+        String endpoint = method.getMethod().getName();
+        UserManagementProperties.Endpoint limits = config.getEndpoints().getOrDefault(endpoint, config.getDefaults());
+        long now = System.nanoTime();
+
+        // the client bucket goes first so a flooding client cannot drain the shared bucket; a request
+        // rejected by a later check gets its tokens back, only admitted requests spend them
+        TokenBucket clientBucket = null;
+        if (limits.getClientRate() > 0) {
+            String client = ClientKeys.resolve(request, config.getClientHeader(), config.getTrustedProxies());
+            clientBucket = clientBuckets.get(endpoint + ':' + client,
+                    key -> new TokenBucket(limits.getClientRate(), limits.getClientBurst(), now));
+            long wait = clientBucket.tryAcquire(now);
+            if (wait > 0) {
+                throw reject(endpoint, "client", ErrorCode.TOO_MANY_REQUESTS, Duration.ofNanos(wait),
+                        "Rate limit exceeded for this client, please retry later");
+            }
+        }
+        TokenBucket globalBucket = null;
+        if (limits.getGlobalRate() > 0) {
+            globalBucket = globalBuckets.computeIfAbsent(endpoint,
+                    key -> new TokenBucket(limits.getGlobalRate(), limits.getGlobalBurst(), now));
+            long wait = globalBucket.tryAcquire(now);
+            if (wait > 0) {
+                refund(clientBucket);
+                throw reject(endpoint, "global", ErrorCode.TOO_MANY_REQUESTS, Duration.ofNanos(wait),
+                        "Rate limit exceeded, please retry later");
+            }
+        }
+        if (limits.isAdaptive()) {
+            GradientLimiter limiter = limiters.computeIfAbsent(endpoint, key -> newLimiter(key, limits));
+            if (!limiter.tryAcquire()) {
+                refund(clientBucket);
+                refund(globalBucket);
+                throw reject(endpoint, "concurrency", ErrorCode.SERVICE_UNAVAILABLE, CONCURRENCY_RETRY_AFTER,
+                        "Too many concurrent requests, please retry later");
+            }
+            request.setAttribute(LIMITER, limiter);
+        }
+        request.setAttribute(STARTED_AT, now);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        GradientLimiter limiter = (GradientLimiter) request.getAttribute(LIMITER);
+        if (limiter == null) {
+            return;
+        }
+        request.removeAttribute(LIMITER);
+        long rtt = System.nanoTime() - (Long) request.getAttribute(STARTED_AT);
+        limiter.release(rtt, ex == null && response.getStatus() < 500);
+    }
+
+    private static void refund(TokenBucket bucket) {
+        if (bucket != null) {
+            bucket.refund();
+        }
+    }
+
+    private GradientLimiter newLimiter(String endpoint, UserManagementProperties.Endpoint limits) {
+        GradientLimiter limiter = new GradientLimiter(limits.getInitialConcurrency(), limits.getMinConcurrency(),
+                limits.getMaxConcurrency());
+        Gauge.builder("user.ratelimit.concurrency.limit", limiter, GradientLimiter::getLimit)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        Gauge.builder("user.ratelimit.concurrency.inflight", limiter, GradientLimiter::getInflight)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    private RateLimitExceededException reject(String endpoint, String reason, ErrorCode errorCode, Duration retryAfter,
+                                              String message) {
+        Counter.builder("user.ratelimit.rejected")
+                .tag("endpoint", endpoint)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        log.debug("Rejecting {} ({} limit)", endpoint, reason);
+        return new RateLimitExceededException(errorCode, message, retryAfter);
+    }
+}
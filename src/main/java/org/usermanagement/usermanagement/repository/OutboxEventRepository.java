@@ -0,0 +1,39 @@
+package org.usermanagement.usermanagement.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.usermanagement.usermanagement.entity.base.OutboxEventEntity;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, Long> {
+
+    /**
+     * Locks the oldest unpublished events; SKIP LOCKED lets relays on several instances drain
+     * disjoint batches instead of waiting on each other.
+     */
+    @Query(value = "SELECT * FROM outbox_event WHERE published_at IS NULL ORDER BY sequence LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<OutboxEventEntity> lockUnpublished(int limit);
+
+    @Modifying
+    @Query("update OutboxEventEntity e set e.publishedAt = :publishedAt where e.sequence in :sequences")
+    int markPublished(Collection<Long> sequences, LocalDateTime publishedAt);
+
+    // sequences are taken at insert and become visible at commit, so readers must allow for gaps
+    @Query("select e from OutboxEventEntity e where e.sequence > :after order by e.sequence")
+    List<OutboxEventEntity> findChangesAfter(long after, Limit limit);
+
+    @Query("select coalesce(max(e.sequence), 0) from OutboxEventEntity e")
+    long findMaxSequence();
+
+    @Modifying
+    @Query(value = "DELETE FROM outbox_event WHERE published_at < :before LIMIT :limit", nativeQuery = true)
+    int deletePublishedBefore(LocalDateTime before, int limit);
+}
@@ -0,0 +1,36 @@
+package org.usermanagement.usermanagement.repository;
+
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import org.usermanagement.usermanagement.entity.base.UserRow;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Only instantiated with the reactive profile; the default profile excludes the R2DBC auto-configuration.
+ */
+@Repository
+public interface ReactiveUserRepository extends R2dbcRepository<UserRow, UUID> {
+
+    Mono<UserRow> findByIdAndActiveTrue(UUID id);
+
+    // every row, soft-deleted ones included, since the unique constraint on email covers them too
+    Mono<Boolean> existsByEmail(String email);
+
+    // keyset pagination on the time ordered UUIDv7 primary key, as in UserRepository
+    @Query("SELECT * FROM user_entity WHERE is_active = true ORDER BY id LIMIT :limit")
+    Flux<UserRow> findPage(int limit);
+
+    @Query("SELECT * FROM user_entity WHERE is_active = true AND id > :after ORDER BY id LIMIT :limit")
+    Flux<UserRow> findPageAfter(UUID after, int limit);
+
+    /**
+     * Rows are pulled as the subscriber requests them, so a slow client slows the read down instead of
+     * the whole table piling up in memory.
+     */
+    @Query("SELECT * FROM user_entity WHERE is_active = true ORDER BY id")
+    Flux<UserRow> streamAll();
+}
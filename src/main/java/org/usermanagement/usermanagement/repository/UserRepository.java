@@ -1,13 +1,99 @@
 package org.usermanagement.usermanagement.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.usermanagement.usermanagement.dto.UserDto;
 import org.usermanagement.usermanagement.entity.base.UserEntity;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<UserEntity, UUID> {
 
     boolean existsByEmail(String email);
+
+    /**
+     * Read paths select straight into UserDto, so Hibernate skips entity instantiation, the
+     * persistence context snapshot and dirty checking.
+     */
+    String SELECT_USER_DTO = "select new org.usermanagement.usermanagement.dto.UserDto("
+            + "u.id, u.firstName, u.lastName, u.email, u.phoneNumber, u.version) from UserEntity u";
+
+    @Query(SELECT_USER_DTO + " where u.id = :id")
+    Optional<UserDto> findDtoById(UUID id);
+
+    @Query(value = SELECT_USER_DTO, countQuery = "select count(u) from UserEntity u")
+    Page<UserDto> findAllDtos(Pageable pageable);
+
+    // keyset pagination: UUIDv7 ids are time ordered, so seeking on the primary key keeps creation order
+    @Query(SELECT_USER_DTO + " order by u.id asc")
+    List<UserDto> findDtoPage(Limit limit);
+
+    @Query(SELECT_USER_DTO + " where u.id > :id order by u.id asc")
+    List<UserDto> findDtoPageAfter(UUID id, Limit limit);
+
+    @Query(SELECT_USER_DTO + " where u.id in :ids")
+    List<UserDto> findDtosByIdIn(Collection<UUID> ids);
+
+    /**
+     * The users as softDeleteAll is about to leave them, at the version it gives the rows. The rows
+     * are locked, so the version cannot move before the delete runs, and soft deleted rows are no
+     * longer readable afterwards.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new org.usermanagement.usermanagement.dto.UserDto("
+            + "u.id, u.firstName, u.lastName, u.email, u.phoneNumber, u.version + 1) from UserEntity u where u.id in :ids")
+    List<UserDto> lockDeletedDtosByIdIn(Collection<UUID> ids);
+
+    /**
+     * Keyset scan over the ids matching a bulk filter; null criteria are ignored. The email pattern
+     * escapes its wildcards with '!': a backslash would need escaping again inside MySQL literals.
+     */
+    @Query("select u.id from UserEntity u where u.id > :after"
+            + " and (:emailPattern is null or u.email like :emailPattern escape '!')"
+            + " and (:createdAfter is null or u.createdAt >= :createdAfter)"
+            + " and (:createdBefore is null or u.createdAt < :createdBefore)"
+            + " order by u.id asc")
+    List<UUID> findIdsMatching(UUID after, String emailPattern, LocalDateTime createdAfter, LocalDateTime createdBefore, Limit limit);
+
+    // set-based bulk writes bypass the persistence context, so they maintain version and updatedAt themselves
+    @Modifying
+    @Query("update UserEntity u set u.firstName = coalesce(:firstName, u.firstName),"
+            + " u.lastName = coalesce(:lastName, u.lastName),"
+            + " u.phoneNumber = coalesce(:phoneNumber, u.phoneNumber),"
+            + " u.updatedAt = :updatedAt, u.version = u.version + 1"
+            + " where u.id in :ids and u.isActive = true")
+    int updateAll(Collection<UUID> ids, String firstName, String lastName, String phoneNumber, LocalDateTime updatedAt);
+
+    @Modifying
+    @Query("update UserEntity u set u.isActive = false, u.updatedAt = :updatedAt, u.version = u.version + 1"
+            + " where u.id in :ids and u.isActive = true")
+    int softDeleteAll(Collection<UUID> ids, LocalDateTime updatedAt);
+
+    // native on purpose: the unique constraint also covers soft-deleted rows hidden by @SQLRestriction
+    @Query(value = "SELECT email FROM user_entity WHERE email IN (:emails)", nativeQuery = true)
+    List<String> findExistingEmails(Collection<String> emails);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "SELECT email FROM user_entity", nativeQuery = true)
+    Stream<String> streamAllEmails();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(SELECT_USER_DTO)
+    Stream<UserDto> streamAllDtos();
 }
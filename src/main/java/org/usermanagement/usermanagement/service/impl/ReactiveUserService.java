@@ -0,0 +1,32 @@
+package org.usermanagement.usermanagement.service.impl;
+
+import org.usermanagement.usermanagement.dto.CursorPage;
+import org.usermanagement.usermanagement.dto.UserDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@link UserService} for the single-user endpoints and list reads.
+ */
+public interface ReactiveUserService {
+
+    Mono<UserDto> createUser(UserDto userDto);
+
+    /**
+     * @param expectedVersion version from If-Match, or null to update unconditionally
+     */
+    Mono<UserDto> updateUser(UserDto userDto, UUID userId, Long expectedVersion);
+
+    Mono<UserDto> getUserById(UUID userId);
+
+    Mono<CursorPage<UserDto>> userList(String cursor, int size);
+
+    /**
+     * Every active user in id order, emitted as fast as the subscriber requests them.
+     */
+    Flux<UserDto> streamUsers();
+
+    Mono<Void> deleteUser(UUID userId);
+}
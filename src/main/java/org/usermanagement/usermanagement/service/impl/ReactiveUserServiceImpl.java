@@ -0,0 +1,220 @@
+package org.usermanagement.usermanagement.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.f4b6a3.uuid.UuidCreator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.usermanagement.usermanagement.cache.NearCacheInvalidator;
+import org.usermanagement.usermanagement.config.CacheConfig;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
+import org.usermanagement.usermanagement.dto.CursorPage;
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.entity.base.UserRow;
+import org.usermanagement.usermanagement.enums.UserEventType;
+import org.usermanagement.usermanagement.event.UserChangedEvent;
+import org.usermanagement.usermanagement.exception.BadRequestException;
+import org.usermanagement.usermanagement.exception.DuplicateEntityException;
+import org.usermanagement.usermanagement.exception.PreconditionFailedException;
+import org.usermanagement.usermanagement.exception.ResourceNotFoundException;
+import org.usermanagement.usermanagement.index.EmailIndex;
+import org.usermanagement.usermanagement.index.UserSearchIndex;
+import org.usermanagement.usermanagement.mapper.UserMapper;
+import org.usermanagement.usermanagement.repository.ReactiveUserRepository;
+import org.usermanagement.usermanagement.util.CursorCodec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Mirrors UserServiceImpl on R2DBC. The UserChangedEvent listeners expect a JDBC transaction, the
+ * outbox writer joins it, so writes here insert their outbox row on the R2DBC transaction themselves
+ * and hand the change to the in-memory consumers once it committed.
+ */
+@Service
+@Slf4j
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+
+    private static final String INSERT_EVENT =
+            "INSERT INTO outbox_event (user_id, event_type, payload, created_at) VALUES (:userId, :eventType, :payload, :createdAt)";
+
+    // rows requested from the database per batch while streaming, whatever the subscriber asks for
+    private static final int STREAM_PREFETCH = 256;
+
+    private final ReactiveUserRepository reactiveUserRepository;
+    private final UserMapper userMapper;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator reactiveTransactionalOperator;
+    private final ObjectMapper objectMapper;
+    private final UserManagementProperties properties;
+    private final EmailIndex emailIndex;
+    private final UserSearchIndex userSearchIndex;
+    private final NearCacheInvalidator nearCacheInvalidator;
+    private final CacheManager cacheManager;
+
+    @Override
+    public Mono<UserDto> createUser(UserDto userDto) {
+        log.info("Create a new user");
+        Mono<Boolean> exists = emailIndex.mightContain(userDto.getEmail())
+                ? reactiveUserRepository.existsByEmail(userDto.getEmail())
+                : Mono.just(false);
+        Mono<UserDto> create = exists
+                .flatMap(duplicate -> duplicate
+                        ? Mono.error(new DuplicateEntityException("User already exists with email: " + userDto.getEmail()))
+                        : reactiveUserRepository.save(newRow(userDto)))
+                .map(userMapper::rowToUserDto)
+                .flatMap(user -> recordChange(UserEventType.CREATED, user));
+        return reactiveTransactionalOperator.transactional(create)
+                // lost a race with a concurrent signup, the unique constraint has the final word
+                .onErrorMap(DataIntegrityViolationException.class,
+                        ex -> new DuplicateEntityException("User already exists with email: " + userDto.getEmail()))
+                .doOnNext(user -> afterCommit(UserEventType.CREATED, user));
+    }
+
+    @Override
+    public Mono<UserDto> updateUser(UserDto userDto, UUID userId, Long expectedVersion) {
+        log.info("Update a user");
+        Mono<UserDto> update = findActive(userId)
+                .flatMap(row -> {
+                    if (expectedVersion != null && !expectedVersion.equals(row.getVersion())) {
+                        return Mono.error(new PreconditionFailedException("User " + userId + " was modified, current version is " + row.getVersion()));
+                    }
+                    userMapper.updateRowFromDto(userDto, row);
+                    row.setUpdatedAt(LocalDateTime.now());
+                    // a concurrent commit fails the version check of the UPDATE
+                    return reactiveUserRepository.save(row);
+                })
+                .map(userMapper::rowToUserDto)
+                .flatMap(user -> recordChange(UserEventType.UPDATED, user));
+        return reactiveTransactionalOperator.transactional(update)
+                .doOnNext(user -> afterCommit(UserEventType.UPDATED, user));
+    }
+
+    /**
+     * Shares the users cache with the blocking stack; VersionedCache keeps a load that raced with a
+     * change from being cached.
+     */
+    @Override
+    public Mono<UserDto> getUserById(UUID userId) {
+        return Mono.defer(() -> {
+            Cache users = cacheManager.getCache(CacheConfig.USERS_CACHE);
+            UserDto cached = users == null ? null : users.get(userId, UserDto.class);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            return findActive(userId)
+                    .map(userMapper::rowToUserDto)
+                    .doOnNext(user -> {
+                        if (users != null) {
+                            users.put(userId, user);
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public Mono<CursorPage<UserDto>> userList(String cursor, int size) {
+        int maxPageSize = properties.getPagination().getMaxPageSize();
+        if (size < 1 || size > maxPageSize) {
+            return Mono.error(new BadRequestException("Page size must be between 1 and " + maxPageSize));
+        }
+        // one extra row tells us whether there is a next page without a count query
+        Flux<UserRow> rows = cursor == null || cursor.isBlank()
+                ? reactiveUserRepository.findPage(size + 1)
+                : Mono.fromCallable(() -> CursorCodec.decode(cursor)).flatMapMany(after -> reactiveUserRepository.findPageAfter(after, size + 1));
+        return rows.map(userMapper::rowToUserDto)
+                .collectList()
+                .map(users -> {
+                    boolean hasNext = users.size() > size;
+                    List<UserDto> content = hasNext ? users.subList(0, size) : users;
+                    String nextCursor = hasNext ? CursorCodec.encode(content.get(content.size() - 1).getId()) : null;
+                    return new CursorPage<>(content, content.size(), hasNext, nextCursor);
+                });
+    }
+
+    @Override
+    public Flux<UserDto> streamUsers() {
+        return reactiveUserRepository.streamAll()
+                .map(userMapper::rowToUserDto)
+                .limitRate(STREAM_PREFETCH);
+    }
+
+    /**
+     * Soft delete, as the @SQLDelete of UserEntity does: the row stays and its version moves on.
+     */
+    @Override
+    public Mono<Void> deleteUser(UUID userId) {
+        log.info("Delete user by id: {}", userId);
+        Mono<UserDto> delete = findActive(userId)
+                .flatMap(row -> {
+                    row.setActive(false);
+                    row.setUpdatedAt(LocalDateTime.now());
+                    return reactiveUserRepository.save(row);
+                })
+                .map(userMapper::rowToUserDto)
+                .flatMap(user -> recordChange(UserEventType.DELETED, user));
+        return reactiveTransactionalOperator.transactional(delete)
+                .doOnNext(user -> afterCommit(UserEventType.DELETED, user))
+                .then();
+    }
+
+    private Mono<UserRow> findActive(UUID userId) {
+        return reactiveUserRepository.findByIdAndActiveTrue(userId)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("User not found with id: " + userId)));
+    }
+
+    private UserRow newRow(UserDto userDto) {
+        UserRow row = userMapper.toUserRow(userDto);
+        LocalDateTime now = LocalDateTime.now();
+        row.setId(UuidCreator.getTimeOrderedEpoch());
+        row.setCreatedAt(now);
+        row.setUpdatedAt(now);
+        row.setActive(true);
+        return row;
+    }
+
+    private Mono<UserDto> recordChange(UserEventType type, UserDto user) {
+        return databaseClient.sql(INSERT_EVENT)
+                .bind("userId", user.getId().toString())
+                .bind("eventType", type.name())
+                .bind("payload", serialize(user))
+                .bind("createdAt", LocalDateTime.now())
+                .then()
+                .thenReturn(user);
+    }
+
+    private void afterCommit(UserEventType type, UserDto user) {
+        if (type != UserEventType.CREATED) {
+            Cache users = cacheManager.getCache(CacheConfig.USERS_CACHE);
+            if (users != null) {
+                users.evict(user.getId());
+            }
+        }
+        if (type != UserEventType.DELETED) {
+            emailIndex.add(user.getEmail());
+        }
+        UserChangedEvent event = UserChangedEvent.of(type, user);
+        userSearchIndex.onUserChanged(event);
+        nearCacheInvalidator.onUserChanged(event);
+    }
+
+    private String serialize(UserDto user) {
+        try {
+            return objectMapper.writeValueAsString(user);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize user " + user.getId(), ex);
+        }
+    }
+}
@@ -2,19 +2,58 @@ package org.usermanagement.usermanagement.service.impl;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.usermanagement.usermanagement.dto.BatchUserResponse;
+import org.usermanagement.usermanagement.dto.BulkMutationResponse;
+import org.usermanagement.usermanagement.dto.BulkUserResponse;
+import org.usermanagement.usermanagement.dto.BulkUserSelection;
+import org.usermanagement.usermanagement.dto.BulkUserUpdateRequest;
+import org.usermanagement.usermanagement.dto.CursorPage;
 import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.dto.UserEvent;
+import org.usermanagement.usermanagement.enums.ExportFormat;
 
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
 import java.util.UUID;
 
 public interface UserService {
 
     UserDto createUser(UserDto userDto);
 
-    UserDto updateUser(UserDto userDto, UUID userId);
+    BulkUserResponse createUsers(Iterator<UserDto> users);
+
+    /**
+     * @param expectedVersion version from If-Match, or null to update unconditionally
+     */
+    UserDto updateUser(UserDto userDto, UUID userId, Long expectedVersion);
 
     UserDto getUserById(UUID userId);
 
+    /**
+     * Looks up many users at once; ids that do not exist are reported as NOT_FOUND instead of failing the batch.
+     */
+    BatchUserResponse getUsersByIds(List<UUID> ids);
+
     Page<UserDto> userList(Pageable pageable);
 
+    CursorPage<UserDto> userList(String cursor, int size);
+
+    Page<UserDto> searchUsers(String query, Pageable pageable);
+
+    /**
+     * Streams every active user to the output stream and returns how many were written.
+     */
+    long exportUsers(ExportFormat format, boolean gzip, OutputStream out);
+
     void deleteUser(UUID userId);
+
+    BulkMutationResponse updateUsers(BulkUserUpdateRequest request);
+
+    BulkMutationResponse deleteUsers(BulkUserSelection selection);
+
+    /**
+     * Changes recorded after the given sequence, oldest first.
+     */
+    CursorPage<UserEvent> userChanges(String cursor, int size);
 }
@@ -1,74 +1,662 @@
 package org.usermanagement.usermanagement.service.impl;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.usermanagement.usermanagement.config.CacheConfig;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
+import org.usermanagement.usermanagement.datasource.ReadYourWrites;
+import org.usermanagement.usermanagement.dto.BatchUserResponse;
+import org.usermanagement.usermanagement.dto.BatchUserResult;
+import org.usermanagement.usermanagement.dto.BulkMutationResponse;
+import org.usermanagement.usermanagement.dto.BulkUserFilter;
+import org.usermanagement.usermanagement.dto.BulkUserResponse;
+import org.usermanagement.usermanagement.dto.BulkUserResult;
+import org.usermanagement.usermanagement.dto.BulkUserSelection;
+import org.usermanagement.usermanagement.dto.BulkUserUpdateRequest;
+import org.usermanagement.usermanagement.dto.CursorPage;
 import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.dto.UserEvent;
+import org.usermanagement.usermanagement.entity.base.OutboxEventEntity;
 import org.usermanagement.usermanagement.entity.base.UserEntity;
+import org.usermanagement.usermanagement.enums.BatchGetStatus;
+import org.usermanagement.usermanagement.enums.BulkRowStatus;
+import org.usermanagement.usermanagement.enums.ExportFormat;
+import org.usermanagement.usermanagement.enums.UserEventType;
+import org.usermanagement.usermanagement.event.UserChangedEvent;
+import org.usermanagement.usermanagement.exception.BadRequestException;
 import org.usermanagement.usermanagement.exception.DuplicateEntityException;
+import org.usermanagement.usermanagement.exception.PreconditionFailedException;
 import org.usermanagement.usermanagement.exception.ResourceNotFoundException;
+import org.usermanagement.usermanagement.index.EmailIndex;
+import org.usermanagement.usermanagement.index.UserSearchIndex;
+import org.usermanagement.usermanagement.mapper.OutboxEventMapper;
 import org.usermanagement.usermanagement.mapper.UserMapper;
+import org.usermanagement.usermanagement.repository.OutboxEventRepository;
 import org.usermanagement.usermanagement.repository.UserRepository;
+import org.usermanagement.usermanagement.shard.ShardContext;
+import org.usermanagement.usermanagement.shard.UserShards;
+import org.usermanagement.usermanagement.util.CursorCodec;
+import org.usermanagement.usermanagement.util.UserExportWriter;
 
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
+@Timed(value = "user.service", histogram = true)
 public class UserServiceImpl implements UserService
 {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final UserManagementProperties properties;
+    private final EmailIndex emailIndex;
+    private final UserSearchIndex userSearchIndex;
+    private final UserExportWriter userExportWriter;
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxEventMapper outboxEventMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final ReadYourWrites readYourWrites;
+    private final UserShards userShards;
 
     @Override
     @Transactional
     public UserDto createUser(UserDto userDto) {
         log.info("Create a new user");
 
-        if (userRepository.existsByEmail(userDto.getEmail())) {
+        // with sharding the id picks the shard, so it is assigned up front, and the email directory
+        // takes over from the unique constraint, which only sees one shard
+        UUID userId = userShards.newId();
+        if (userShards.isEnabled()) {
+            if (!userShards.claimEmail(userDto.getEmail(), userId)) {
+                throw new DuplicateEntityException("User already exists with email: " + userDto.getEmail());
+            }
+        } else if (emailIndex.mightContain(userDto.getEmail()) && userRepository.existsByEmail(userDto.getEmail())) {
             throw new DuplicateEntityException("User already exists with email: " + userDto.getEmail());
         }
         
         UserEntity user = userMapper.toUserEntity(userDto);
-        userRepository.save(user);
-        return userMapper.toUserDto(user);
+        if (userId != null) {
+            user.setId(userId);
+        }
+        try (ShardContext.Scope shard = userShards.routeForWrite(userId)) {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException ex) {
+            // lost a race with a concurrent signup, the unique constraint has the final word
+            throw new DuplicateEntityException("User already exists with email: " + userDto.getEmail());
+        }
+        emailIndex.add(user.getEmail());
+        UserDto createdUser = userMapper.toUserDto(user);
+        eventPublisher.publishEvent(UserChangedEvent.of(UserEventType.CREATED, createdUser));
+        return createdUser;
+    }
+
+    @Override
+    public BulkUserResponse createUsers(Iterator<UserDto> users) {
+        log.info("Bulk create users");
+        int chunkSize = properties.getBulk().getChunkSize();
+        List<BulkUserResult> results = new ArrayList<>();
+        List<BulkRow> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+
+        try {
+            while (users.hasNext()) {
+                UserDto user = users.next();
+                chunk.add(new BulkRow(index++, user));
+                if (chunk.size() == chunkSize) {
+                    results.addAll(importChunk(chunk));
+                    chunk.clear();
+                }
+            }
+        } catch (BadRequestException ex) {
+            // the stream cannot be resynchronised after a malformed element, so stop here
+            results.add(new BulkUserResult(index, BulkRowStatus.INVALID, null, null, ex.getMessage()));
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(importChunk(chunk));
+        }
+        results.sort(Comparator.comparingInt(BulkUserResult::getIndex));
+        return new BulkUserResponse(results);
+    }
+
+    /**
+     * Validates a chunk, resolves duplicates with one IN query and inserts the rest in a single
+     * transaction so Hibernate can send them as JDBC batches.
+     */
+    private List<BulkUserResult> importChunk(List<BulkRow> chunk) {
+        List<BulkUserResult> results = new ArrayList<>(chunk.size());
+        List<BulkRow> valid = new ArrayList<>(chunk.size());
+        for (BulkRow row : chunk) {
+            if (row.user() == null) {
+                results.add(row.result(BulkRowStatus.INVALID, null, "User must not be null"));
+                continue;
+            }
+            Set<ConstraintViolation<UserDto>> violations = validator.validate(row.user());
+            if (violations.isEmpty()) {
+                valid.add(row);
+            } else {
+                String message = violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "));
+                results.add(row.result(BulkRowStatus.INVALID, null, message));
+            }
+        }
+        if (valid.isEmpty()) {
+            return results;
+        }
+
+        List<String> candidates = valid.stream().map(row -> row.user().getEmail()).filter(emailIndex::mightContain).toList();
+        Set<String> taken = new HashSet<>();
+        if (!candidates.isEmpty()) {
+            List<String> existing = userShards.isEnabled()
+                    ? userShards.findExistingEmails(candidates)
+                    : userRepository.findExistingEmails(candidates);
+            existing.forEach(email -> taken.add(email.toLowerCase(Locale.ROOT)));
+        }
+        List<BulkRow> inserts = new ArrayList<>(valid.size());
+        for (BulkRow row : valid) {
+            if (!taken.add(row.user().getEmail().toLowerCase(Locale.ROOT))) {
+                results.add(row.result(BulkRowStatus.DUPLICATE, null, "User already exists with email: " + row.user().getEmail()));
+            } else {
+                inserts.add(row);
+            }
+        }
+        if (inserts.isEmpty()) {
+            return results;
+        }
+        if (!userShards.isEnabled()) {
+            results.addAll(insertChunk(inserts));
+            return results;
+        }
+
+        // one transaction per shard; emails are claimed first and given back for rows that end up not inserted
+        List<BulkRow> claimed = new ArrayList<>(inserts.size());
+        for (BulkRow row : inserts) {
+            BulkRow assigned = row.withId(userShards.newId());
+            if (userShards.claimEmail(row.user().getEmail(), assigned.id())) {
+                claimed.add(assigned);
+            } else {
+                results.add(row.result(BulkRowStatus.DUPLICATE, null, "User already exists with email: " + row.user().getEmail()));
+            }
+        }
+        for (List<BulkRow> rows : userShards.groupByShard(claimed, BulkRow::id).values()) {
+            try (ShardContext.Scope shard = userShards.routeForWrite(rows.get(0).id())) {
+                results.addAll(insertChunk(rows));
+            } catch (RuntimeException ex) {
+                rows.forEach(row -> userShards.releaseEmail(row.user().getEmail(), row.id()));
+                throw ex;
+            }
+        }
+        return results;
+    }
+
+    private List<BulkUserResult> insertChunk(List<BulkRow> inserts) {
+        List<BulkUserResult> results = new ArrayList<>(inserts.size());
+        try {
+            List<UserEntity> saved = transactionTemplate.execute(status -> {
+                List<UserEntity> entities = userRepository.saveAll(inserts.stream().map(this::toUserEntity).toList());
+                eventPublisher.publishEvent(new UserChangedEvent(UserEventType.CREATED, entities.stream().map(userMapper::toUserDto).toList()));
+                return entities;
+            });
+            for (int i = 0; i < inserts.size(); i++) {
+                emailIndex.add(saved.get(i).getEmail());
+                results.add(inserts.get(i).result(BulkRowStatus.CREATED, saved.get(i).getId(), null));
+            }
+        } catch (DataIntegrityViolationException ex) {
+            // a concurrent insert won the race for one of the emails, fall back to row by row
+            log.warn("Bulk chunk rejected by the database, retrying {} rows individually", inserts.size());
+            for (BulkRow row : inserts) {
+                results.add(importRow(row));
+            }
+        }
+        return results;
+    }
+
+    private BulkUserResult importRow(BulkRow row) {
+        try {
+            UserEntity saved = transactionTemplate.execute(status -> {
+                UserEntity entity = userRepository.saveAndFlush(toUserEntity(row));
+                eventPublisher.publishEvent(UserChangedEvent.of(UserEventType.CREATED, userMapper.toUserDto(entity)));
+                return entity;
+            });
+            emailIndex.add(saved.getEmail());
+            return row.result(BulkRowStatus.CREATED, saved.getId(), null);
+        } catch (DataIntegrityViolationException ex) {
+            releaseEmail(row);
+            return row.result(BulkRowStatus.DUPLICATE, null, "User already exists with email: " + row.user().getEmail());
+        } catch (RuntimeException ex) {
+            releaseEmail(row);
+            return row.result(BulkRowStatus.FAILED, null, ex.getMessage());
+        }
+    }
+
+    private UserEntity toUserEntity(BulkRow row) {
+        UserEntity user = userMapper.toUserEntity(row.user());
+        if (row.id() != null) {
+            user.setId(row.id());
+        }
+        return user;
+    }
+
+    private void releaseEmail(BulkRow row) {
+        if (row.id() != null) {
+            userShards.releaseEmail(row.user().getEmail(), row.id());
+        }
     }
 
     @Override
     @Transactional
-    public UserDto updateUser(UserDto userDto, UUID userId) {
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#userId")
+    public UserDto updateUser(UserDto userDto, UUID userId, Long expectedVersion) {
         log.info("Update a user");
-        UserEntity existingUser = findUserById(userId);
-        userMapper.updateEntityFromDto(userDto, existingUser);
-        UserEntity savedUser = userRepository.save(existingUser);
-        return userMapper.toUserDto(savedUser);
+        try (ShardContext.Scope shard = userShards.routeForWrite(userId)) {
+            UserEntity existingUser = findUserById(userId);
+            if (expectedVersion != null && !expectedVersion.equals(existingUser.getVersion())) {
+                throw new PreconditionFailedException("User " + userId + " was modified, current version is " + existingUser.getVersion());
+            }
+            String previousEmail = existingUser.getEmail();
+            userMapper.updateEntityFromDto(userDto, existingUser);
+            userShards.changeEmail(userId, previousEmail, existingUser.getEmail());
+            // flush so the incremented version is in the response; a concurrent commit fails the version check here
+            UserEntity savedUser = userRepository.saveAndFlush(existingUser);
+            emailIndex.add(savedUser.getEmail());
+            UserDto updatedUser = userMapper.toUserDto(savedUser);
+            eventPublisher.publishEvent(UserChangedEvent.of(UserEventType.UPDATED, updatedUser));
+            return updatedUser;
+        }
     }
 
+    /**
+     * sync = true sends misses through SingleFlightCache: concurrent calls for the same id share one
+     * query and its result or exception, and an eviction during the load drops the loaded value, so a
+     * read that raced with an update or soft delete can never leave the old row behind in the cache.
+     */
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.USERS_CACHE, key = "#userId", sync = true)
     public  UserDto getUserById(UUID userId){
         log.info("Get a user by id");
-        UserEntity user = findUserById(userId);
-        return userMapper.toUserDto(user);
+        // the connection is only taken by the first statement, so the pin still decides primary or replica
+        // and the scope decides the shard
+        try (ReadYourWrites.Pin pin = readYourWrites.pinIfRecentlyWritten(userId);
+             ShardContext.Scope shard = userShards.route(userId)) {
+            return userRepository.findDtoById(userId)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+        }
     }
 
+    /**
+     * Cached users are answered from the cache, the rest with one projection IN query per chunk.
+     * No surrounding transaction, so an all-cached batch never takes a connection. Loaded users are
+     * not written to the cache: unlike getUserById these loads are not coordinated with evictions.
+     */
+    @Override
+    public BatchUserResponse getUsersByIds(List<UUID> ids) {
+        log.info("Batch get users");
+        int maxIds = properties.getBulk().getMaxBatchGetIds();
+        if (ids == null || ids.isEmpty() || ids.size() > maxIds) {
+            throw new BadRequestException("Between 1 and " + maxIds + " ids can be requested at once");
+        }
+        Cache users = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        Map<UUID, UserDto> found = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : new LinkedHashSet<>(ids)) {
+            UserDto cached = users == null ? null : users.get(id, UserDto.class);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        // with sharding the ids are split by shard and the shards are queried in parallel
+        try (ReadYourWrites.Pin pin = readYourWrites.pinIfRecentlyWritten(missing)) {
+            userShards.scatter(missing, this::findDtosInChunks).forEach(user -> found.put(user.getId(), user));
+        }
+
+        List<BatchUserResult> results = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            UserDto user = found.get(id);
+            results.add(user == null
+                    ? new BatchUserResult(id, BatchGetStatus.NOT_FOUND, null)
+                    : new BatchUserResult(id, BatchGetStatus.FOUND, user));
+        }
+        return new BatchUserResponse(results);
+    }
+
+    private List<UserDto> findDtosInChunks(List<UUID> ids) {
+        int chunkSize = properties.getBulk().getBatchGetChunkSize();
+        List<UserDto> users = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            users.addAll(userRepository.findDtosByIdIn(chunk));
+        }
+        return users;
+    }
+
+    /**
+     * With sharding every shard returns its first offset + size rows and the merge skips the offset,
+     * so deep offset pages get more expensive with every shard; prefer the cursor pages. The total is
+     * the sum of the shards' counts and only approximate while a bucket moves: its rows are counted
+     * on both shards until the move deletes them from the source, while the content keeps only the
+     * copies of the owning shard.
+     */
     @Override
     @Transactional(readOnly = true)
     public Page<UserDto> userList(Pageable pageable){
         log.info("Get all users");
-        Page<UserEntity> users = userRepository.findAll(pageable);
-        return users.map(userMapper::toUserDto);
+        if (!userShards.isEnabled()) {
+            return userRepository.findAllDtos(pageable);
+        }
+        // the id breaks ties, so rows with equal sort values merge in the same order on every page
+        Sort sort = pageable.getSort().and(Sort.by("id"));
+        Pageable window = PageRequest.of(0, Math.toIntExact(pageable.getOffset() + pageable.getPageSize()), sort);
+        List<Page<UserDto>> pages = userShards.scatter(shard -> userRepository.findAllDtos(window));
+        List<List<UserDto>> owned = new ArrayList<>(pages.size());
+        for (int shard = 0; shard < pages.size(); shard++) {
+            owned.add(userShards.owned(shard, pages.get(shard).getContent(), UserDto::getId));
+        }
+        List<UserDto> content = UserShards.merge(owned, UserShards.comparator(sort, UserDto.class), pageable.getOffset(), pageable.getPageSize());
+        // counting owned rows only would need the bucket hash in SQL; strays are rare and short-lived
+        long total = pages.stream().mapToLong(Page::getTotalElements).sum();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UserDto> userList(String cursor, int size) {
+        log.info("Get users after cursor");
+        int maxPageSize = properties.getPagination().getMaxPageSize();
+        if (size < 1 || size > maxPageSize) {
+            throw new BadRequestException("Page size must be between 1 and " + maxPageSize);
+        }
+
+        // one extra row tells us whether there is a next page without a count query; with sharding
+        // every shard returns that many and the merge keeps the lowest ids
+        Limit limit = Limit.of(size + 1);
+        UUID after = cursor == null || cursor.isBlank() ? null : CursorCodec.decode(cursor);
+        List<UserDto> users = userShards.isEnabled()
+                ? UserShards.merge(userShards.scatterOwned(shard -> findDtoPage(after, limit), UserDto::getId),
+                        Comparator.comparing(UserDto::getId, UserShards.ID_ORDER), 0, size + 1)
+                : findDtoPage(after, limit);
+
+        boolean hasNext = users.size() > size;
+        List<UserDto> content = hasNext ? users.subList(0, size) : users;
+        String nextCursor = hasNext ? CursorCodec.encode(content.get(content.size() - 1).getId()) : null;
+        return new CursorPage<>(content, content.size(), hasNext, nextCursor);
+    }
+
+    private List<UserDto> findDtoPage(UUID after, Limit limit) {
+        return after == null ? userRepository.findDtoPage(limit) : userRepository.findDtoPageAfter(after, limit);
+    }
+
+    /**
+     * Served from the in-memory index, so no transaction or connection is needed.
+     */
+    @Override
+    public Page<UserDto> searchUsers(String query, Pageable pageable) {
+        log.info("Search users");
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("Search query must not be blank");
+        }
+        int maxPageSize = properties.getPagination().getMaxPageSize();
+        if (pageable.getPageSize() > maxPageSize) {
+            throw new BadRequestException("Page size must be between 1 and " + maxPageSize);
+        }
+        return userSearchIndex.search(query, pageable);
+    }
+
+    /**
+     * One read-only REPEATABLE READ transaction gives the whole export a single InnoDB snapshot.
+     * Rows arrive through a server-side cursor (useCursorFetch plus the fetch size hint) as DTOs,
+     * so neither the driver nor the persistence context accumulates them.
+     */
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public long exportUsers(ExportFormat format, boolean gzip, OutputStream out) {
+        log.info("Export users as {}", format);
+        long start = System.nanoTime();
+        // with sharding the shards are exported one after another, each from its own snapshot
+        try (Stream<UserDto> users = userShards.streamAll(Isolation.REPEATABLE_READ.value(), userRepository::streamAllDtos, UserDto::getId)) {
+            long count = userExportWriter.write(users, format, gzip, out);
+            log.info("Exported {} users in {} ms", count, (System.nanoTime() - start) / 1_000_000);
+            return count;
+        }
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#userId")
     public void deleteUser(UUID userId) {
         log.info("Delete user by id: {}", userId);
-        UserEntity user =findUserById(userId);
-        userRepository.delete(user);
+        // the email stays claimed, like the unique constraint keeps covering soft deleted rows
+        try (ShardContext.Scope shard = userShards.routeForWrite(userId)) {
+            UserEntity user =findUserById(userId);
+            userRepository.delete(user);
+            eventPublisher.publishEvent(UserChangedEvent.of(UserEventType.DELETED, userMapper.toDeletedUserDto(user)));
+        }
+    }
+
+    @Override
+    public BulkMutationResponse updateUsers(BulkUserUpdateRequest request) {
+        log.info("Bulk update users");
+        if (request.getFirstName() == null && request.getLastName() == null && request.getPhoneNumber() == null) {
+            throw new BadRequestException("Bulk update must change at least one field");
+        }
+        return mutateInChunks(request, ids -> {
+            int affected = userRepository.updateAll(ids, request.getFirstName(), request.getLastName(), request.getPhoneNumber(), LocalDateTime.now());
+            // rows stay locked until commit, so this read sees exactly what was written
+            List<UserDto> updated = userRepository.findDtosByIdIn(ids);
+            if (!updated.isEmpty()) {
+                eventPublisher.publishEvent(new UserChangedEvent(UserEventType.UPDATED, updated));
+            }
+            return affected;
+        });
+    }
+
+    @Override
+    public BulkMutationResponse deleteUsers(BulkUserSelection selection) {
+        log.info("Bulk delete users");
+        return mutateInChunks(selection, ids -> {
+            List<UserDto> deleted = userRepository.lockDeletedDtosByIdIn(ids);
+            int affected = userRepository.softDeleteAll(ids, LocalDateTime.now());
+            if (!deleted.isEmpty()) {
+                eventPublisher.publishEvent(new UserChangedEvent(UserEventType.DELETED, deleted));
+            }
+            return affected;
+        });
+    }
+
+    /**
+     * Applies a set-based mutation to the selected users one chunk per transaction, which keeps
+     * statements and row locks short. A failure rolls back the current chunk only; earlier chunks
+     * stay committed. Cache evictions are deferred to each commit by the transaction-aware cache.
+     * With sharding the users are mutated shard by shard, since a chunk cannot span two databases.
+     */
+    private BulkMutationResponse mutateInChunks(BulkUserSelection selection, Function<List<UUID>, Integer> mutation) {
+        boolean byIds = selection.getIds() != null && !selection.getIds().isEmpty();
+        boolean byFilter = selection.getFilter() != null && !selection.getFilter().isEmpty();
+        if (byIds == byFilter) {
+            throw new BadRequestException("Select users either by a non-empty id list or by a filter");
+        }
+        int chunkSize = properties.getBulk().getChunkSize();
+        Cache users = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        long[] matched = new long[1];
+        long[] affected = new long[1];
+
+        if (byIds) {
+            userShards.writeByShard(selection.getIds().stream().distinct().toList(), ids -> {
+                for (int from = 0; from < ids.size(); from += chunkSize) {
+                    List<UUID> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+                    matched[0] += chunk.size();
+                    affected[0] += transactionTemplate.execute(status -> mutateChunk(chunk, mutation, users));
+                }
+            });
+            return new BulkMutationResponse(matched[0], affected[0]);
+        }
+
+        BulkUserFilter filter = selection.getFilter();
+        String emailPattern = filter.getEmailDomain() == null || filter.getEmailDomain().isBlank()
+                ? null : "%@" + escapeLike(filter.getEmailDomain().trim().toLowerCase(Locale.ROOT));
+        userShards.forEachShard(shard -> {
+            UUID after = new UUID(0, 0);
+            while (true) {
+                List<UUID> page = userRepository.findIdsMatching(after, emailPattern, filter.getCreatedAfter(), filter.getCreatedBefore(), Limit.of(chunkSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                // rows of a bucket that is being moved in are mutated on the shard that owns them
+                List<UUID> chunk = userShards.owned(shard, page, Function.identity());
+                userShards.checkWritable(chunk);
+                matched[0] += chunk.size();
+                if (!chunk.isEmpty()) {
+                    affected[0] += transactionTemplate.execute(status -> mutateChunk(chunk, mutation, users));
+                }
+                if (page.size() < chunkSize) {
+                    break;
+                }
+                after = page.get(page.size() - 1);
+            }
+        });
+        return new BulkMutationResponse(matched[0], affected[0]);
+    }
+
+    // the domain is matched literally, so "_" or "%" in it cannot widen a bulk delete to other domains
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private static int mutateChunk(List<UUID> chunk, Function<List<UUID>, Integer> mutation, Cache users) {
+        int affected = mutation.apply(chunk);
+        if (users != null) {
+            chunk.forEach(users::evict);
+        }
+        return affected;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UserEvent> userChanges(String cursor, int size) {
+        int maxPageSize = properties.getPagination().getMaxPageSize();
+        if (size < 1 || size > maxPageSize) {
+            throw new BadRequestException("Page size must be between 1 and " + maxPageSize);
+        }
+        LocalDateTime gapsExpireBefore = LocalDateTime.now().minus(properties.getOutbox().getGapTimeout());
+        if (userShards.isEnabled()) {
+            return shardedChanges(cursor, size, gapsExpireBefore);
+        }
+        long after = parseSequence(cursor);
+
+        List<UserEvent> events = committedChanges(after, size + 1, gapsExpireBefore).stream()
+                .map(outboxEventMapper::toUserEvent)
+                .toList();
+        boolean hasNext = events.size() > size;
+        List<UserEvent> content = hasNext ? events.subList(0, size) : events;
+        // consumers resume from the last sequence they saw, even when the feed is caught up
+        String nextCursor = content.isEmpty() ? String.valueOf(after) : String.valueOf(content.get(content.size() - 1).getSequence());
+        return new CursorPage<>(content, content.size(), hasNext, nextCursor);
+    }
+
+    /**
+     * Every shard numbers its outbox on its own, so the cursor holds one sequence per shard, joined
+     * by dots. Events are merged by creation time; the order of events on different shards within the
+     * same instant is arbitrary, as it was for concurrent transactions on one database.
+     */
+    private CursorPage<UserEvent> shardedChanges(String cursor, int size, LocalDateTime gapsExpireBefore) {
+        long[] after = parseSequences(cursor, userShards.count());
+        List<List<ShardEvent>> perShard = userShards.scatter(shard ->
+                committedChanges(after[shard], size + 1, gapsExpireBefore).stream()
+                        .map(event -> new ShardEvent(shard, outboxEventMapper.toUserEvent(event)))
+                        .toList());
+        List<ShardEvent> events = UserShards.merge(perShard, Comparator.comparing((ShardEvent event) -> event.event().getCreatedAt())
+                .thenComparingInt(ShardEvent::shard), 0, size + 1);
+        boolean hasNext = events.size() > size;
+        List<ShardEvent> content = hasNext ? events.subList(0, size) : events;
+        long[] next = after.clone();
+        content.forEach(event -> next[event.shard()] = event.event().getSequence());
+        String nextCursor = Arrays.stream(next).mapToObj(String::valueOf).collect(Collectors.joining("."));
+        return new CursorPage<>(content.stream().map(ShardEvent::event).toList(), content.size(), hasNext, nextCursor);
+    }
+
+    /**
+     * Sequences are taken at insert but become visible at commit, so a missing number may still
+     * arrive. The page ends before it, and a consumer that moved its cursor past it would never see the
+     * event. The gap is skipped once the event after it was written longer than the gap timeout ago:
+     * its transaction rolled back, or has run for longer than any user transaction may.
+     */
+    private List<OutboxEventEntity> committedChanges(long after, int limit, LocalDateTime gapsExpireBefore) {
+        List<OutboxEventEntity> events = outboxEventRepository.findChangesAfter(after, Limit.of(limit));
+        long expected = after + 1;
+        for (int i = 0; i < events.size(); i++) {
+            OutboxEventEntity event = events.get(i);
+            if (event.getSequence() != expected && !event.getCreatedAt().isBefore(gapsExpireBefore)) {
+                return events.subList(0, i);
+            }
+            expected = event.getSequence() + 1;
+        }
+        return events;
+    }
+
+    private static long parseSequence(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // a cursor from before sharding was switched on continues the feed of shard 0
+    private static long[] parseSequences(String cursor, int shards) {
+        long[] sequences = new long[shards];
+        if (cursor == null || cursor.isBlank()) {
+            return sequences;
+        }
+        String[] parts = cursor.split("\\.");
+        if (parts.length > shards) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+        for (int shard = 0; shard < parts.length; shard++) {
+            sequences[shard] = parseSequence(parts[shard]);
+        }
+        return sequences;
     }
 
     private UserEntity findUserById(UUID userId) {
@@ -76,6 +664,27 @@ public class UserServiceImpl implements UserService
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
     }
 
+    private record ShardEvent(int shard, UserEvent event) {
+    }
+
+    /**
+     * @param id assigned before the insert when sharding is on, otherwise null
+     */
+    private record BulkRow(int index, UserDto user, UUID id) {
+
+        BulkRow(int index, UserDto user) {
+            this(index, user, null);
+        }
+
+        BulkRow withId(UUID id) {
+            return new BulkRow(index, user, id);
+        }
+
+        BulkUserResult result(BulkRowStatus status, UUID id, String message) {
+            return new BulkUserResult(index, status, id, user == null ? null : user.getEmail(), message);
+        }
+    }
+
 }
 
 
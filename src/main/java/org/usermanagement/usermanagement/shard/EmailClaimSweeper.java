@@ -0,0 +1,82 @@
+package org.usermanagement.usermanagement.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Gives back emails whose user was never written. Claims autocommit on the directory shard before
+ * the user's own transaction, so a crash in between leaves the email taken without a user. Claims
+ * older than the grace period are checked against every shard, not only the owner, so a user that
+ * is being moved is still found; found users confirm their claims, the rest are released.
+ */
+@Slf4j
+public class EmailClaimSweeper {
+
+    private static final String FIND_USERS = "SELECT id FROM user_entity WHERE id IN (:ids)";
+
+    private final EmailDirectory emailDirectory;
+    private final List<NamedParameterJdbcTemplate> shards = new ArrayList<>();
+    private final Duration gracePeriod;
+    private final int batchSize;
+
+    /**
+     * @param gracePeriod longer than any transaction that writes a user, so its claim is never released
+     *                    before the user commits
+     */
+    public EmailClaimSweeper(EmailDirectory emailDirectory, ShardedDataSource dataSource, Duration gracePeriod, int batchSize) {
+        this.emailDirectory = emailDirectory;
+        for (int shard = 0; shard < dataSource.size(); shard++) {
+            shards.add(new NamedParameterJdbcTemplate(dataSource.shard(shard)));
+        }
+        this.gracePeriod = gracePeriod;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return the number of claims released
+     */
+    @Scheduled(fixedDelayString = "${user-management.shards.claim-sweep-interval:10m}")
+    public int sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(gracePeriod);
+        int released = 0;
+        while (true) {
+            // every claim read is either confirmed or released, so the next batch starts where this one ended
+            List<EmailDirectory.Claim> claims = emailDirectory.findUnconfirmed(cutoff, batchSize);
+            if (claims.isEmpty()) {
+                break;
+            }
+            Set<UUID> stored = storedUsers(claims);
+            List<EmailDirectory.Claim> confirmed = claims.stream().filter(claim -> stored.contains(claim.userId())).toList();
+            List<EmailDirectory.Claim> orphaned = claims.stream().filter(claim -> !stored.contains(claim.userId())).toList();
+            emailDirectory.confirm(confirmed);
+            released += emailDirectory.releaseUnconfirmed(orphaned, cutoff);
+            if (claims.size() < batchSize) {
+                break;
+            }
+        }
+        if (released > 0) {
+            log.warn("Released {} emails claimed by users that were never stored", released);
+        }
+        return released;
+    }
+
+    private Set<UUID> storedUsers(List<EmailDirectory.Claim> claims) {
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids",
+                claims.stream().map(claim -> UuidBytes.toBytes(claim.userId())).toList());
+        Set<UUID> stored = new HashSet<>();
+        for (NamedParameterJdbcTemplate shard : shards) {
+            stored.addAll(shard.query(FIND_USERS, ids, (rs, rowNum) -> UuidBytes.fromBytes(rs.getBytes(1))));
+        }
+        return stored;
+    }
+}
@@ -0,0 +1,114 @@
+package org.usermanagement.usermanagement.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Keeps emails unique across shards: the unique constraint of user_entity only sees its own shard, so
+ * every email is claimed in the user_email table on the directory shard before the user is written.
+ * Statements autocommit, so a claim is visible to other writers before the user itself commits.
+ * Soft deleted users keep their email, like the unique constraint did. A claim whose user never
+ * committed, e.g. because the instance died in between, is removed by {@link EmailClaimSweeper}.
+ */
+@Slf4j
+public class EmailDirectory {
+
+    private static final String CLAIM = "INSERT INTO user_email (email, user_id, claimed_at) VALUES (?, ?, ?)";
+    private static final String RELEASE = "DELETE FROM user_email WHERE email = ? AND user_id = ?";
+    private static final String FIND_EXISTING = "SELECT email FROM user_email WHERE email IN (:emails)";
+    private static final String ANY = "SELECT email FROM user_email LIMIT 1";
+    // backfilled emails belong to stored users, so they are confirmed from the start
+    private static final String BACKFILL = "INSERT INTO user_email (email, user_id) SELECT LOWER(email), id FROM user_entity";
+    private static final String FIND_UNCONFIRMED = "SELECT email, user_id FROM user_email"
+            + " WHERE claimed_at IS NOT NULL AND claimed_at < ? ORDER BY claimed_at LIMIT ?";
+    private static final String CONFIRM = "UPDATE user_email SET claimed_at = NULL WHERE email = ? AND user_id = ?";
+    private static final String RELEASE_UNCONFIRMED = "DELETE FROM user_email WHERE email = ? AND user_id = ? AND claimed_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public EmailDirectory(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Fills an empty directory from the users of the directory shard, which is where all users are
+     * when sharding is switched on for an existing database.
+     */
+    public void backfill() {
+        if (jdbcTemplate.queryForList(ANY, String.class).isEmpty()) {
+            int emails = jdbcTemplate.update(BACKFILL);
+            if (emails > 0) {
+                log.info("Copied {} emails into the email directory", emails);
+            }
+        }
+    }
+
+    /**
+     * @return false if the email already belongs to a user
+     */
+    public boolean claim(String email, UUID userId) {
+        try {
+            jdbcTemplate.update(CLAIM, normalize(email), UuidBytes.toBytes(userId), Timestamp.valueOf(LocalDateTime.now()));
+            return true;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+    }
+
+    // only the claim of the given user is removed, so a late release cannot free someone else's email
+    public void release(String email, UUID userId) {
+        jdbcTemplate.update(RELEASE, normalize(email), UuidBytes.toBytes(userId));
+    }
+
+    /**
+     * Claims made before the cutoff that no sweep has checked yet, oldest first.
+     */
+    public List<Claim> findUnconfirmed(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.query(FIND_UNCONFIRMED, (rs, rowNum) -> new Claim(rs.getString(1), UuidBytes.fromBytes(rs.getBytes(2))),
+                Timestamp.valueOf(cutoff), limit);
+    }
+
+    /**
+     * Marks claims whose user is stored, so later sweeps skip them.
+     */
+    public void confirm(List<Claim> claims) {
+        jdbcTemplate.batchUpdate(CONFIRM, claims.stream()
+                .map(claim -> new Object[]{claim.email(), UuidBytes.toBytes(claim.userId())})
+                .toList());
+    }
+
+    // the cutoff keeps a claim that was released and made again since it was read
+    public int releaseUnconfirmed(List<Claim> claims, LocalDateTime cutoff) {
+        Timestamp before = Timestamp.valueOf(cutoff);
+        return Arrays.stream(jdbcTemplate.batchUpdate(RELEASE_UNCONFIRMED, claims.stream()
+                        .map(claim -> new Object[]{claim.email(), UuidBytes.toBytes(claim.userId()), before})
+                        .toList()))
+                .sum();
+    }
+
+    public List<String> findExisting(Collection<String> emails) {
+        List<String> normalized = emails.stream().map(EmailDirectory::normalize).distinct().toList();
+        return namedJdbcTemplate.queryForList(FIND_EXISTING, new MapSqlParameterSource("emails", normalized), String.class);
+    }
+
+    // MySQL compares emails case-insensitively under the default collation, the directory does the same
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    public record Claim(String email, UUID userId) {
+    }
+}
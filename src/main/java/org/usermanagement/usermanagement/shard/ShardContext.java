@@ -0,0 +1,45 @@
+package org.usermanagement.usermanagement.shard;
+
+/**
+ * The shard the current thread works on. {@link ShardedDataSource} reads it when a transaction takes
+ * its connection, which behind the lazy proxy is the first statement, so a scope opened inside a
+ * {@code @Transactional} method still decides where the whole transaction runs.
+ */
+public final class ShardContext {
+
+    /**
+     * Home of the directory tables, and the shard used when no scope is open.
+     */
+    public static final int DIRECTORY = 0;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+    private static final Scope NONE = () -> {
+    };
+
+    private ShardContext() {
+    }
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? DIRECTORY : shard;
+    }
+
+    /**
+     * Routes the current thread to the shard until the returned scope is closed.
+     */
+    public static Scope on(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous == null ? CURRENT::remove : () -> CURRENT.set(previous);
+    }
+
+    public static Scope none() {
+        return NONE;
+    }
+
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,122 @@
+package org.usermanagement.usermanagement.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Which shard holds which user. Ids hash into a fixed number of buckets and the shard_bucket table on
+ * the directory shard assigns buckets to shards, so adding a shard moves whole buckets instead of
+ * rehashing every id. Every instance keeps a copy of the table and reloads it periodically; a bucket
+ * flagged as moving still serves reads from its old shard but rejects writes.
+ */
+@Slf4j
+public class ShardMap {
+
+    private static final String COUNT = "SELECT COUNT(*) FROM shard_bucket";
+    private static final String FIND_ALL = "SELECT bucket, shard, moving FROM shard_bucket";
+    private static final String INSERT = "INSERT INTO shard_bucket (bucket, shard, moving) VALUES (?, ?, ?)";
+    private static final String UPDATE = "UPDATE shard_bucket SET shard = ?, moving = ? WHERE bucket = ?";
+
+    private final JdbcTemplate directory;
+    private final int bucketCount;
+    private final int shardCount;
+    private volatile Assignment assignment;
+
+    public ShardMap(JdbcTemplate directory, int bucketCount, int shardCount) {
+        if (bucketCount < shardCount) {
+            throw new IllegalArgumentException("Need at least one bucket per shard, got " + bucketCount + " buckets for " + shardCount + " shards");
+        }
+        this.directory = directory;
+        this.bucketCount = bucketCount;
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Loads the assignment, writing the initial one (bucket modulo shard count) on the first start.
+     */
+    public void load() {
+        Integer assigned = directory.queryForObject(COUNT, Integer.class);
+        if (assigned == null || assigned == 0) {
+            List<Object[]> rows = new ArrayList<>(bucketCount);
+            for (int bucket = 0; bucket < bucketCount; bucket++) {
+                rows.add(new Object[]{bucket, bucket % shardCount, false});
+            }
+            try {
+                directory.batchUpdate(INSERT, rows);
+                log.info("Assigned {} buckets to {} shards", bucketCount, shardCount);
+            } catch (DuplicateKeyException ex) {
+                // another instance wrote it first
+            }
+        }
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${user-management.shards.refresh-interval:5s}")
+    public void refresh() {
+        int[] shards = new int[bucketCount];
+        boolean[] moving = new boolean[bucketCount];
+        Arrays.fill(shards, -1);
+        directory.query(FIND_ALL, rs -> {
+            int bucket = rs.getInt(1);
+            if (bucket < 0 || bucket >= bucketCount) {
+                throw new IllegalStateException("shard_bucket holds bucket " + bucket + " but " + bucketCount
+                        + " buckets are configured; the bucket count cannot change once users are stored");
+            }
+            shards[bucket] = rs.getInt(2);
+            moving[bucket] = rs.getBoolean(3);
+        });
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            if (shards[bucket] < 0 || shards[bucket] >= shardCount) {
+                throw new IllegalStateException("Bucket " + bucket + " is assigned to shard " + shards[bucket]
+                        + " but " + shardCount + " shards are configured");
+            }
+        }
+        assignment = new Assignment(shards, moving);
+    }
+
+    /**
+     * UUIDv7 ids start with a timestamp, so both halves are mixed before taking the bucket. The result
+     * is persisted indirectly through where rows are stored: never change this function.
+     */
+    public int bucketOf(UUID id) {
+        long hash = id.getMostSignificantBits() ^ Long.rotateLeft(id.getLeastSignificantBits(), 32);
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return Math.floorMod(hash ^ (hash >>> 33), bucketCount);
+    }
+
+    public int shardOf(UUID id) {
+        return shardOfBucket(bucketOf(id));
+    }
+
+    public int shardOfBucket(int bucket) {
+        return assignment.shards()[bucket];
+    }
+
+    public boolean isMoving(int bucket) {
+        return assignment.moving()[bucket];
+    }
+
+    public int bucketCount() {
+        return bucketCount;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    void assign(int bucket, int shard, boolean moving) {
+        directory.update(UPDATE, shard, moving, bucket);
+        refresh();
+    }
+
+    private record Assignment(int[] shards, boolean[] moving) {
+    }
+}
@@ -0,0 +1,236 @@
+package org.usermanagement.usermanagement.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSetMetaData;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Moves buckets between shards, e.g. to fill a newly added shard. A move works in four steps:
+ * <ol>
+ *     <li>flag the buckets as moving and wait until every instance reloaded the shard map, so writes
+ *     to their users stop everywhere (they fail with 503 and can be retried)</li>
+ *     <li>copy their rows, soft deleted ones included, from the source shards to the targets,
+ *     replacing what an interrupted earlier attempt left behind</li>
+ *     <li>assign the buckets to the targets and wait again, so every instance reads from the targets</li>
+ *     <li>clear the flag and delete the rows from the sources</li>
+ * </ol>
+ * Shards only answer for buckets they own, so copies left behind by a failed step are never served;
+ * {@link #purgeStrays()} removes them. Outbox events of moved users stay on the source shard, where
+ * the change feed still finds them.
+ */
+@Slf4j
+public class ShardRebalancer {
+
+    private static final String SCAN_IDS = "SELECT id FROM user_entity WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String DELETE = "DELETE FROM user_entity WHERE id = ?";
+
+    private final ShardMap shardMap;
+    private final ShardedDataSource dataSource;
+    private final int batchSize;
+    private final Duration propagationDelay;
+
+    /**
+     * @param propagationDelay how long every instance needs to see a change of the shard map, at least
+     *                         the refresh interval plus the longest write transaction
+     */
+    public ShardRebalancer(ShardMap shardMap, ShardedDataSource dataSource, int batchSize, Duration propagationDelay) {
+        this.shardMap = shardMap;
+        this.dataSource = dataSource;
+        this.batchSize = batchSize;
+        this.propagationDelay = propagationDelay;
+    }
+
+    /**
+     * The moves that leave every shard with the same number of buckets, give or take one. Shards that
+     * hold the most buckets keep the extra ones, and give away their highest buckets first.
+     */
+    public List<BucketMove> plan() {
+        int shards = shardMap.shardCount();
+        int buckets = shardMap.bucketCount();
+        List<List<Integer>> owned = new ArrayList<>();
+        IntStream.range(0, shards).forEach(shard -> owned.add(new ArrayList<>()));
+        IntStream.range(0, buckets).forEach(bucket -> owned.get(shardMap.shardOfBucket(bucket)).add(bucket));
+
+        List<Integer> bySize = IntStream.range(0, shards).boxed()
+                .sorted(Comparator.comparingInt((Integer shard) -> owned.get(shard).size()).reversed())
+                .toList();
+        int[] target = new int[shards];
+        for (int i = 0; i < shards; i++) {
+            target[bySize.get(i)] = buckets / shards + (i < buckets % shards ? 1 : 0);
+        }
+
+        List<int[]> surplus = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            List<Integer> mine = owned.get(shard);
+            for (int i = mine.size() - 1; i >= target[shard]; i--) {
+                surplus.add(new int[]{mine.get(i), shard});
+            }
+        }
+        List<BucketMove> moves = new ArrayList<>();
+        int next = 0;
+        for (int shard = 0; shard < shards; shard++) {
+            for (int missing = target[shard] - owned.get(shard).size(); missing > 0; missing--) {
+                int[] bucket = surplus.get(next++);
+                moves.add(new BucketMove(bucket[0], bucket[1], shard));
+            }
+        }
+        return moves;
+    }
+
+    public List<BucketMove> rebalance() {
+        List<BucketMove> moves = plan();
+        move(moves);
+        return moves;
+    }
+
+    public BucketMove move(int bucket, int shard) {
+        if (bucket < 0 || bucket >= shardMap.bucketCount() || shard < 0 || shard >= shardMap.shardCount()) {
+            throw new IllegalArgumentException("No bucket " + bucket + " or shard " + shard);
+        }
+        BucketMove move = new BucketMove(bucket, shardMap.shardOfBucket(bucket), shard);
+        move(move.from() == move.to() ? List.of() : List.of(move));
+        return move;
+    }
+
+    public synchronized void move(List<BucketMove> moves) {
+        if (moves.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        log.info("Moving {} buckets between shards", moves.size());
+        moves.forEach(move -> shardMap.assign(move.bucket(), move.from(), true));
+        Map<Integer, Map<Integer, Integer>> bySource = new TreeMap<>();
+        moves.forEach(move -> bySource.computeIfAbsent(move.from(), shard -> new LinkedHashMap<>()).put(move.bucket(), move.to()));
+        try {
+            awaitPropagation();
+            bySource.forEach(this::copy);
+            moves.forEach(move -> shardMap.assign(move.bucket(), move.to(), true));
+            awaitPropagation();
+        } catch (RuntimeException ex) {
+            // the sources still hold every row; drop the partial copies and open the buckets again
+            log.error("Moving buckets failed, keeping them on their source shards", ex);
+            Map<Integer, Set<Integer>> byTarget = moves.stream().collect(Collectors.groupingBy(BucketMove::to,
+                    TreeMap::new, Collectors.mapping(BucketMove::bucket, Collectors.toSet())));
+            byTarget.forEach(this::delete);
+            moves.forEach(move -> shardMap.assign(move.bucket(), move.from(), false));
+            throw ex;
+        }
+        moves.forEach(move -> shardMap.assign(move.bucket(), move.to(), false));
+        bySource.forEach((source, targets) -> delete(source, targets.keySet()));
+        log.info("Moved {} buckets in {} ms", moves.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Deletes rows that a shard holds for buckets it does not own and that are not being moved.
+     */
+    public synchronized void purgeStrays() {
+        for (int shard = 0; shard < shardMap.shardCount(); shard++) {
+            int owner = shard;
+            Set<Integer> foreign = IntStream.range(0, shardMap.bucketCount())
+                    .filter(bucket -> shardMap.shardOfBucket(bucket) != owner && !shardMap.isMoving(bucket))
+                    .boxed()
+                    .collect(Collectors.toSet());
+            delete(shard, foreign);
+        }
+    }
+
+    private void copy(int source, Map<Integer, Integer> targets) {
+        JdbcTemplate from = new JdbcTemplate(dataSource.shard(source));
+        scan(from, targets.keySet(), ids -> {
+            Map<Integer, List<UUID>> byTarget = ids.stream().collect(Collectors.groupingBy(
+                    id -> targets.get(shardMap.bucketOf(id)), TreeMap::new, Collectors.toList()));
+            byTarget.forEach((target, moved) -> copyRows(from, target, moved));
+        });
+    }
+
+    private void copyRows(JdbcTemplate from, int target, List<UUID> ids) {
+        List<String> columns = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        from.query("SELECT * FROM user_entity WHERE id IN (" + placeholders(ids.size()) + ")", rs -> {
+            ResultSetMetaData metaData = rs.getMetaData();
+            if (columns.isEmpty()) {
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    columns.add(metaData.getColumnLabel(i));
+                }
+            }
+            Object[] row = new Object[columns.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = rs.getObject(i + 1);
+            }
+            rows.add(row);
+        }, ids.stream().map(UuidBytes::toBytes).toArray());
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        JdbcTemplate to = new JdbcTemplate(dataSource.shard(target));
+        String insert = "INSERT INTO user_entity (" + String.join(", ", columns) + ") VALUES (" + placeholders(columns.size()) + ")";
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource.shard(target))).executeWithoutResult(status -> {
+            to.batchUpdate(DELETE, ids.stream().map(id -> new Object[]{UuidBytes.toBytes(id)}).toList());
+            to.batchUpdate(insert, rows);
+        });
+    }
+
+    private void delete(int shard, Set<Integer> buckets) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource.shard(shard));
+        long[] deleted = new long[1];
+        // the scan's cursor is already past every id of the batch, so deleting them does not disturb it
+        scan(jdbcTemplate, buckets, doomed -> {
+            jdbcTemplate.batchUpdate(DELETE, doomed.stream().map(id -> new Object[]{UuidBytes.toBytes(id)}).toList());
+            deleted[0] += doomed.size();
+        });
+        if (deleted[0] > 0) {
+            log.info("Deleted {} users of foreign buckets from shard {}", deleted[0], shard);
+        }
+    }
+
+    /**
+     * Walks the ids of a shard in key order and hands over those in the buckets, one batch at a time.
+     */
+    private void scan(JdbcTemplate jdbcTemplate, Set<Integer> buckets, Consumer<List<UUID>> batchConsumer) {
+        byte[] after = new byte[16];
+        while (true) {
+            List<UUID> ids = jdbcTemplate.query(SCAN_IDS, (rs, rowNum) -> UuidBytes.fromBytes(rs.getBytes(1)), after, batchSize);
+            List<UUID> matching = ids.stream().filter(id -> buckets.contains(shardMap.bucketOf(id))).toList();
+            if (!matching.isEmpty()) {
+                batchConsumer.accept(matching);
+            }
+            if (ids.size() < batchSize) {
+                return;
+            }
+            after = UuidBytes.toBytes(ids.get(ids.size() - 1));
+        }
+    }
+
+    private void awaitPropagation() {
+        try {
+            Thread.sleep(propagationDelay.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shard map to propagate", ex);
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    public record BucketMove(int bucket, int from, int to) {
+    }
+}
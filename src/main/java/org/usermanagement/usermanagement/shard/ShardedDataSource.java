@@ -0,0 +1,89 @@
+package org.usermanagement.usermanagement.shard;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out connections of the shard selected by {@link ShardContext}. Put a lazy connection proxy in
+ * front of it, otherwise the transaction manager takes the connection before the shard is known.
+ */
+@Slf4j
+public class ShardedDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final List<DataSource> shards;
+    private final List<Counter> connections = new ArrayList<>();
+
+    public ShardedDataSource(List<DataSource> shards, MeterRegistry meterRegistry) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        for (int i = 0; i < shards.size(); i++) {
+            connections.add(Counter.builder("user.shard.connections").tag("shard", String.valueOf(i)).register(meterRegistry));
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int shard = ShardContext.current();
+        Connection connection = shard(shard).getConnection();
+        connections.get(shard).increment();
+        return connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    /**
+     * The pool of one shard, for work that addresses shards explicitly such as moving buckets.
+     */
+    public DataSource shard(int shard) {
+        if (shard < 0 || shard >= shards.size()) {
+            throw new IllegalStateException("Shard " + shard + " is not configured, there are " + shards.size() + " shards");
+        }
+        return shards.get(shard);
+    }
+
+    /**
+     * Schema management only runs on the first shard, so fail at startup if another shard was not
+     * provisioned instead of on the first request routed to it.
+     */
+    public void requireTable(String table) {
+        for (int i = 0; i < shards.size(); i++) {
+            try (Connection connection = shards.get(i).getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.executeQuery("SELECT 1 FROM " + table + " WHERE 1 = 0").close();
+            } catch (SQLException ex) {
+                throw new IllegalStateException("Shard " + i + " has no usable " + table + " table: " + ex.getMessage(), ex);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < shards.size(); i++) {
+            if (shards.get(i) instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception ex) {
+                    log.warn("Could not close shard {}", i, ex);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.usermanagement.usermanagement.shard;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Rebalancing tooling, exposed over JMX as org.springframework.boot:type=Endpoint,name=Shards: shards
+ * shows how buckets are spread and the moves that would even them out, rebalance carries those moves
+ * out, move sends one bucket to a shard, and purgeStrays removes rows left behind on shards that no
+ * longer own them. Moves copy rows and can take minutes; they run on the calling thread. The project
+ * has no authentication on its web port, so keep this endpoint out of the web exposure.
+ */
+@Endpoint(id = "shards")
+public class ShardsEndpoint {
+
+    private final ShardMap shardMap;
+    private final ShardRebalancer rebalancer;
+
+    public ShardsEndpoint(ShardMap shardMap, ShardRebalancer rebalancer) {
+        this.shardMap = shardMap;
+        this.rebalancer = rebalancer;
+    }
+
+    @ReadOperation
+    public ShardStatus shards() {
+        Map<Integer, Long> bucketsPerShard = new TreeMap<>();
+        IntStream.range(0, shardMap.shardCount()).forEach(shard -> bucketsPerShard.put(shard, 0L));
+        IntStream.range(0, shardMap.bucketCount()).forEach(bucket -> bucketsPerShard.merge(shardMap.shardOfBucket(bucket), 1L, Long::sum));
+        List<Integer> moving = IntStream.range(0, shardMap.bucketCount()).filter(shardMap::isMoving).boxed().toList();
+        return new ShardStatus(shardMap.shardCount(), shardMap.bucketCount(), bucketsPerShard, moving, rebalancer.plan());
+    }
+
+    @WriteOperation
+    public List<ShardRebalancer.BucketMove> rebalance() {
+        return rebalancer.rebalance();
+    }
+
+    @WriteOperation
+    public ShardRebalancer.BucketMove move(@Selector int bucket, int shard) {
+        return rebalancer.move(bucket, shard);
+    }
+
+    @DeleteOperation
+    public void purgeStrays() {
+        rebalancer.purgeStrays();
+    }
+
+    public record ShardStatus(int shards, int buckets, Map<Integer, Long> bucketsPerShard, List<Integer> movingBuckets,
+                              List<ShardRebalancer.BucketMove> plannedMoves) {
+    }
+}
@@ -0,0 +1,404 @@
+package org.usermanagement.usermanagement.shard;
+
+import com.github.f4b6a3.uuid.UuidCreator;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ReflectionUtils;
+import org.usermanagement.usermanagement.aspect.RepositoryBulkheadAspect;
+import org.usermanagement.usermanagement.exception.BadRequestException;
+import org.usermanagement.usermanagement.exception.DuplicateEntityException;
+import org.usermanagement.usermanagement.exception.ServiceUnavailableException;
+import org.usermanagement.usermanagement.metrics.QueryCountStatementInspector;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Routes the repository work of the user service to the shards: single users to the shard of their
+ * id, id lists split by shard, and queries over all users scattered to every shard and merged. With
+ * sharding off every method falls through to a single call on the calling thread, in its transaction.
+ */
+@Component
+public class UserShards implements AutoCloseable {
+
+    /**
+     * The order MySQL sorts BINARY(16) ids in; UUID.compareTo compares the halves as signed numbers.
+     */
+    public static final Comparator<UUID> ID_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private static final int MAX_ID_ATTEMPTS = 100;
+
+    private final ShardMap shardMap;
+    private final EmailDirectory emailDirectory;
+    private final PlatformTransactionManager transactionManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+
+    @Autowired
+    public UserShards(ObjectProvider<ShardMap> shardMap, ObjectProvider<EmailDirectory> emailDirectory,
+                      PlatformTransactionManager transactionManager) {
+        this(shardMap.getIfAvailable(), emailDirectory.getIfAvailable(), transactionManager);
+    }
+
+    /**
+     * @param shardMap null when sharding is off
+     */
+    public UserShards(ShardMap shardMap, EmailDirectory emailDirectory, PlatformTransactionManager transactionManager) {
+        this.shardMap = shardMap;
+        this.emailDirectory = emailDirectory;
+        this.transactionManager = transactionManager;
+        this.readOnlyTransaction = transactionManager == null ? null : new TransactionTemplate(transactionManager);
+        if (readOnlyTransaction != null) {
+            readOnlyTransaction.setReadOnly(true);
+        }
+        this.executor = shardMap == null ? null : Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    public boolean isEnabled() {
+        return shardMap != null;
+    }
+
+    public int count() {
+        return isEnabled() ? shardMap.shardCount() : 1;
+    }
+
+    /**
+     * An id for a new user, outside the buckets being moved. Null without sharding, where ids are
+     * left to Hibernate.
+     */
+    public UUID newId() {
+        if (!isEnabled()) {
+            return null;
+        }
+        for (int attempt = 0; attempt < MAX_ID_ATTEMPTS; attempt++) {
+            UUID id = UuidCreator.getTimeOrderedEpoch();
+            if (!shardMap.isMoving(shardMap.bucketOf(id))) {
+                return id;
+            }
+        }
+        throw new ServiceUnavailableException("Shards are being rebalanced, please retry later");
+    }
+
+    public ShardContext.Scope route(UUID userId) {
+        return isEnabled() && userId != null ? ShardContext.on(shardMap.shardOf(userId)) : ShardContext.none();
+    }
+
+    /**
+     * Like {@link #route(UUID)}, but refuses users whose bucket is being copied to another shard.
+     */
+    public ShardContext.Scope routeForWrite(UUID userId) {
+        if (!isEnabled() || userId == null) {
+            return ShardContext.none();
+        }
+        checkWritable(List.of(userId));
+        return ShardContext.on(shardMap.shardOf(userId));
+    }
+
+    public void checkWritable(Collection<UUID> userIds) {
+        if (!isEnabled()) {
+            return;
+        }
+        for (UUID userId : userIds) {
+            if (shardMap.isMoving(shardMap.bucketOf(userId))) {
+                throw new ServiceUnavailableException("User " + userId + " is being moved to another shard, please retry later");
+            }
+        }
+    }
+
+    /**
+     * Runs the query on every shard in parallel, each in its own read-only transaction, and returns
+     * one result per shard in shard order.
+     */
+    public <T> List<T> scatter(IntFunction<T> query) {
+        if (!isEnabled()) {
+            return Collections.singletonList(query.apply(ShardContext.DIRECTORY));
+        }
+        return invokeAll(IntStream.range(0, count()).mapToObj(shard -> onShard(shard, query)).toList());
+    }
+
+    /**
+     * Like {@link #scatter(IntFunction)} for queries over all users, dropping the rows a shard holds
+     * for buckets it does not own: while a bucket moves its rows exist on both shards.
+     */
+    public <T> List<List<T>> scatterOwned(IntFunction<List<T>> query, Function<? super T, UUID> userId) {
+        return scatter(shard -> owned(shard, query.apply(shard), userId));
+    }
+
+    /**
+     * Splits the ids by shard and runs the query once per shard with its ids, in parallel.
+     */
+    public <T> List<T> scatter(List<UUID> userIds, Function<List<UUID>, List<T>> query) {
+        if (!isEnabled()) {
+            return query.apply(userIds);
+        }
+        List<Callable<List<T>>> tasks = groupByShard(userIds, Function.identity()).entrySet().stream()
+                .map(ids -> onShard(ids.getKey(), shard -> query.apply(ids.getValue())))
+                .toList();
+        return invokeAll(tasks).stream().flatMap(List::stream).toList();
+    }
+
+    /**
+     * Runs the action once per shard on the calling thread, routed to that shard. For work that opens
+     * its own transactions, such as the outbox relay or an index rebuild.
+     */
+    public void forEachShard(IntConsumer action) {
+        if (!isEnabled()) {
+            action.accept(ShardContext.DIRECTORY);
+            return;
+        }
+        for (int shard = 0; shard < count(); shard++) {
+            try (ShardContext.Scope scope = ShardContext.on(shard)) {
+                action.accept(shard);
+            }
+        }
+    }
+
+    /**
+     * Splits the ids by shard and runs the write once per shard on the calling thread, routed to it.
+     */
+    public void writeByShard(List<UUID> userIds, Consumer<List<UUID>> write) {
+        if (!isEnabled()) {
+            write.accept(userIds);
+            return;
+        }
+        checkWritable(userIds);
+        groupByShard(userIds, Function.identity()).forEach((shard, ids) -> {
+            try (ShardContext.Scope scope = ShardContext.on(shard)) {
+                write.accept(ids);
+            }
+        });
+    }
+
+    /**
+     * Concatenates one stream per shard. Each shard is read in a new read-only transaction, begun when
+     * the previous shard is exhausted and committed when its stream is closed: every shard is read from
+     * one snapshot, but not all shards from the same one. Rows of buckets a shard does not own are dropped.
+     */
+    public <T> Stream<T> streamAll(int isolation, Supplier<Stream<T>> query, Function<? super T, UUID> userId) {
+        if (!isEnabled()) {
+            return query.get();
+        }
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        definition.setReadOnly(true);
+        definition.setIsolationLevel(isolation);
+        return IntStream.range(0, count()).boxed().flatMap(shard -> {
+            TransactionStatus status = transactionManager.getTransaction(definition);
+            try (ShardContext.Scope scope = ShardContext.on(shard)) {
+                return query.get()
+                        .filter(item -> shardMap.shardOf(userId.apply(item)) == shard)
+                        .onClose(() -> transactionManager.commit(status));
+            } catch (RuntimeException ex) {
+                transactionManager.rollback(status);
+                throw ex;
+            }
+        });
+    }
+
+    public <T> List<T> owned(int shard, List<T> items, Function<? super T, UUID> userId) {
+        if (!isEnabled() || items.stream().allMatch(item -> shardMap.shardOf(userId.apply(item)) == shard)) {
+            return items;
+        }
+        return items.stream().filter(item -> shardMap.shardOf(userId.apply(item)) == shard).toList();
+    }
+
+    public <T> Map<Integer, List<T>> groupByShard(Collection<T> items, Function<? super T, UUID> userId) {
+        Map<Integer, List<T>> byShard = new TreeMap<>();
+        for (T item : items) {
+            int shard = isEnabled() ? shardMap.shardOf(userId.apply(item)) : ShardContext.DIRECTORY;
+            byShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(item);
+        }
+        return byShard;
+    }
+
+    /**
+     * Claims the email in the directory. Inside a transaction the claim is given back if the
+     * transaction rolls back; outside of one the caller releases it on failure.
+     *
+     * @return false if another user has the email
+     */
+    public boolean claimEmail(String email, UUID userId) {
+        if (!isEnabled()) {
+            return true;
+        }
+        if (!emailDirectory.claim(email, userId)) {
+            return false;
+        }
+        afterCompletion(committed -> {
+            if (!committed) {
+                emailDirectory.release(email, userId);
+            }
+        });
+        return true;
+    }
+
+    public void releaseEmail(String email, UUID userId) {
+        if (isEnabled()) {
+            emailDirectory.release(email, userId);
+        }
+    }
+
+    /**
+     * Claims the new email of a user right away and gives the old one back once the change commits.
+     */
+    public void changeEmail(UUID userId, String previous, String email) {
+        if (!isEnabled() || email == null || email.equalsIgnoreCase(previous)) {
+            return;
+        }
+        if (!claimEmail(email, userId)) {
+            throw new DuplicateEntityException("User already exists with email: " + email);
+        }
+        afterCompletion(committed -> {
+            if (committed) {
+                emailDirectory.release(previous, userId);
+            }
+        });
+    }
+
+    public List<String> findExistingEmails(Collection<String> emails) {
+        return emailDirectory.findExisting(emails);
+    }
+
+    /**
+     * Merges results that each shard returned in the given order, then skips and limits like a query
+     * on a single database would have.
+     */
+    public static <T> List<T> merge(List<? extends List<T>> perShard, Comparator<? super T> order, long skip, int limit) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>((a, b) -> order.compare(a.value(), b.value()));
+        for (List<T> shard : perShard) {
+            Iterator<T> rest = shard.iterator();
+            if (rest.hasNext()) {
+                heads.add(new Head<>(rest.next(), rest));
+            }
+        }
+        List<T> merged = new ArrayList<>(Math.min(limit, 1024));
+        long skipped = 0;
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Head<T> head = heads.poll();
+            if (skipped < skip) {
+                skipped++;
+            } else {
+                merged.add(head.value());
+            }
+            if (head.rest().hasNext()) {
+                heads.add(new Head<>(head.rest().next(), head.rest()));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Orders items the way the database sorted them for the given Sort, with strings compared
+     * case-insensitively as under MySQL's default collation. Only properties of the item type can be
+     * merged in memory.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Comparator<T> comparator(Sort sort, Class<T> type) {
+        Comparator<T> comparator = null;
+        for (Sort.Order order : sort) {
+            PropertyDescriptor property = BeanUtils.getPropertyDescriptor(type, order.getProperty());
+            if (property == null || property.getReadMethod() == null) {
+                throw new BadRequestException("Cannot sort by " + order.getProperty());
+            }
+            Method read = property.getReadMethod();
+            Comparator<Object> values = Comparator.nullsFirst((a, b) -> {
+                if (a instanceof String left && b instanceof String right) {
+                    return left.compareToIgnoreCase(right);
+                }
+                if (a instanceof UUID left && b instanceof UUID right) {
+                    return ID_ORDER.compare(left, right);
+                }
+                return ((Comparable<Object>) a).compareTo(b);
+            });
+            Comparator<T> byProperty = Comparator.comparing(item -> ReflectionUtils.invokeMethod(read, item), values);
+            if (order.isDescending()) {
+                byProperty = byProperty.reversed();
+            }
+            comparator = comparator == null ? byProperty : comparator.thenComparing(byProperty);
+        }
+        return comparator;
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private <T> Callable<T> onShard(int shard, IntFunction<T> query) {
+        return QueryCountStatementInspector.onCallersCount(RepositoryBulkheadAspect.onCallersPermit(() -> {
+            try (ShardContext.Scope scope = ShardContext.on(shard)) {
+                return readOnlyTransaction.execute(status -> query.apply(shard));
+            }
+        }));
+    }
+
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        try {
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> result : executor.invokeAll(tasks)) {
+                results.add(result.get());
+            }
+            return results;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while querying the shards");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private static void afterCompletion(Consumer<Boolean> callback) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    callback.accept(status == STATUS_COMMITTED);
+                }
+            });
+        }
+    }
+
+    private record Head<T>(T value, Iterator<T> rest) {
+    }
+}
@@ -0,0 +1,22 @@
+package org.usermanagement.usermanagement.shard;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Ids as stored in BINARY(16) columns, for the shard tooling that talks JDBC directly.
+ */
+final class UuidBytes {
+
+    private UuidBytes() {
+    }
+
+    static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+
+    static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,43 @@
+package org.usermanagement.usermanagement.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.security.Principal;
+import java.util.Collection;
+
+/**
+ * Identifies the caller of a request for per-client bookkeeping such as rate limits. The client
+ * header is caller-supplied, so it is only believed when the request comes from a trusted proxy
+ * that sets it; anyone else could pick a fresh value per request and never run out of budget.
+ */
+public final class ClientKeys {
+
+    private static final int MAX_LENGTH = 64;
+
+    private ClientKeys() {
+    }
+
+    /**
+     * The authenticated principal if there is one, else the given header when the request was
+     * forwarded by one of the trusted proxies, else the remote address.
+     */
+    public static String resolve(HttpServletRequest request, String header, Collection<String> trustedProxies) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return bounded("user:" + principal.getName());
+        }
+        String remoteAddress = request.getRemoteAddr();
+        if (trustedProxies.contains(remoteAddress)) {
+            String client = request.getHeader(header);
+            if (client != null && !client.isBlank()) {
+                return bounded(client);
+            }
+        }
+        return remoteAddress;
+    }
+
+    // an unbounded value would let one caller fill per-client maps with huge keys
+    private static String bounded(String client) {
+        return client.length() > MAX_LENGTH ? client.substring(0, MAX_LENGTH) : client;
+    }
+}
@@ -0,0 +1,84 @@
+package org.usermanagement.usermanagement.util;
+
+import org.usermanagement.usermanagement.exception.PreconditionFailedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Strong ETags derived from the entity version. The version is unique per resource, so the quoted
+ * version number is enough to tell two representations of the same user apart.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Weak comparison as required for If-None-Match: "*" or any listed tag, with or without W/.
+     */
+    public static boolean matchesAny(String ifNoneMatch, Long version) {
+        String expected = of(version);
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.equals("*") || candidate.equals(expected) || candidate.equals("W/" + expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the version a client expects from If-Match. Returns null for "*", which only requires the
+     * resource to exist. A list of tags is resolved against the current version, which is only read
+     * when more than one strong tag is listed; the update checks it again against the row.
+     */
+    public static Long expectedVersion(String ifMatch, Supplier<Long> currentVersion) {
+        List<Long> versions = expectedVersions(ifMatch);
+        if (versions == null) {
+            return null;
+        }
+        return versions.size() == 1 ? versions.get(0) : select(versions, currentVersion.get());
+    }
+
+    /**
+     * The versions listed in If-Match, or null for "*". Weak tags cannot satisfy If-Match and are
+     * skipped; a header without any strong tag can never match.
+     */
+    public static List<Long> expectedVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        List<Long> versions = new ArrayList<>();
+        for (String part : ifMatch.split(",")) {
+            String tag = part.trim();
+            if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+                continue;
+            }
+            try {
+                versions.add(Long.parseLong(tag.substring(1, tag.length() - 1)));
+            } catch (NumberFormatException ex) {
+                // not one of our tags, so it cannot match
+            }
+        }
+        if (versions.isEmpty()) {
+            throw new PreconditionFailedException("If-Match does not match the current version");
+        }
+        return versions;
+    }
+
+    /**
+     * @return the current version if If-Match lists it
+     */
+    public static Long select(List<Long> versions, Long currentVersion) {
+        if (!versions.contains(currentVersion)) {
+            throw new PreconditionFailedException("If-Match does not match the current version");
+        }
+        return currentVersion;
+    }
+}
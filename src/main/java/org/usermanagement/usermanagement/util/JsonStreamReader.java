@@ -0,0 +1,72 @@
+package org.usermanagement.usermanagement.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.usermanagement.usermanagement.exception.BadRequestException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Reads a request body element by element so bulk payloads never have to be held in memory.
+ * Accepts NDJSON, a bare JSON array, or the usual {"data": [...]} request envelope.
+ */
+@Component
+@RequiredArgsConstructor
+public class JsonStreamReader {
+
+    private final ObjectMapper objectMapper;
+
+    public <T> Iterator<T> read(InputStream body, MediaType contentType, Class<T> type) {
+        try {
+            ObjectReader reader = objectMapper.readerFor(type);
+            if (MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)) {
+                return new BadRequestIterator<>(reader.readValues(body));
+            }
+
+            JsonParser parser = objectMapper.getFactory().createParser(body);
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                if (parser.nextToken() != JsonToken.FIELD_NAME || !"data".equals(parser.currentName())) {
+                    throw new BadRequestException("Bulk payload must contain a 'data' array");
+                }
+                token = parser.nextToken();
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new BadRequestException("Bulk payload must be a JSON array");
+            }
+            parser.nextToken();
+            return new BadRequestIterator<>(reader.readValues(parser));
+        } catch (IOException ex) {
+            throw new BadRequestException("Malformed bulk payload: " + ex.getMessage());
+        }
+    }
+
+    private record BadRequestIterator<T>(MappingIterator<T> delegate) implements Iterator<T> {
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return delegate.hasNext();
+            } catch (RuntimeException ex) {
+                throw new BadRequestException("Malformed bulk payload: " + ex.getMessage());
+            }
+        }
+
+        @Override
+        public T next() {
+            try {
+                return delegate.next();
+            } catch (RuntimeException ex) {
+                throw new BadRequestException("Malformed bulk payload: " + ex.getMessage());
+            }
+        }
+    }
+}
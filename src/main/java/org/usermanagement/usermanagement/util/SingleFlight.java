@@ -0,0 +1,102 @@
+package org.usermanagement.usermanagement.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one: the first caller runs the loader, callers
+ * arriving while it runs wait for its result or rethrow its exception. Nothing is kept once the
+ * call finished, so this deduplicates in-flight work only. Waiters block on a CompletableFuture
+ * rather than inside a synchronized block or a ConcurrentHashMap compute, so virtual threads
+ * unmount instead of pinning their carrier while the leader queries the database.
+ */
+@Component
+public class SingleFlight {
+
+    private final Map<Key, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+    private final Map<String, Counter> executed = new ConcurrentHashMap<>();
+    private final Map<String, Counter> coalesced = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("user.singleflight.inflight", calls, Map::size).register(meterRegistry);
+    }
+
+    public <T> T execute(String name, Object key, Supplier<T> loader) {
+        return execute(name, key, loader, value -> {
+        });
+    }
+
+    /**
+     * @param name         the operation, used as metric tag and to keep keys of different operations apart
+     * @param onSuperseded run by the caller that loaded the value if {@link #forget} was called for
+     *                     the key while it was loading, e.g. to drop a value it already cached
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, Object key, Supplier<T> loader, Consumer<? super T> onSuperseded) {
+        Key callKey = new Key(name, key);
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> running = calls.putIfAbsent(callKey, call);
+        if (running != null) {
+            counter(coalesced, name, "coalesced").increment();
+            try {
+                return (T) running.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+
+        counter(executed, name, "executed").increment();
+        T result;
+        try {
+            result = loader.get();
+        } catch (RuntimeException | Error ex) {
+            calls.remove(callKey, call);
+            call.completeExceptionally(ex);
+            throw ex;
+        }
+        // deregister after the loader published its result, so a forget that raced with the load
+        // is seen either here or by whoever called forget after the result was published
+        if (!calls.remove(callKey, call)) {
+            onSuperseded.accept(result);
+        }
+        call.complete(result);
+        return result;
+    }
+
+    /**
+     * Detaches the call in flight for the key, if any: later callers start a fresh load and the
+     * running one is told through its onSuperseded callback. Callers already waiting still get its result.
+     */
+    public void forget(String name, Object key) {
+        calls.remove(new Key(name, key));
+    }
+
+    public void forgetAll(String name) {
+        calls.keySet().removeIf(key -> key.name().equals(name));
+    }
+
+    private Counter counter(Map<String, Counter> counters, String name, String outcome) {
+        return counters.computeIfAbsent(name, n -> Counter.builder("user.singleflight.calls")
+                .description("Calls that ran the loader or joined a call already in flight")
+                .tag("name", n)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private record Key(String name, Object key) {
+    }
+}
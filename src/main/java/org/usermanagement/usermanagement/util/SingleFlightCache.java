@@ -0,0 +1,112 @@
+package org.usermanagement.usermanagement.util;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Routes the loads of {@code @Cacheable(sync = true)} through {@link SingleFlight} instead of the
+ * underlying Caffeine compute, which would block concurrent callers on a map bin lock for the length
+ * of the database query and pin virtual threads to their carriers. A value whose key is evicted
+ * while it loads is dropped again, so a read racing with an update cannot leave the old row cached.
+ */
+public class SingleFlightCache implements Cache {
+
+    private final Cache target;
+    private final SingleFlight singleFlight;
+
+    public SingleFlightCache(Cache target, SingleFlight singleFlight) {
+        this.target = target;
+        this.singleFlight = singleFlight;
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return target.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return target.get(key, type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = target.get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        try {
+            return singleFlight.execute(getName(), key, () -> {
+                T value = call(valueLoader);
+                target.put(key, value);
+                return value;
+            }, value -> target.evict(key));
+        } catch (LoaderException ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        target.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return target.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        singleFlight.forget(getName(), key);
+        target.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        singleFlight.forget(getName(), key);
+        return target.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        singleFlight.forgetAll(getName());
+        target.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        singleFlight.forgetAll(getName());
+        return target.invalidate();
+    }
+
+    private static <T> T call(Callable<T> valueLoader) {
+        try {
+            return valueLoader.call();
+        } catch (Exception ex) {
+            throw new LoaderException(ex);
+        }
+    }
+
+    /**
+     * Carries checked and unchecked loader failures through SingleFlight to every waiting caller.
+     */
+    private static final class LoaderException extends RuntimeException {
+
+        LoaderException(Throwable cause) {
+            super(null, cause, false, false);
+        }
+    }
+}
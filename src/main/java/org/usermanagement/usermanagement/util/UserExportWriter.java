@@ -0,0 +1,107 @@
+package org.usermanagement.usermanagement.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.enums.ExportFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes users to an output stream one at a time, the counterpart of {@link JsonStreamReader}.
+ * Nothing is buffered beyond a fixed size write buffer, so memory does not grow with the export.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserExportWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "id,firstName,lastName,email,phoneNumber,version";
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @return the number of users written
+     */
+    public long write(Stream<UserDto> users, ExportFormat format, boolean gzip, OutputStream out) {
+        try {
+            GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(compressed != null ? compressed : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            long count = format == ExportFormat.CSV ? writeCsv(users.iterator(), writer) : writeNdjson(users.iterator(), writer);
+            writer.flush();
+            if (compressed != null) {
+                compressed.finish();
+            }
+            return count;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("User export aborted", ex);
+        }
+    }
+
+    private long writeNdjson(Iterator<UserDto> users, Writer writer) throws IOException {
+        long count = 0;
+        // flushing after every row would push each line through gzip and the socket on its own
+        SequenceWriter sequence = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n")
+                .writeValues(writer);
+        while (users.hasNext()) {
+            sequence.write(users.next());
+            count++;
+        }
+        sequence.flush();
+        if (count > 0) {
+            writer.write('\n');
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<UserDto> users, Writer writer) throws IOException {
+        long count = 0;
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (users.hasNext()) {
+            UserDto user = users.next();
+            writer.write(String.valueOf(user.getId()));
+            writer.write(',');
+            writeCsvField(writer, user.getFirstName());
+            writer.write(',');
+            writeCsvField(writer, user.getLastName());
+            writer.write(',');
+            writeCsvField(writer, user.getEmail());
+            writer.write(',');
+            writeCsvField(writer, user.getPhoneNumber());
+            writer.write(',');
+            writer.write(user.getVersion() == null ? "" : user.getVersion().toString());
+            writer.write('\n');
+            count++;
+        }
+        return count;
+    }
+
+    // RFC 4180 quoting, only when the value needs it
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,112 @@
+package org.usermanagement.usermanagement.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.usermanagement.usermanagement.config.CacheConfig;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.enums.UserEventType;
+import org.usermanagement.usermanagement.event.UserChangedEvent;
+import org.usermanagement.usermanagement.util.SingleFlight;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two instances with their own users cache, connected by an in-JVM bus.
+ */
+class NearCacheInvalidatorTest {
+
+    private final LocalInvalidationBus bus = new LocalInvalidationBus();
+    private final UUID userId = UUID.randomUUID();
+
+    private Node nodeA;
+    private Node nodeB;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = new Node(bus);
+        nodeB = new Node(bus);
+    }
+
+    @Test
+    @DisplayName("Should evict an older copy on other instances when a user changes")
+    void updateEvictsOtherInstances() {
+        nodeA.cache.put(userId, user(1));
+        nodeB.cache.put(userId, user(1));
+
+        nodeA.invalidator.onUserChanged(UserChangedEvent.of(UserEventType.UPDATED, user(2)));
+
+        assertThat(nodeA.cache.get(userId)).isNull();
+        assertThat(nodeB.cache.get(userId)).isNull();
+        assertThat(nodeB.meterRegistry.get("user.cache.invalidations").tag("outcome", "evicted").counter().count()).isEqualTo(1);
+        assertThat(nodeB.meterRegistry.get("user.cache.staleness").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should ignore an invalidation that arrives after a newer version was cached")
+    void reorderedInvalidationKeepsNewerEntry() {
+        nodeB.cache.put(userId, user(5));
+
+        bus.publish(List.of(new UserInvalidation(userId, 4, Instant.now())));
+
+        assertThat(nodeB.cache.get(userId, UserDto.class).getVersion()).isEqualTo(5);
+        assertThat(nodeB.meterRegistry.get("user.cache.invalidations").tag("outcome", "current").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not cache a load that read a version older than an invalidation already received")
+    void staleLoadIsNotCached() {
+        bus.publish(List.of(new UserInvalidation(userId, 3, Instant.now())));
+
+        nodeB.cache.put(userId, user(2));
+        assertThat(nodeB.cache.get(userId)).isNull();
+        assertThat(nodeB.meterRegistry.get("user.cache.stale.puts.rejected").functionCounter().count()).isEqualTo(1);
+
+        nodeB.cache.put(userId, user(3));
+        assertThat(nodeB.cache.get(userId, UserDto.class).getVersion()).isEqualTo(3);
+
+        nodeB.cache.put(userId, user(2));
+        assertThat(nodeB.cache.get(userId, UserDto.class).getVersion()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should keep a deleted user out of every cache regardless of version")
+    void deleteOutranksVersions() {
+        nodeB.cache.put(userId, user(7));
+
+        nodeA.invalidator.onUserChanged(UserChangedEvent.of(UserEventType.DELETED, user(7)));
+        nodeB.cache.put(userId, user(8));
+
+        assertThat(nodeB.cache.get(userId)).isNull();
+    }
+
+    private UserDto user(long version) {
+        UserDto user = new UserDto(userId, "John", "Doe", "john.doe@example.com", null, null);
+        user.setVersion(version);
+        return user;
+    }
+
+    private static final class Node {
+
+        private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        private final Cache cache;
+        private final NearCacheInvalidator invalidator;
+
+        private Node(InvalidationBus bus) {
+            UserManagementProperties properties = new UserManagementProperties();
+            VersionFloors versionFloors = new VersionFloors(properties);
+            CacheManager cacheManager = new CacheConfig().cacheManager(properties, new SingleFlight(meterRegistry), versionFloors);
+            cache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+            invalidator = new NearCacheInvalidator(bus, cacheManager, versionFloors, meterRegistry);
+        }
+    }
+}
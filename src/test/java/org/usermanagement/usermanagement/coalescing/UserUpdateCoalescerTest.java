@@ -0,0 +1,148 @@
+package org.usermanagement.usermanagement.coalescing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.exception.DuplicateEntityException;
+import org.usermanagement.usermanagement.mapper.UserMapper;
+import org.usermanagement.usermanagement.service.impl.UserService;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Patches arrive from separate threads, like concurrent requests. The window is long, so batches are
+ * written when they reach the maximum size.
+ */
+class UserUpdateCoalescerTest {
+
+    private final UUID userId = UUID.randomUUID();
+    private final UserService userService = mock(UserService.class);
+    private final ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private UserUpdateCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        UserManagementProperties properties = new UserManagementProperties();
+        properties.getUpdateCoalescing().setEnabled(true);
+        properties.getUpdateCoalescing().setWindow(Duration.ofSeconds(10));
+        properties.getUpdateCoalescing().setMaxBatchSize(2);
+        coalescer = new UserUpdateCoalescer(userService, Mappers.getMapper(UserMapper.class), properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        requests.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should write a burst of patches as one update and return the merged user to every caller")
+    void mergesPatchesInArrivalOrder() throws Exception {
+        UserDto updated = user(7L);
+        when(userService.updateUser(any(), eq(userId), isNull())).thenReturn(updated);
+
+        Future<UserDto> first = openBatch(patch("Dipesh", null, "+9779800000000"));
+        Future<UserDto> second = patch(patch("Deepesh", "Ghimire", null));
+
+        assertThat(first.get()).isSameAs(updated);
+        assertThat(second.get()).isSameAs(updated);
+        ArgumentCaptor<UserDto> merged = ArgumentCaptor.forClass(UserDto.class);
+        verify(userService).updateUser(merged.capture(), eq(userId), isNull());
+        assertThat(merged.getValue().getFirstName()).isEqualTo("Deepesh");
+        assertThat(merged.getValue().getLastName()).isEqualTo("Ghimire");
+        assertThat(merged.getValue().getPhoneNumber()).isEqualTo("+9779800000000");
+        assertThat(meterRegistry.get("user.update.coalesced").summary().totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should apply the patches one by one when the merged update fails, failing only the request at fault")
+    void fallsBackToSingleUpdates() throws Exception {
+        UserDto updated = user(8L);
+        when(userService.updateUser(any(), eq(userId), isNull())).thenAnswer(invocation -> {
+            UserDto user = invocation.getArgument(0);
+            if (user.getEmail() != null) {
+                throw new DuplicateEntityException("User already exists with email: " + user.getEmail());
+            }
+            return updated;
+        });
+        UserDto taken = patch(null, null, null);
+        taken.setEmail("taken@example.com");
+
+        Future<UserDto> failing = patch(taken);
+        Future<UserDto> succeeding = patch(patch("Dipesh", null, null));
+
+        assertThat(succeeding.get()).isSameAs(updated);
+        assertThatThrownBy(failing::get).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(DuplicateEntityException.class);
+        verify(userService, times(3)).updateUser(any(), eq(userId), isNull());
+    }
+
+    @Test
+    @DisplayName("Should never merge a request that carries If-Match")
+    void conditionalUpdatesBypassBatches() {
+        UserDto patch = patch("Dipesh", null, null);
+        UserDto updated = user(4L);
+        when(userService.updateUser(patch, userId, 3L)).thenReturn(updated);
+
+        assertThat(coalescer.updateUser(patch, userId, 3L)).isSameAs(updated);
+        verify(userService).updateUser(patch, userId, 3L);
+    }
+
+    private Future<UserDto> patch(UserDto patch) {
+        return requests.submit(() -> coalescer.updateUser(patch, userId, null));
+    }
+
+    /**
+     * Sends a patch and returns once it opened the batch: the leader parks waiting for the batch to
+     * fill only after it joined, so later patches are guaranteed to come after it.
+     */
+    private Future<UserDto> openBatch(UserDto patch) throws InterruptedException {
+        FutureTask<UserDto> leader = new FutureTask<>(() -> coalescer.updateUser(patch, userId, null));
+        Thread thread = Thread.ofVirtual().start(leader);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.TIMED_WAITING) {
+            assertThat(System.nanoTime()).as("first patch opening the batch").isLessThan(deadline);
+            Thread.sleep(1);
+        }
+        return leader;
+    }
+
+    private static UserDto patch(String firstName, String lastName, String phoneNumber) {
+        UserDto patch = new UserDto();
+        patch.setFirstName(firstName);
+        patch.setLastName(lastName);
+        patch.setPhoneNumber(phoneNumber);
+        return patch;
+    }
+
+    private UserDto user(long version) {
+        UserDto user = patch("Deepesh", "Ghimire", "+9779800000000");
+        user.setId(userId);
+        user.setEmail("dipesh@example.com");
+        user.setVersion(version);
+        return user;
+    }
+}
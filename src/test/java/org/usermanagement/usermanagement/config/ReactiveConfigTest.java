@@ -0,0 +1,45 @@
+package org.usermanagement.usermanagement.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The converters must produce the BINARY(16) layout Hibernate writes, so rows stay readable by both stacks.
+ */
+class ReactiveConfigTest {
+
+    private static final UUID ID = UUID.fromString("0190f7a2-3b4c-7d5e-8f60-718293a4b5c6");
+    private static final byte[] BYTES = HexFormat.of().parseHex("0190f7a23b4c7d5e8f60718293a4b5c6");
+
+    @Test
+    @DisplayName("Should write the UUID in its own byte order, most significant bits first")
+    void writesUuidByteOrder() {
+        assertThat(ReactiveConfig.UuidToBytes.INSTANCE.convert(ID)).isEqualTo(BYTES);
+    }
+
+    @Test
+    @DisplayName("Should read back what it wrote, from a byte array and from a driver buffer")
+    void readsBothRepresentations() {
+        UUID id = UUID.randomUUID();
+        byte[] bytes = ReactiveConfig.UuidToBytes.INSTANCE.convert(id);
+
+        assertThat(ReactiveConfig.BytesToUuid.INSTANCE.convert(bytes)).isEqualTo(id);
+        assertThat(ReactiveConfig.ByteBufferToUuid.INSTANCE.convert(ByteBuffer.wrap(bytes))).isEqualTo(id);
+        assertThat(ReactiveConfig.BytesToUuid.INSTANCE.convert(BYTES)).isEqualTo(ID);
+    }
+
+    @Test
+    @DisplayName("Should read from the buffer position without consuming the driver's buffer")
+    void leavesBufferUntouched() {
+        ByteBuffer buffer = ByteBuffer.allocate(20).put(new byte[4]).put(BYTES).position(4);
+
+        assertThat(ReactiveConfig.ByteBufferToUuid.INSTANCE.convert(buffer)).isEqualTo(ID);
+        assertThat(buffer.position()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,168 @@
+package org.usermanagement.usermanagement.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.exception.DuplicateEntityException;
+import org.usermanagement.usermanagement.exception.GlobalExceptionHandler;
+import org.usermanagement.usermanagement.exception.PreconditionFailedException;
+import org.usermanagement.usermanagement.exception.ResourceNotFoundException;
+import org.usermanagement.usermanagement.service.impl.ReactiveUserService;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Binds the controller and GlobalExceptionHandler to WebFlux without a server, so status codes,
+ * headers and the error body are the ones a client of the reactive profile sees.
+ */
+class ReactiveUserControllerTest {
+
+    private static final String USERS = "/v/api/users";
+
+    private final ReactiveUserService reactiveUserService = mock(ReactiveUserService.class);
+    private final UUID userId = UUID.randomUUID();
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = WebTestClient.bindToController(new ReactiveUserController(reactiveUserService))
+                .controllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should create a user and answer 201 with the success envelope")
+    void createUser() {
+        when(reactiveUserService.createUser(any())).thenReturn(Mono.just(user(0L)));
+
+        client.post().uri(USERS).contentType(MediaType.APPLICATION_JSON).bodyValue(request())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("success")
+                .jsonPath("$.data.id").isEqualTo(userId.toString())
+                .jsonPath("$.data.version").isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Should answer 400 with the invalid fields and never reach the service")
+    void rejectInvalidBody() {
+        client.post().uri(USERS).contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("data", Map.of("firstName", "Dipesh", "lastName", "Ghimire", "email", "not-an-email")))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Validation failed")
+                .jsonPath("$.data.email").isEqualTo("Email must be valid");
+        verify(reactiveUserService, never()).createUser(any());
+    }
+
+    @Test
+    @DisplayName("Should map a duplicate email to 409 with the error code")
+    void duplicateEmail() {
+        when(reactiveUserService.createUser(any())).thenReturn(Mono.error(new DuplicateEntityException("User already exists with email: dipesh@example.com")));
+
+        client.post().uri(USERS).contentType(MediaType.APPLICATION_JSON).bodyValue(request())
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("Failure")
+                .jsonPath("$.data.errorCode").isEqualTo("DUPLICATE_ENTITY");
+    }
+
+    @Test
+    @DisplayName("Should return the user with its ETag, 304 for a matching If-None-Match and 404 for an unknown id")
+    void getUser() {
+        when(reactiveUserService.getUserById(userId)).thenReturn(Mono.just(user(3L)));
+        UUID unknown = UUID.randomUUID();
+        when(reactiveUserService.getUserById(unknown)).thenReturn(Mono.error(new ResourceNotFoundException("User not found with id: " + unknown)));
+
+        client.get().uri(USERS + "/{userId}", userId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectBody().jsonPath("$.data.email").isEqualTo("dipesh@example.com");
+        client.get().uri(USERS + "/{userId}", userId).header(HttpHeaders.IF_NONE_MATCH, "\"2\", W/\"3\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+        client.get().uri(USERS + "/{userId}", unknown)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.data.errorCode").isEqualTo("RESOURCE_NOT_FOUND");
+    }
+
+    @Test
+    @DisplayName("Should pass If-Match to the service and answer 412 when it is stale")
+    void updateUser() {
+        when(reactiveUserService.updateUser(any(), eq(userId), eq(3L))).thenReturn(Mono.just(user(4L)));
+        when(reactiveUserService.updateUser(any(), eq(userId), eq(2L)))
+                .thenReturn(Mono.error(new PreconditionFailedException("User " + userId + " was modified, current version is 3")));
+
+        client.patch().uri(USERS + "/{userId}", userId).header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON).bodyValue(request())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"4\"");
+        client.patch().uri(USERS + "/{userId}", userId).header(HttpHeaders.IF_MATCH, "\"2\"")
+                .contentType(MediaType.APPLICATION_JSON).bodyValue(request())
+                .exchange()
+                .expectStatus().isEqualTo(412)
+                .expectBody().jsonPath("$.data.errorCode").isEqualTo("PRECONDITION_FAILED");
+    }
+
+    @Test
+    @DisplayName("Should resolve a list-valued If-Match against the current version")
+    void updateUserWithTagList() {
+        when(reactiveUserService.getUserById(userId)).thenReturn(Mono.just(user(3L)));
+        when(reactiveUserService.updateUser(any(), eq(userId), eq(3L))).thenReturn(Mono.just(user(4L)));
+
+        client.patch().uri(USERS + "/{userId}", userId).header(HttpHeaders.IF_MATCH, "\"2\", \"3\"")
+                .contentType(MediaType.APPLICATION_JSON).bodyValue(request())
+                .exchange()
+                .expectStatus().isOk();
+        client.patch().uri(USERS + "/{userId}", userId).header(HttpHeaders.IF_MATCH, "\"1\", \"2\"")
+                .contentType(MediaType.APPLICATION_JSON).bodyValue(request())
+                .exchange()
+                .expectStatus().isEqualTo(412);
+        verify(reactiveUserService, never()).updateUser(any(), eq(userId), isNull());
+    }
+
+    @Test
+    @DisplayName("Should delete a user and answer 404 once it is gone")
+    void deleteUser() {
+        when(reactiveUserService.deleteUser(userId)).thenReturn(Mono.empty(),
+                Mono.error(new ResourceNotFoundException("User not found with id: " + userId)));
+
+        client.delete().uri(USERS + "/{userId}", userId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.status").isEqualTo("success");
+        client.delete().uri(USERS + "/{userId}", userId)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    private static Map<String, Object> request() {
+        return Map.of("data", Map.of("firstName", "Dipesh", "lastName", "Ghimire", "email", "dipesh@example.com"));
+    }
+
+    private UserDto user(long version) {
+        return new UserDto(userId, "Dipesh", "Ghimire", "dipesh@example.com", null, version);
+    }
+}
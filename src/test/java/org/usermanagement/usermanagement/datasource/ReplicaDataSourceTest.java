@@ -0,0 +1,119 @@
+package org.usermanagement.usermanagement.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes through the same proxy as ReadReplicaConfig, with one in-memory H2 database per node. Every
+ * database holds its own name, so a query shows which node served it.
+ */
+class ReplicaDataSourceTest {
+
+    private DataSource primary;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        primary = node("primary");
+    }
+
+    @Test
+    @DisplayName("Should send read-only transactions to the replicas and everything else to the primary")
+    void readOnlyTransactionsGoToReplicas() {
+        route(ReplicaDataSource.ROUND_ROBIN, Map.of("replica-0", node("replica-0")));
+
+        assertThat(readNode()).isEqualTo("replica-0");
+        assertThat(writeTransaction.execute(status -> jdbcTemplate.queryForObject("select name from node", String.class)))
+                .isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Should alternate between replicas with round-robin balancing")
+    void roundRobin() {
+        route(ReplicaDataSource.ROUND_ROBIN, replicas("replica-0", "replica-1"));
+
+        List<String> nodes = IntStream.range(0, 4).mapToObj(i -> readNode()).toList();
+
+        assertThat(nodes).containsExactly("replica-0", "replica-1", "replica-0", "replica-1");
+    }
+
+    @Test
+    @DisplayName("Should keep reads of a recently written user on the primary")
+    void readYourWritesPinsToPrimary() {
+        route(ReplicaDataSource.LEAST_CONNECTIONS, replicas("replica-0", "replica-1"));
+
+        try (ReadYourWrites.Pin pin = ReadYourWrites.pin()) {
+            assertThat(readNode()).isEqualTo("primary");
+        }
+        assertThat(readNode()).startsWith("replica-");
+    }
+
+    @Test
+    @DisplayName("Should skip unreachable replicas and fall back to the primary when none is left")
+    void unhealthyReplicasAreSkipped() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("down", new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/down", "sa", ""));
+        replicas.put("replica-1", node("replica-1"));
+        ReplicaDataSource replicaDataSource = route(ReplicaDataSource.ROUND_ROBIN, replicas);
+
+        replicaDataSource.checkHealth();
+
+        assertThat(IntStream.range(0, 3).mapToObj(i -> readNode())).containsOnly("replica-1");
+
+        route(ReplicaDataSource.ROUND_ROBIN, Map.of("down", replicas.get("down")));
+        assertThat(readNode()).isEqualTo("primary");
+    }
+
+    private ReplicaDataSource route(String balancing, Map<String, DataSource> replicas) {
+        ReplicaDataSource replicaDataSource = new ReplicaDataSource(primary, replicas, balancing, Duration.ofSeconds(5), new SimpleMeterRegistry());
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        return replicaDataSource;
+    }
+
+    private String readNode() {
+        return readOnlyTransaction.execute(status -> jdbcTemplate.queryForObject("select name from node", String.class));
+    }
+
+    private static Map<String, DataSource> replicas(String... names) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String name : names) {
+            replicas.put(name, node(name));
+        }
+        return replicas;
+    }
+
+    private static DataSource node(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table node (name varchar(32))");
+        jdbcTemplate.update("insert into node values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,247 @@
+package org.usermanagement.usermanagement.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
+import org.usermanagement.usermanagement.dto.GlobalApiResponse;
+import org.usermanagement.usermanagement.enums.ErrorCode;
+import org.usermanagement.usermanagement.exception.IdempotencyKeyException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A duplicate is released only once its thread is parked on the leader's future, so each concurrency
+ * test sees the duplicate coalesce instead of racing the leader. Two stores sharing one mocked
+ * repository stand in for two instances.
+ */
+class IdempotencyStoreTest {
+
+    private static final String OPERATION = "createUser";
+    private static final String CLIENT = "user:dipesh";
+    private static final String KEY = "3f8e1c2a";
+    private static final Map<String, String> REQUEST = Map.of("email", "dipesh@example.com");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserManagementProperties properties = new UserManagementProperties();
+    private final JdbcIdempotencyRepository jdbcRepository = mock(JdbcIdempotencyRepository.class);
+    private final CountDownLatch running = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Should run a request once and hand its response to a duplicate that arrived while it ran")
+    void concurrentDuplicatesShareOneRun() throws Exception {
+        IdempotencyStore store = store(null);
+
+        FutureTask<IdempotentResponse<String>> leader = start(() -> execute(store, CLIENT, REQUEST, blockingAction(() -> response("created"))));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        FutureTask<IdempotentResponse<String>> duplicate = startWaiting(() -> execute(store, CLIENT, REQUEST, () -> response("again")));
+        release.countDown();
+
+        IdempotentResponse<String> first = leader.get(5, TimeUnit.SECONDS);
+        IdempotentResponse<String> second = duplicate.get(5, TimeUnit.SECONDS);
+        assertThat(first.replayed()).isFalse();
+        assertThat(second.replayed()).isTrue();
+        assertThat(second.body()).isSameAs(first.body());
+        assertThat(runs).hasValue(1);
+        assertThat(requests("executed")).isEqualTo(1);
+        assertThat(requests("replayed")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should rethrow the failure to a waiting duplicate and run the request again on the next retry")
+    void failureReachesDuplicateAndReleasesKey() throws Exception {
+        IdempotencyStore store = store(null);
+        IllegalStateException failure = new IllegalStateException("database unavailable");
+
+        FutureTask<IdempotentResponse<String>> leader = start(() -> execute(store, CLIENT, REQUEST, blockingAction(() -> {
+            throw failure;
+        })));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        FutureTask<IdempotentResponse<String>> duplicate = startWaiting(() -> execute(store, CLIENT, REQUEST, () -> response("again")));
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasCause(failure);
+        assertThatThrownBy(() -> duplicate.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasCause(failure);
+        assertThat(execute(store, CLIENT, REQUEST, () -> response("retried")).body().getData()).isEqualTo("retried");
+    }
+
+    @Test
+    @DisplayName("Should give up with 409 when the request it waits for runs longer than the maximum wait")
+    void duplicateTimesOut() throws Exception {
+        properties.getIdempotency().setMaxWait(Duration.ofMillis(50));
+        IdempotencyStore store = store(null);
+
+        FutureTask<IdempotentResponse<String>> leader = start(() -> execute(store, CLIENT, REQUEST, blockingAction(() -> response("created"))));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> execute(store, CLIENT, REQUEST, () -> response("again")))
+                .isInstanceOf(IdempotencyKeyException.class)
+                .extracting("errorCode").isEqualTo(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS).replayed()).isFalse();
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should reject a retry whose payload differs from the first request with 422")
+    void rejectsDifferentPayload() {
+        IdempotencyStore store = store(null);
+        execute(store, CLIENT, REQUEST, () -> response("created"));
+
+        assertThatThrownBy(() -> execute(store, CLIENT, Map.of("email", "sagar@example.com"), () -> response("other")))
+                .isInstanceOf(IdempotencyKeyException.class)
+                .extracting("errorCode").isEqualTo(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+    }
+
+    @Test
+    @DisplayName("Should keep the same key of two clients apart, in memory and in the idempotency_key table")
+    void scopesKeysPerClient() {
+        when(jdbcRepository.claim(anyString(), anyString(), any())).thenReturn(true);
+        IdempotencyStore store = store(jdbcRepository);
+
+        IdempotentResponse<String> first = execute(store, CLIENT, REQUEST, () -> response("dipesh"));
+        IdempotentResponse<String> second = execute(store, "10.0.0.7", REQUEST, () -> response("sagar"));
+
+        assertThat(first.body().getData()).isEqualTo("dipesh");
+        assertThat(second.replayed()).isFalse();
+        assertThat(second.body().getData()).isEqualTo("sagar");
+        ArgumentCaptor<String> keys = ArgumentCaptor.forClass(String.class);
+        verify(jdbcRepository, times(2)).claim(keys.capture(), anyString(), any());
+        assertThat(keys.getAllValues()).doesNotHaveDuplicates()
+                .allSatisfy(key -> assertThat(key).startsWith(OPERATION + ':').endsWith(':' + KEY));
+    }
+
+    @Test
+    @DisplayName("Should claim the key, store the response and replay it on another instance without running the request")
+    void storesResponseForOtherInstances() {
+        when(jdbcRepository.claim(anyString(), anyString(), any())).thenReturn(true);
+        IdempotencyStore store = store(jdbcRepository);
+
+        execute(store, CLIENT, REQUEST, () -> response("created"));
+
+        ArgumentCaptor<String> key = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> fingerprint = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> stored = ArgumentCaptor.forClass(String.class);
+        verify(jdbcRepository).claim(key.capture(), fingerprint.capture(), any(LocalDateTime.class));
+        verify(jdbcRepository).complete(eq(key.getValue()), stored.capture(), any(LocalDateTime.class));
+        when(jdbcRepository.find(key.getValue()))
+                .thenReturn(Optional.of(new JdbcIdempotencyRepository.StoredKey(fingerprint.getValue(), stored.getValue())));
+
+        IdempotentResponse<String> replayed = execute(store(jdbcRepository), CLIENT, REQUEST, this::unexpectedRun);
+
+        assertThat(replayed.replayed()).isTrue();
+        assertThat(replayed.body().getData()).isEqualTo("created");
+        verify(jdbcRepository, times(1)).claim(anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should answer 409 while another instance holds the claim, and release the claim of a failed request")
+    void claimConflictsAndRelease() {
+        IdempotencyStore store = store(jdbcRepository);
+
+        assertThatThrownBy(() -> execute(store, CLIENT, REQUEST, this::unexpectedRun))
+                .isInstanceOf(IdempotencyKeyException.class)
+                .extracting("errorCode").isEqualTo(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+
+        when(jdbcRepository.claim(anyString(), anyString(), any())).thenReturn(true);
+        IllegalStateException failure = new IllegalStateException("database unavailable");
+        assertThatThrownBy(() -> execute(store, CLIENT, REQUEST, () -> {
+            throw failure;
+        })).isSameAs(failure);
+
+        verify(jdbcRepository).release(anyString());
+        verify(jdbcRepository, never()).complete(anyString(), anyString(), any());
+    }
+
+    private IdempotencyStore store(JdbcIdempotencyRepository repository) {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<JdbcIdempotencyRepository> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(repository);
+        return new IdempotencyStore(properties, new ObjectMapper().findAndRegisterModules(), provider, meterRegistry);
+    }
+
+    private static IdempotentResponse<String> execute(IdempotencyStore store, String client, Object request,
+                                                      Supplier<GlobalApiResponse<String>> action) {
+        return store.execute(OPERATION, client, KEY, request, String.class, action);
+    }
+
+    private static <T> FutureTask<T> start(Callable<T> call) {
+        FutureTask<T> task = new FutureTask<>(call);
+        Thread.ofVirtual().start(task);
+        return task;
+    }
+
+    /**
+     * Starts a duplicate and returns once it is parked on the leader's future.
+     */
+    private static <T> FutureTask<T> startWaiting(Callable<T> call) throws InterruptedException {
+        FutureTask<T> task = new FutureTask<>(call);
+        Thread thread = Thread.ofVirtual().start(task);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.TIMED_WAITING) {
+            assertThat(System.nanoTime()).as("duplicate waiting for the leader").isLessThan(deadline);
+            Thread.sleep(1);
+        }
+        return task;
+    }
+
+    private Supplier<GlobalApiResponse<String>> blockingAction(Supplier<GlobalApiResponse<String>> result) {
+        return () -> {
+            runs.incrementAndGet();
+            running.countDown();
+            try {
+                if (!release.await(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("request was never released");
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            }
+            return result.get();
+        };
+    }
+
+    private GlobalApiResponse<String> unexpectedRun() {
+        throw new AssertionError("the request must not run");
+    }
+
+    private static GlobalApiResponse<String> response(String data) {
+        return GlobalApiResponse.<String>builder().status("success").data(data).build();
+    }
+
+    private double requests(String outcome) {
+        return meterRegistry.get("user.idempotency.requests").tag("outcome", outcome).counter().count();
+    }
+}
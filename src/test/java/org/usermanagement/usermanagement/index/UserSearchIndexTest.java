@@ -0,0 +1,214 @@
+package org.usermanagement.usermanagement.index;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.usermanagement.usermanagement.cache.InvalidationBus;
+import org.usermanagement.usermanagement.cache.UserInvalidation;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.enums.UserEventType;
+import org.usermanagement.usermanagement.event.UserChangedEvent;
+import org.usermanagement.usermanagement.repository.UserRepository;
+import org.usermanagement.usermanagement.shard.ShardMap;
+import org.usermanagement.usermanagement.shard.UserShards;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the index against a mocked repository: {@code users} is what a rebuild streams, and changes
+ * arrive through onUserChanged and onInvalidation as they would after a commit.
+ */
+class UserSearchIndexTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserManagementProperties properties = new UserManagementProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<UserDto> users = new ArrayList<>();
+
+    private final UserDto dipesh = user("Dipesh", "Ghimire", "dipesh@example.com", 0);
+    private final UserDto dipendra = user("Dipendra", "Malla", "dipendra@example.com", 0);
+    private final UserDto sagar = user("Sagar", "Malla", "sagar@example.com", 0);
+
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new UserSearchIndex(userRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)), properties,
+                new UserShards((ShardMap) null, null, null), mock(InvalidationBus.class));
+        index.bindTo(meterRegistry);
+        when(userRepository.streamAllDtos()).thenAnswer(invocation -> List.copyOf(users).stream());
+        users.addAll(List.of(dipesh, dipendra, sagar));
+        index.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should match tokens as prefixes, rank exact matches first and require every token")
+    void prefixMatching() {
+        assertThat(search("dip")).containsExactlyInAnyOrder(dipesh, dipendra);
+        assertThat(search("dipesh")).containsExactly(dipesh);
+        assertThat(search("dip malla")).containsExactly(dipendra);
+        assertThat(search("malla sagar@example.com")).containsExactly(sagar);
+        assertThat(search("ghimire malla")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should fold accents and case on both sides")
+    void foldsAccents() {
+        UserDto jose = user("Jos\u00e9", "\u00d1\u00fa\u00f1ez", "jose@example.com", 0);
+        index.onUserChanged(UserChangedEvent.of(UserEventType.CREATED, jose));
+
+        assertThat(search("JOSE nunez")).containsExactly(jose);
+        assertThat(search("N\u00fa\u00f1")).containsExactly(jose);
+    }
+
+    @Test
+    @DisplayName("Should find a misspelt token by trigrams within the edit budget, and never for short tokens")
+    void fuzzyMatching() {
+        assertThat(search("ghimrie")).containsExactly(dipesh);
+        assertThat(search("dipehs")).containsExactly(dipesh);
+        assertThat(search("sagr")).containsExactly(sagar);
+        assertThat(search("gimre")).isEmpty();
+        assertThat(search("mla")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should rank exact matches above prefix matches and page through the ranking")
+    void rankingAndPagination() {
+        UserDto malik = user("Malik", "Shah", "malik@example.com", 0);
+        UserDto mallard = user("Mallard", "Shah", "mallard@example.com", 0);
+        index.onUserChanged(new UserChangedEvent(UserEventType.CREATED, List.of(malik, mallard)));
+
+        assertThat(search("malla")).containsExactly(dipendra, sagar, mallard);
+
+        Page<UserDto> first = index.search("malla", PageRequest.of(0, 2));
+        Page<UserDto> second = index.search("malla", PageRequest.of(1, 2));
+        assertThat(first.getContent()).containsExactly(dipendra, sagar);
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(second.getContent()).containsExactly(mallard);
+        assertThat(index.search("mall", PageRequest.of(5, 2)).getContent()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should replace a user only with a newer version and tombstone the copy it replaced")
+    void versionedUpsert() {
+        UserDto renamed = user(dipesh.getId(), "Deepesh", "Ghimire", "deepesh@example.com", 1);
+
+        index.onUserChanged(UserChangedEvent.of(UserEventType.UPDATED, renamed));
+        index.onUserChanged(UserChangedEvent.of(UserEventType.UPDATED, dipesh));
+
+        assertThat(search("deepesh")).containsExactly(renamed);
+        assertThat(search("dipesh")).isEmpty();
+        assertThat(gauge("user.search.index.documents")).isEqualTo(3);
+        assertThat(gauge("user.search.index.tombstones")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep a deleted user out, also against an older update arriving after the delete")
+    void versionedDelete() {
+        index.onUserChanged(UserChangedEvent.of(UserEventType.DELETED, user(sagar.getId(), "Sagar", "Malla", "sagar@example.com", 2)));
+        index.onUserChanged(UserChangedEvent.of(UserEventType.UPDATED, user(sagar.getId(), "Sagar", "Malla", "sagar@example.com", 1)));
+
+        assertThat(search("sagar")).isEmpty();
+        assertThat(gauge("user.search.index.documents")).isEqualTo(2);
+
+        index.onUserChanged(UserChangedEvent.of(UserEventType.DELETED, user(dipesh.getId(), "Dipesh", "Ghimire", "dipesh@example.com", 0)));
+        assertThat(search("dipesh")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should let changes committed during a rebuild win over the older rows the rebuild streams")
+    void rebuildMergesConcurrentChanges() {
+        UserDto renamed = user(dipesh.getId(), "Deepesh", "Ghimire", "deepesh@example.com", 1);
+        UserDto deletedSagar = user(sagar.getId(), "Sagar", "Malla", "sagar@example.com", 1);
+        when(userRepository.streamAllDtos()).thenAnswer(invocation -> {
+            // committed after the rebuild's snapshot was taken, so the stream still has the old rows
+            index.onUserChanged(UserChangedEvent.of(UserEventType.UPDATED, renamed));
+            index.onUserChanged(UserChangedEvent.of(UserEventType.DELETED, deletedSagar));
+            return List.copyOf(users).stream();
+        });
+
+        index.rebuild();
+
+        assertThat(search("deepesh")).containsExactly(renamed);
+        assertThat(search("dipesh")).isEmpty();
+        assertThat(search("sagar")).isEmpty();
+        assertThat(gauge("user.search.index.documents")).isEqualTo(2);
+        assertThat(gauge("user.search.index.tombstones")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should rebuild once tombstones exceed their share of the documents, and not before")
+    void compaction() {
+        properties.getSearch().setMaxTombstoneRatio(0.5);
+        UserDto updated = user(dipesh.getId(), "Dipesh", "Ghimire", "dipesh@example.com", 1);
+        index.onUserChanged(UserChangedEvent.of(UserEventType.UPDATED, updated));
+        users.set(0, updated);
+
+        index.compact();
+        verify(userRepository, times(1)).streamAllDtos();
+
+        UserDto renamed = user(dipendra.getId(), "Deependra", "Malla", "dipendra@example.com", 1);
+        index.onUserChanged(UserChangedEvent.of(UserEventType.UPDATED, renamed));
+        users.set(1, renamed);
+        index.compact();
+
+        verify(userRepository, times(2)).streamAllDtos();
+        assertThat(gauge("user.search.index.tombstones")).isZero();
+        assertThat(search("deependra")).containsExactly(renamed);
+    }
+
+    @Test
+    @DisplayName("Should reload users changed on other instances, and skip invalidations it already indexed")
+    void appliesInvalidations() {
+        UserDto renamed = user(dipesh.getId(), "Deepesh", "Ghimire", "dipesh@example.com", 1);
+        when(userRepository.findDtoById(dipesh.getId())).thenReturn(Optional.of(renamed));
+
+        index.onInvalidation(new UserInvalidation(sagar.getId(), 0, Instant.now()));
+        index.onInvalidation(new UserInvalidation(dipesh.getId(), 1, Instant.now()));
+
+        verify(userRepository, never()).findDtoById(sagar.getId());
+        assertThat(search("deepesh")).containsExactly(renamed);
+
+        index.onInvalidation(new UserInvalidation(sagar.getId(), UserInvalidation.DELETED, Instant.now()));
+        when(userRepository.findDtoById(dipendra.getId())).thenReturn(Optional.empty());
+        index.onInvalidation(new UserInvalidation(dipendra.getId(), 3, Instant.now()));
+
+        verify(userRepository, never()).findDtoById(sagar.getId());
+        assertThat(search("malla")).isEmpty();
+        verify(userRepository, times(2)).findDtoById(any());
+    }
+
+    private List<UserDto> search(String query) {
+        return index.search(query, PageRequest.of(0, 10)).getContent();
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private static UserDto user(String firstName, String lastName, String email, long version) {
+        return user(UUID.randomUUID(), firstName, lastName, email, version);
+    }
+
+    private static UserDto user(UUID id, String firstName, String lastName, String email, long version) {
+        return new UserDto(id, firstName, lastName, email, null, version);
+    }
+}
@@ -0,0 +1,85 @@
+package org.usermanagement.usermanagement.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latency samples are fed through release, so the limit moves only on the samples given here.
+ */
+class GradientLimiterTest {
+
+    private static final long MILLI = 1_000_000L;
+
+    @Test
+    @DisplayName("Should admit up to the limit and admit again once a permit is returned")
+    void admitsUpToLimit() {
+        GradientLimiter limiter = new GradientLimiter(3, 1, 10);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        limiter.release(10 * MILLI, true);
+        assertThat(limiter.getInflight()).isEqualTo(2);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should raise the limit while fully used and latency stays flat")
+    void growsOnSteadyLatency() {
+        GradientLimiter limiter = new GradientLimiter(10, 1, 40);
+        acquire(limiter, 10);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.release(10 * MILLI, true);
+            while (limiter.tryAcquire()) {
+                // keep every permit in use
+            }
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(40);
+    }
+
+    @Test
+    @DisplayName("Should lower the limit when latency climbs above its long-term average, down to the minimum")
+    void shrinksWhenRequestsQueue() {
+        GradientLimiter limiter = new GradientLimiter(50, 5, 100);
+        acquire(limiter, 50);
+        limiter.release(10 * MILLI, true);
+
+        int before = limiter.getLimit();
+        for (int i = 0; i < 10; i++) {
+            limiter.release(200 * MILLI, true);
+        }
+
+        assertThat(limiter.getLimit()).isLessThan(before).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should ignore failures and samples taken while most permits are unused")
+    void ignoresUninformativeSamples() {
+        GradientLimiter limiter = new GradientLimiter(20, 1, 100);
+        acquire(limiter, 20);
+        limiter.release(10 * MILLI, true);
+        for (int i = 0; i < 10; i++) {
+            limiter.release(1_000 * MILLI, false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(20);
+
+        // 9 in flight out of 20
+        for (int i = 0; i < 9; i++) {
+            limiter.release(1_000 * MILLI, true);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(20);
+        assertThat(limiter.getInflight()).isZero();
+    }
+
+    private static void acquire(GradientLimiter limiter, int permits) {
+        for (int i = 0; i < permits; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+    }
+}
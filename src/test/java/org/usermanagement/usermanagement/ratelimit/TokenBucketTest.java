@@ -0,0 +1,54 @@
+package org.usermanagement.usermanagement.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Time only moves through the {@code now} argument, so every refill is exact.
+ */
+class TokenBucketTest {
+
+    private static final long MILLI = 1_000_000L;
+
+    @Test
+    @DisplayName("Should admit a burst, then report when the next token is due")
+    void burstThenWait() {
+        TokenBucket bucket = new TokenBucket(10, 2, 0);
+
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isCloseTo(100 * MILLI, within(1L));
+        assertThat(bucket.tryAcquire(40 * MILLI)).isCloseTo(60 * MILLI, within(1L));
+        assertThat(bucket.tryAcquire(101 * MILLI)).isZero();
+        assertThat(bucket.tryAcquire(101 * MILLI)).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should not save up more than the burst while idle")
+    void capsAtBurst() {
+        TokenBucket bucket = new TokenBucket(10, 2, 0);
+
+        long later = 60_000 * MILLI;
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.tryAcquire(later)).isZero();
+        assertThat(bucket.tryAcquire(later)).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should take a refunded token again, but never hold more than the burst")
+    void refund() {
+        TokenBucket bucket = new TokenBucket(1, 1, 0);
+
+        assertThat(bucket.tryAcquire(0)).isZero();
+        bucket.refund();
+        assertThat(bucket.tryAcquire(0)).isZero();
+
+        TokenBucket full = new TokenBucket(1, 1, 0);
+        full.refund();
+        assertThat(full.tryAcquire(0)).isZero();
+        assertThat(full.tryAcquire(0)).isPositive();
+    }
+}
@@ -0,0 +1,233 @@
+package org.usermanagement.usermanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.usermanagement.usermanagement.cache.NearCacheInvalidator;
+import org.usermanagement.usermanagement.config.CacheConfig;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
+import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.entity.base.UserRow;
+import org.usermanagement.usermanagement.enums.UserEventType;
+import org.usermanagement.usermanagement.event.UserChangedEvent;
+import org.usermanagement.usermanagement.exception.BadRequestException;
+import org.usermanagement.usermanagement.exception.DuplicateEntityException;
+import org.usermanagement.usermanagement.exception.PreconditionFailedException;
+import org.usermanagement.usermanagement.exception.ResourceNotFoundException;
+import org.usermanagement.usermanagement.index.EmailIndex;
+import org.usermanagement.usermanagement.index.UserSearchIndex;
+import org.usermanagement.usermanagement.mapper.UserMapper;
+import org.usermanagement.usermanagement.repository.ReactiveUserRepository;
+import org.usermanagement.usermanagement.service.impl.ReactiveUserServiceImpl;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The transactional operator passes the pipeline through, so the tests see what reaches the
+ * repository, the outbox insert and the after-commit consumers.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReactiveUserService Unit Tests")
+class ReactiveUserServiceImplTest {
+
+    @Mock
+    private ReactiveUserRepository reactiveUserRepository;
+
+    @Mock
+    private DatabaseClient databaseClient;
+
+    @Mock
+    private DatabaseClient.GenericExecuteSpec insertEvent;
+
+    @Mock
+    private TransactionalOperator reactiveTransactionalOperator;
+
+    @Mock
+    private EmailIndex emailIndex;
+
+    @Mock
+    private UserSearchIndex userSearchIndex;
+
+    @Mock
+    private NearCacheInvalidator nearCacheInvalidator;
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.USERS_CACHE);
+    private final UUID userId = UUID.randomUUID();
+
+    private ReactiveUserServiceImpl reactiveUserService;
+
+    @BeforeEach
+    void setUp() {
+        reactiveUserService = new ReactiveUserServiceImpl(reactiveUserRepository, Mappers.getMapper(UserMapper.class), databaseClient,
+                reactiveTransactionalOperator, new ObjectMapper().findAndRegisterModules(), new UserManagementProperties(),
+                emailIndex, userSearchIndex, nearCacheInvalidator, cacheManager);
+        lenient().when(reactiveTransactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(databaseClient.sql(anyString())).thenReturn(insertEvent);
+        lenient().when(insertEvent.bind(anyString(), any())).thenReturn(insertEvent);
+        lenient().when(insertEvent.then()).thenReturn(Mono.empty());
+        lenient().when(reactiveUserRepository.save(any(UserRow.class))).thenAnswer(invocation -> {
+            UserRow row = invocation.getArgument(0);
+            row.setVersion(row.getVersion() == null ? 0L : row.getVersion() + 1);
+            return Mono.just(row);
+        });
+    }
+
+    @Test
+    @DisplayName("Should create a user, write its outbox row and hand it to the in-memory consumers")
+    void createUser() {
+        when(emailIndex.mightContain("dipesh@example.com")).thenReturn(true);
+        when(reactiveUserRepository.existsByEmail("dipesh@example.com")).thenReturn(Mono.just(false));
+
+        StepVerifier.create(reactiveUserService.createUser(user()))
+                .assertNext(created -> {
+                    assertThat(created.getId()).isNotNull();
+                    assertThat(created.getVersion()).isZero();
+                    assertThat(created.getEmail()).isEqualTo("dipesh@example.com");
+                })
+                .verifyComplete();
+
+        verify(insertEvent).bind("eventType", UserEventType.CREATED.name());
+        verify(emailIndex).add("dipesh@example.com");
+        ArgumentCaptor<UserChangedEvent> event = ArgumentCaptor.forClass(UserChangedEvent.class);
+        verify(userSearchIndex).onUserChanged(event.capture());
+        assertThat(event.getValue().type()).isEqualTo(UserEventType.CREATED);
+    }
+
+    @Test
+    @DisplayName("Should reject a known email without inserting, and map a lost race on the unique constraint to the same error")
+    void rejectDuplicateEmail() {
+        when(emailIndex.mightContain("dipesh@example.com")).thenReturn(true);
+        when(reactiveUserRepository.existsByEmail("dipesh@example.com")).thenReturn(Mono.just(true), Mono.just(false));
+
+        StepVerifier.create(reactiveUserService.createUser(user()))
+                .verifyError(DuplicateEntityException.class);
+        verify(reactiveUserRepository, never()).save(any(UserRow.class));
+
+        doReturn(Mono.error(new DataIntegrityViolationException("Duplicate entry"))).when(reactiveUserRepository).save(any(UserRow.class));
+        StepVerifier.create(reactiveUserService.createUser(user()))
+                .verifyError(DuplicateEntityException.class);
+        verify(userSearchIndex, never()).onUserChanged(any());
+    }
+
+    @Test
+    @DisplayName("Should load a user once and serve it from the shared cache afterwards")
+    void getUserById() {
+        when(reactiveUserRepository.findByIdAndActiveTrue(userId)).thenReturn(Mono.just(row(3L)));
+
+        StepVerifier.create(reactiveUserService.getUserById(userId))
+                .assertNext(user -> assertThat(user.getVersion()).isEqualTo(3L))
+                .verifyComplete();
+        StepVerifier.create(reactiveUserService.getUserById(userId))
+                .assertNext(user -> assertThat(user.getId()).isEqualTo(userId))
+                .verifyComplete();
+
+        verify(reactiveUserRepository, times(1)).findByIdAndActiveTrue(userId);
+    }
+
+    @Test
+    @DisplayName("Should signal not found for a missing or deleted user")
+    void getMissingUser() {
+        when(reactiveUserRepository.findByIdAndActiveTrue(userId)).thenReturn(Mono.empty());
+
+        StepVerifier.create(reactiveUserService.getUserById(userId))
+                .verifyError(ResourceNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("Should update the row, bump its version and evict the cached user")
+    void updateUser() {
+        when(reactiveUserRepository.findByIdAndActiveTrue(userId)).thenReturn(Mono.just(row(3L)));
+        cacheManager.getCache(CacheConfig.USERS_CACHE).put(userId, user());
+        UserDto patch = new UserDto();
+        patch.setFirstName("Deepesh");
+
+        StepVerifier.create(reactiveUserService.updateUser(patch, userId, 3L))
+                .assertNext(updated -> {
+                    assertThat(updated.getFirstName()).isEqualTo("Deepesh");
+                    assertThat(updated.getLastName()).isEqualTo("Ghimire");
+                    assertThat(updated.getVersion()).isEqualTo(4L);
+                })
+                .verifyComplete();
+
+        assertThat(cacheManager.getCache(CacheConfig.USERS_CACHE).get(userId)).isNull();
+        verify(insertEvent).bind("eventType", UserEventType.UPDATED.name());
+    }
+
+    @Test
+    @DisplayName("Should reject an update whose If-Match version is stale without writing")
+    void rejectStaleVersion() {
+        when(reactiveUserRepository.findByIdAndActiveTrue(userId)).thenReturn(Mono.just(row(4L)));
+
+        StepVerifier.create(reactiveUserService.updateUser(user(), userId, 3L))
+                .verifyError(PreconditionFailedException.class);
+        verify(reactiveUserRepository, never()).save(any(UserRow.class));
+    }
+
+    @Test
+    @DisplayName("Should soft delete by clearing the active flag and evicting the cached user")
+    void deleteUser() {
+        UserRow row = row(3L);
+        when(reactiveUserRepository.findByIdAndActiveTrue(userId)).thenReturn(Mono.just(row));
+        cacheManager.getCache(CacheConfig.USERS_CACHE).put(userId, user());
+
+        StepVerifier.create(reactiveUserService.deleteUser(userId))
+                .verifyComplete();
+
+        assertThat(row.isActive()).isFalse();
+        assertThat(row.getVersion()).isEqualTo(4L);
+        assertThat(cacheManager.getCache(CacheConfig.USERS_CACHE).get(userId)).isNull();
+        verify(insertEvent).bind("eventType", UserEventType.DELETED.name());
+        verify(emailIndex, never()).add(anyString());
+    }
+
+    @Test
+    @DisplayName("Should reject a page size outside the configured bounds")
+    void rejectPageSize() {
+        StepVerifier.create(reactiveUserService.userList(null, 0))
+                .verifyError(BadRequestException.class);
+    }
+
+    private static UserDto user() {
+        UserDto user = new UserDto();
+        user.setFirstName("Dipesh");
+        user.setLastName("Ghimire");
+        user.setEmail("dipesh@example.com");
+        return user;
+    }
+
+    private UserRow row(long version) {
+        UserRow row = new UserRow();
+        row.setId(userId);
+        row.setFirstName("Dipesh");
+        row.setLastName("Ghimire");
+        row.setEmail("dipesh@example.com");
+        row.setCreatedAt(LocalDateTime.now());
+        row.setUpdatedAt(LocalDateTime.now());
+        row.setActive(true);
+        row.setVersion(version);
+        return row;
+    }
+}
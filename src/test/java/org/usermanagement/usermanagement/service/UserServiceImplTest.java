@@ -1,32 +1,81 @@
 package org.usermanagement.usermanagement.service;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.usermanagement.usermanagement.config.CacheConfig;
+import org.usermanagement.usermanagement.config.UserManagementProperties;
+import org.usermanagement.usermanagement.datasource.ReadYourWrites;
+import org.usermanagement.usermanagement.dto.BatchUserResponse;
+import org.usermanagement.usermanagement.dto.BatchUserResult;
+import org.usermanagement.usermanagement.dto.BulkMutationResponse;
+import org.usermanagement.usermanagement.dto.BulkUserFilter;
+import org.usermanagement.usermanagement.dto.BulkUserResponse;
+import org.usermanagement.usermanagement.dto.BulkUserResult;
+import org.usermanagement.usermanagement.dto.BulkUserSelection;
+import org.usermanagement.usermanagement.dto.BulkUserUpdateRequest;
+import org.usermanagement.usermanagement.dto.CursorPage;
 import org.usermanagement.usermanagement.dto.UserDto;
+import org.usermanagement.usermanagement.dto.UserEvent;
+import org.usermanagement.usermanagement.entity.base.OutboxEventEntity;
 import org.usermanagement.usermanagement.entity.base.UserEntity;
+import org.usermanagement.usermanagement.enums.BatchGetStatus;
+import org.usermanagement.usermanagement.enums.BulkRowStatus;
+import org.usermanagement.usermanagement.enums.ExportFormat;
+import org.usermanagement.usermanagement.enums.UserEventType;
+import org.usermanagement.usermanagement.event.UserChangedEvent;
+import org.usermanagement.usermanagement.exception.BadRequestException;
 import org.usermanagement.usermanagement.exception.DuplicateEntityException;
+import org.usermanagement.usermanagement.exception.PreconditionFailedException;
 import org.usermanagement.usermanagement.exception.ResourceNotFoundException;
+import org.usermanagement.usermanagement.index.EmailIndex;
+import org.usermanagement.usermanagement.index.UserSearchIndex;
+import org.usermanagement.usermanagement.mapper.OutboxEventMapper;
 import org.usermanagement.usermanagement.mapper.UserMapper;
+import org.usermanagement.usermanagement.repository.OutboxEventRepository;
 import org.usermanagement.usermanagement.repository.UserRepository;
 import org.usermanagement.usermanagement.service.impl.UserServiceImpl;
+import org.usermanagement.usermanagement.shard.ShardMap;
+import org.usermanagement.usermanagement.shard.UserShards;
+import org.usermanagement.usermanagement.util.CursorCodec;
+import org.usermanagement.usermanagement.util.UserExportWriter;
 
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,6 +88,42 @@ class UserServiceImplTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private UserManagementProperties properties = new UserManagementProperties();
+
+    @Mock
+    private EmailIndex emailIndex;
+
+    @Mock
+    private UserSearchIndex userSearchIndex;
+
+    @Mock
+    private UserExportWriter userExportWriter;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxEventMapper outboxEventMapper;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private ReadYourWrites readYourWrites;
+
+    @Spy
+    private UserShards userShards = new UserShards((ShardMap) null, null, null);
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -70,9 +155,10 @@ class UserServiceImplTest {
     @Test
     @DisplayName("Should create user successfully when email does not exist")
     void createUser_Success() {
+        when(emailIndex.mightContain(testUserDto.getEmail())).thenReturn(true);
         when(userRepository.existsByEmail(testUserDto.getEmail())).thenReturn(false);
         when(userMapper.toUserEntity(testUserDto)).thenReturn(testUserEntity);
-        when(userRepository.save(testUserEntity)).thenReturn(testUserEntity);
+        when(userRepository.saveAndFlush(testUserEntity)).thenReturn(testUserEntity);
         when(userMapper.toUserDto(testUserEntity)).thenReturn(testUserDto);
 
         UserDto result = userService.createUser(testUserDto);
@@ -83,14 +169,46 @@ class UserServiceImplTest {
         assertThat(result.getLastName()).isEqualTo(testUserDto.getLastName());
         
         verify(userRepository).existsByEmail(testUserDto.getEmail());
-        verify(userRepository).save(any(UserEntity.class));
+        verify(userRepository).saveAndFlush(any(UserEntity.class));
         verify(userMapper).toUserEntity(testUserDto);
         verify(userMapper).toUserDto(testUserEntity);
+        verify(emailIndex).add(testUserDto.getEmail());
+        verify(eventPublisher).publishEvent(new UserChangedEvent(UserEventType.CREATED, List.of(testUserDto)));
+    }
+
+    @Test
+    @DisplayName("Should skip the duplicate email query when the email index rules the email out")
+    void createUser_SkipsDuplicateCheckForUnknownEmail() {
+        when(emailIndex.mightContain(testUserDto.getEmail())).thenReturn(false);
+        when(userMapper.toUserEntity(testUserDto)).thenReturn(testUserEntity);
+        when(userRepository.saveAndFlush(testUserEntity)).thenReturn(testUserEntity);
+        when(userMapper.toUserDto(testUserEntity)).thenReturn(testUserDto);
+
+        UserDto result = userService.createUser(testUserDto);
+
+        assertThat(result).isNotNull();
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(userRepository).saveAndFlush(testUserEntity);
+    }
+
+    @Test
+    @DisplayName("Should map a unique constraint violation on insert to DuplicateEntityException")
+    void createUser_ConcurrentDuplicate() {
+        when(emailIndex.mightContain(testUserDto.getEmail())).thenReturn(false);
+        when(userMapper.toUserEntity(testUserDto)).thenReturn(testUserEntity);
+        when(userRepository.saveAndFlush(testUserEntity)).thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+
+        assertThatThrownBy(() -> userService.createUser(testUserDto))
+                .isInstanceOf(DuplicateEntityException.class)
+                .hasMessageContaining("User already exists with email");
+
+        verify(emailIndex, never()).add(anyString());
     }
 
     @Test
     @DisplayName("Should throw DuplicateEntityException when email already exists")
     void createUser_DuplicateEmail() {
+        when(emailIndex.mightContain(testUserDto.getEmail())).thenReturn(true);
         when(userRepository.existsByEmail(testUserDto.getEmail())).thenReturn(true);
 
         assertThatThrownBy(() -> userService.createUser(testUserDto))
@@ -99,13 +217,13 @@ class UserServiceImplTest {
 
         verify(userRepository).existsByEmail(testUserDto.getEmail());
         verify(userRepository, never()).save(any());
+        verify(userRepository, never()).saveAndFlush(any());
     }
 
     @Test
     @DisplayName("Should return user when valid ID is provided")
     void getUserById_Success() {
-        when(userRepository.findById(testUserId)).thenReturn(Optional.of(testUserEntity));
-        when(userMapper.toUserDto(testUserEntity)).thenReturn(testUserDto);
+        when(userRepository.findDtoById(testUserId)).thenReturn(Optional.of(testUserDto));
 
         UserDto result = userService.getUserById(testUserId);
 
@@ -113,20 +231,21 @@ class UserServiceImplTest {
         assertThat(result.getId()).isEqualTo(testUserId);
         assertThat(result.getEmail()).isEqualTo(testUserDto.getEmail());
         
-        verify(userRepository).findById(testUserId);
-        verify(userMapper).toUserDto(testUserEntity);
+        verify(userRepository).findDtoById(testUserId);
+        verify(userRepository, never()).findById(any());
+        verifyNoInteractions(userMapper);
     }
 
     @Test
     @DisplayName("Should throw ResourceNotFoundException when user ID does not exist")
     void getUserById_NotFound() {
-        when(userRepository.findById(testUserId)).thenReturn(Optional.empty());
+        when(userRepository.findDtoById(testUserId)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> userService.getUserById(testUserId))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining("User not found with id");
 
-        verify(userRepository).findById(testUserId);
+        verify(userRepository).findDtoById(testUserId);
         verify(userMapper, never()).toUserDto(any());
     }
 
@@ -155,10 +274,10 @@ class UserServiceImplTest {
 
         when(userRepository.findById(testUserId)).thenReturn(Optional.of(testUserEntity));
         doNothing().when(userMapper).updateEntityFromDto(updateDto, testUserEntity);
-        when(userRepository.save(testUserEntity)).thenReturn(updatedEntity);
+        when(userRepository.saveAndFlush(testUserEntity)).thenReturn(updatedEntity);
         when(userMapper.toUserDto(updatedEntity)).thenReturn(updatedDto);
 
-        UserDto result = userService.updateUser(updateDto, testUserId);
+        UserDto result = userService.updateUser(updateDto, testUserId, null);
 
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(testUserId);
@@ -167,7 +286,26 @@ class UserServiceImplTest {
         
         verify(userRepository).findById(testUserId);
         verify(userMapper).updateEntityFromDto(updateDto, testUserEntity);
-        verify(userRepository).save(testUserEntity);
+        verify(userRepository).saveAndFlush(testUserEntity);
+        verify(eventPublisher).publishEvent(UserChangedEvent.of(UserEventType.UPDATED, updatedDto));
+    }
+
+    @Test
+    @DisplayName("Should reject an update whose If-Match version is stale")
+    void updateUser_StaleVersion() {
+        testUserEntity.setVersion(3L);
+        UserDto updateDto = new UserDto();
+        updateDto.setFirstName("Sagar");
+
+        when(userRepository.findById(testUserId)).thenReturn(Optional.of(testUserEntity));
+
+        assertThatThrownBy(() -> userService.updateUser(updateDto, testUserId, 2L))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessageContaining("current version is 3");
+
+        verify(userMapper, never()).updateEntityFromDto(any(), any());
+        verify(userRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -178,12 +316,13 @@ class UserServiceImplTest {
         
         when(userRepository.findById(testUserId)).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> userService.updateUser(updateDto, testUserId))
+        assertThatThrownBy(() -> userService.updateUser(updateDto, testUserId, null))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining("User not found with id");
 
         verify(userRepository).findById(testUserId);
         verify(userRepository, never()).save(any());
+        verify(userRepository, never()).saveAndFlush(any());
     }
 
     @Test
@@ -191,11 +330,13 @@ class UserServiceImplTest {
     void deleteUser_Success() {
         when(userRepository.findById(testUserId)).thenReturn(Optional.of(testUserEntity));
         doNothing().when(userRepository).delete(testUserEntity);
+        when(userMapper.toDeletedUserDto(testUserEntity)).thenReturn(testUserDto);
 
         userService.deleteUser(testUserId);
 
         verify(userRepository).findById(testUserId);
         verify(userRepository).delete(testUserEntity);
+        verify(eventPublisher).publishEvent(UserChangedEvent.of(UserEventType.DELETED, testUserDto));
     }
 
     @Test
@@ -216,25 +357,14 @@ class UserServiceImplTest {
     void userList_Success() {
         Pageable pageable = PageRequest.of(0, 10);
         
-        UserEntity user2 = UserEntity.builder()
-                .id(UUID.randomUUID())
-                .firstName("Sagar")
-                .lastName("Smith")
-                .email("sagar@example.com")
-                .phoneNumber("+9876543210")
-                .isActive(true)
-                .build();
-
-        Page<UserEntity> userPage = new PageImpl<>(Arrays.asList(testUserEntity, user2), pageable, 2);
-        
         UserDto userDto2 = new UserDto();
         userDto2.setFirstName("Sagar");
         userDto2.setLastName("Smith");
         userDto2.setEmail("sagar@example.com");
 
-        when(userRepository.findAll(pageable)).thenReturn(userPage);
-        when(userMapper.toUserDto(testUserEntity)).thenReturn(testUserDto);
-        when(userMapper.toUserDto(user2)).thenReturn(userDto2);
+        Page<UserDto> userPage = new PageImpl<>(Arrays.asList(testUserDto, userDto2), pageable, 2);
+
+        when(userRepository.findAllDtos(pageable)).thenReturn(userPage);
 
         Page<UserDto> result = userService.userList(pageable);
 
@@ -244,6 +374,334 @@ class UserServiceImplTest {
         assertThat(result.getContent().get(0).getEmail()).isEqualTo("dipesh@example.com");
         assertThat(result.getContent().get(1).getEmail()).isEqualTo("sagar@example.com");
         
-        verify(userRepository).findAll(pageable);
+        verify(userRepository).findAllDtos(pageable);
+        verifyNoInteractions(userMapper);
+    }
+
+    @Test
+    @DisplayName("Should bulk create users and report duplicates and invalid rows per row")
+    @SuppressWarnings("unchecked")
+    void createUsers_MixedRows() {
+        UserDto duplicateDto = new UserDto();
+        duplicateDto.setFirstName("Sagar");
+        duplicateDto.setLastName("Malla");
+        duplicateDto.setEmail("sagar@example.com");
+
+        UserDto invalidDto = new UserDto();
+        invalidDto.setEmail("not-an-email");
+
+        ConstraintViolation<UserDto> violation = mock(ConstraintViolation.class);
+        when(violation.getMessage()).thenReturn("Email must be valid");
+
+        when(validator.validate(testUserDto)).thenReturn(Set.of());
+        when(validator.validate(duplicateDto)).thenReturn(Set.of());
+        when(validator.validate(invalidDto)).thenReturn(Set.of(violation));
+        when(emailIndex.mightContain(anyString())).thenReturn(true);
+        when(userRepository.findExistingEmails(anyList())).thenReturn(List.of("sagar@example.com"));
+        when(userMapper.toUserEntity(testUserDto)).thenReturn(testUserEntity);
+        when(userRepository.saveAll(List.of(testUserEntity))).thenReturn(List.of(testUserEntity));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        BulkUserResponse response = userService.createUsers(List.of(testUserDto, duplicateDto, invalidDto).iterator());
+
+        assertThat(response.getTotal()).isEqualTo(3);
+        assertThat(response.getCreated()).isEqualTo(1);
+        assertThat(response.getFailed()).isEqualTo(2);
+        assertThat(response.getResults()).extracting("status")
+                .containsExactly(BulkRowStatus.CREATED, BulkRowStatus.DUPLICATE, BulkRowStatus.INVALID);
+        assertThat(response.getResults().get(0).getId()).isEqualTo(testUserId);
+        assertThat(response.getResults().get(2).getMessage()).isEqualTo("Email must be valid");
+
+        verify(userRepository).findExistingEmails(List.of("dipesh@example.com", "sagar@example.com"));
+        verify(userMapper, never()).toUserEntity(duplicateDto);
+    }
+
+    @Test
+    @DisplayName("Should split bulk create into chunks of the configured size")
+    void createUsers_Chunked() {
+        properties.getBulk().setChunkSize(1);
+        UserDto secondDto = new UserDto();
+        secondDto.setFirstName("Sagar");
+        secondDto.setLastName("Malla");
+        secondDto.setEmail("sagar@example.com");
+        UserEntity secondEntity = UserEntity.builder().id(UUID.randomUUID()).email("sagar@example.com").build();
+
+        when(validator.validate(any(UserDto.class))).thenReturn(Set.of());
+        when(emailIndex.mightContain(anyString())).thenReturn(true);
+        when(userRepository.findExistingEmails(anyList())).thenReturn(List.of());
+        when(userMapper.toUserEntity(testUserDto)).thenReturn(testUserEntity);
+        when(userMapper.toUserEntity(secondDto)).thenReturn(secondEntity);
+        when(userRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        BulkUserResponse response = userService.createUsers(List.of(testUserDto, secondDto).iterator());
+
+        assertThat(response.getCreated()).isEqualTo(2);
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(userRepository, times(2)).findExistingEmails(anyList());
+    }
+
+    @Test
+    @DisplayName("Should import the rows before a malformed element and report it at its own index")
+    void createUsers_MalformedElement() {
+        Iterator<UserDto> users = new Iterator<>() {
+            private int read;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public UserDto next() {
+                if (read++ == 1) {
+                    throw new BadRequestException("Malformed JSON in request body");
+                }
+                return testUserDto;
+            }
+        };
+        when(validator.validate(testUserDto)).thenReturn(Set.of());
+        when(emailIndex.mightContain(anyString())).thenReturn(true);
+        when(userRepository.findExistingEmails(anyList())).thenReturn(List.of());
+        when(userMapper.toUserEntity(testUserDto)).thenReturn(testUserEntity);
+        when(userRepository.saveAll(List.of(testUserEntity))).thenReturn(List.of(testUserEntity));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        BulkUserResponse response = userService.createUsers(users);
+
+        assertThat(response.getResults()).extracting(BulkUserResult::getIndex).containsExactly(0, 1);
+        assertThat(response.getResults()).extracting(BulkUserResult::getStatus)
+                .containsExactly(BulkRowStatus.CREATED, BulkRowStatus.INVALID);
+        assertThat(response.getResults().get(1).getMessage()).isEqualTo("Malformed JSON in request body");
+    }
+
+    @Test
+    @DisplayName("Should return a cursor page and the token for the next page")
+    void userListByCursor_HasNext() {
+        UserDto userDto2 = new UserDto(UUID.randomUUID(), "Sagar", "Malla", "sagar@example.com", null, 0L);
+        UUID after = UUID.randomUUID();
+
+        when(userRepository.findDtoPageAfter(after, Limit.of(2))).thenReturn(List.of(testUserDto, userDto2));
+
+        CursorPage<UserDto> result = userService.userList(CursorCodec.encode(after), 1);
+
+        assertThat(result.getContent()).containsExactly(testUserDto);
+        assertThat(result.isHasNext()).isTrue();
+        assertThat(CursorCodec.decode(result.getNextCursor())).isEqualTo(testUserId);
+        verify(userRepository, never()).count();
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed cursor")
+    void userListByCursor_InvalidCursor() {
+        assertThatThrownBy(() -> userService.userList("not-a-cursor", 10))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Invalid cursor");
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Should page the change feed by sequence")
+    void userChanges_HasNext() {
+        OutboxEventEntity first = outboxEvent(41L, LocalDateTime.now());
+        OutboxEventEntity second = outboxEvent(42L, LocalDateTime.now());
+        UserEvent firstEvent = new UserEvent(41L, UserEventType.CREATED, testUserId, "{}", null);
+        UserEvent secondEvent = new UserEvent(42L, UserEventType.UPDATED, testUserId, "{}", null);
+
+        when(outboxEventRepository.findChangesAfter(40L, Limit.of(2))).thenReturn(List.of(first, second));
+        when(outboxEventMapper.toUserEvent(first)).thenReturn(firstEvent);
+        when(outboxEventMapper.toUserEvent(second)).thenReturn(secondEvent);
+
+        CursorPage<UserEvent> result = userService.userChanges("40", 1);
+
+        assertThat(result.getContent()).containsExactly(firstEvent);
+        assertThat(result.isHasNext()).isTrue();
+        assertThat(result.getNextCursor()).isEqualTo("41");
+    }
+
+    @Test
+    @DisplayName("Should stop the change feed at a recent sequence gap and skip it once the gap timeout passed")
+    void userChanges_SequenceGap() {
+        OutboxEventEntity first = outboxEvent(41L, LocalDateTime.now().minusMinutes(5));
+        OutboxEventEntity afterOldGap = outboxEvent(43L, LocalDateTime.now().minusMinutes(5));
+        OutboxEventEntity afterRecentGap = outboxEvent(45L, LocalDateTime.now());
+        UserEvent firstEvent = new UserEvent(41L, UserEventType.CREATED, testUserId, "{}", null);
+        UserEvent afterOldGapEvent = new UserEvent(43L, UserEventType.UPDATED, testUserId, "{}", null);
+
+        when(outboxEventRepository.findChangesAfter(40L, Limit.of(11))).thenReturn(List.of(first, afterOldGap, afterRecentGap));
+        when(outboxEventMapper.toUserEvent(first)).thenReturn(firstEvent);
+        when(outboxEventMapper.toUserEvent(afterOldGap)).thenReturn(afterOldGapEvent);
+
+        CursorPage<UserEvent> result = userService.userChanges("40", 10);
+
+        assertThat(result.getContent()).containsExactly(firstEvent, afterOldGapEvent);
+        assertThat(result.isHasNext()).isFalse();
+        assertThat(result.getNextCursor()).isEqualTo("43");
+        verify(outboxEventMapper, never()).toUserEvent(afterRecentGap);
+    }
+
+    @Test
+    @DisplayName("Should answer searches from the index without touching the database")
+    void searchUsers_Success() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(userSearchIndex.search("dip", pageable)).thenReturn(new PageImpl<>(List.of(testUserDto), pageable, 1));
+
+        Page<UserDto> result = userService.searchUsers("dip", pageable);
+
+        assertThat(result.getContent()).containsExactly(testUserDto);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Should reject a blank search query")
+    void searchUsers_BlankQuery() {
+        assertThatThrownBy(() -> userService.searchUsers(" ", PageRequest.of(0, 10)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("must not be blank");
+
+        verifyNoInteractions(userSearchIndex);
+    }
+
+    @Test
+    @DisplayName("Should stream users to the export writer and close the cursor afterwards")
+    void exportUsers_ClosesStream() {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<UserDto> users = Stream.of(testUserDto).onClose(() -> closed.set(true));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        when(userRepository.streamAllDtos()).thenReturn(users);
+        when(userExportWriter.write(users, ExportFormat.CSV, true, out)).thenReturn(1L);
+
+        long count = userService.exportUsers(ExportFormat.CSV, true, out);
+
+        assertThat(count).isEqualTo(1);
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should bulk update selected ids in chunks with set-based statements and evict them")
+    void updateUsers_ByIds() {
+        properties.getBulk().setChunkSize(2);
+        UUID secondId = UUID.randomUUID();
+        UUID thirdId = UUID.randomUUID();
+        BulkUserUpdateRequest request = new BulkUserUpdateRequest();
+        request.setIds(List.of(testUserId, secondId, thirdId, testUserId));
+        request.setLastName("Malla");
+        Cache cache = mock(Cache.class);
+
+        when(cacheManager.getCache(CacheConfig.USERS_CACHE)).thenReturn(cache);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(userRepository.updateAll(eq(List.of(testUserId, secondId)), any(), eq("Malla"), any(), any(LocalDateTime.class))).thenReturn(2);
+        when(userRepository.updateAll(eq(List.of(thirdId)), any(), eq("Malla"), any(), any(LocalDateTime.class))).thenReturn(0);
+        when(userRepository.findDtosByIdIn(List.of(testUserId, secondId))).thenReturn(List.of(testUserDto));
+
+        BulkMutationResponse response = userService.updateUsers(request);
+
+        assertThat(response.getMatched()).isEqualTo(3);
+        assertThat(response.getAffected()).isEqualTo(2);
+        verify(cache).evict(testUserId);
+        verify(cache).evict(thirdId);
+        verify(eventPublisher).publishEvent(new UserChangedEvent(UserEventType.UPDATED, List.of(testUserDto)));
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Should match the filter's email domain literally, escaping LIKE wildcards")
+    void deleteUsers_FilterDomainIsEscaped() {
+        BulkUserSelection selection = new BulkUserSelection();
+        selection.setFilter(new BulkUserFilter("ex_ample%.com!", null, null));
+
+        BulkMutationResponse response = userService.deleteUsers(selection);
+
+        assertThat(response.getMatched()).isZero();
+        verify(userRepository).findIdsMatching(eq(new UUID(0, 0)), eq("%@ex!_ample!%.com!!"), isNull(), isNull(), any(Limit.class));
+        verify(userRepository, never()).softDeleteAll(anyList(), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Should bulk soft delete users matching a filter by scanning ids with a keyset")
+    void deleteUsers_ByFilter() {
+        properties.getBulk().setChunkSize(1);
+        UUID secondId = UUID.randomUUID();
+        BulkUserSelection selection = new BulkUserSelection();
+        selection.setFilter(new BulkUserFilter("Example.com", null, null));
+
+        when(userRepository.findIdsMatching(new UUID(0, 0), "%@example.com", null, null, Limit.of(1))).thenReturn(List.of(testUserId));
+        when(userRepository.findIdsMatching(testUserId, "%@example.com", null, null, Limit.of(1))).thenReturn(List.of(secondId));
+        when(userRepository.findIdsMatching(secondId, "%@example.com", null, null, Limit.of(1))).thenReturn(List.of());
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(userRepository.softDeleteAll(anyList(), any(LocalDateTime.class))).thenReturn(1);
+        when(userRepository.lockDeletedDtosByIdIn(List.of(testUserId))).thenReturn(List.of(testUserDto));
+
+        BulkMutationResponse response = userService.deleteUsers(selection);
+
+        assertThat(response.getMatched()).isEqualTo(2);
+        assertThat(response.getAffected()).isEqualTo(2);
+        verify(eventPublisher).publishEvent(new UserChangedEvent(UserEventType.DELETED, List.of(testUserDto)));
+        verify(userRepository).softDeleteAll(eq(List.of(testUserId)), any(LocalDateTime.class));
+        verify(userRepository).softDeleteAll(eq(List.of(secondId)), any(LocalDateTime.class));
+        verify(userRepository, never()).delete(any());
+    }
+
+    @Test
+    @DisplayName("Should reject a bulk selection with both ids and a filter")
+    void deleteUsers_AmbiguousSelection() {
+        BulkUserSelection selection = new BulkUserSelection();
+        selection.setIds(List.of(testUserId));
+        selection.setFilter(new BulkUserFilter("example.com", null, null));
+
+        assertThatThrownBy(() -> userService.deleteUsers(selection))
+                .isInstanceOf(BadRequestException.class);
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Should answer a batch get in request order from cache and chunked queries")
+    void getUsersByIds_MixedCacheAndDatabase() {
+        properties.getBulk().setBatchGetChunkSize(1);
+        UUID cachedId = UUID.randomUUID();
+        UUID missingId = UUID.randomUUID();
+        UserDto cachedUser = new UserDto(cachedId, "Cached", "User", "cached@example.com", null, 1L);
+        Cache cache = mock(Cache.class);
+        when(cacheManager.getCache(CacheConfig.USERS_CACHE)).thenReturn(cache);
+        when(cache.get(cachedId, UserDto.class)).thenReturn(cachedUser);
+        when(userRepository.findDtosByIdIn(List.of(testUserId))).thenReturn(List.of(testUserDto));
+        when(userRepository.findDtosByIdIn(List.of(missingId))).thenReturn(List.of());
+
+        BatchUserResponse response = userService.getUsersByIds(List.of(missingId, testUserId, cachedId, testUserId));
+
+        assertThat(response.getResults()).extracting(BatchUserResult::getId)
+                .containsExactly(missingId, testUserId, cachedId, testUserId);
+        assertThat(response.getResults()).extracting(BatchUserResult::getStatus)
+                .containsExactly(BatchGetStatus.NOT_FOUND, BatchGetStatus.FOUND, BatchGetStatus.FOUND, BatchGetStatus.FOUND);
+        assertThat(response.getResults().get(2).getUser()).isSameAs(cachedUser);
+        assertThat(response.getFound()).isEqualTo(3);
+        assertThat(response.getNotFound()).isEqualTo(1);
+        verify(userRepository, never()).findDtosByIdIn(List.of(cachedId));
+        verify(cache, never()).put(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject a batch get above the configured maximum")
+    void getUsersByIds_TooManyIds() {
+        properties.getBulk().setMaxBatchGetIds(1);
+
+        assertThatThrownBy(() -> userService.getUsersByIds(List.of(testUserId, UUID.randomUUID())))
+                .isInstanceOf(BadRequestException.class);
+
+        verifyNoInteractions(userRepository);
+    }
+
+    private static OutboxEventEntity outboxEvent(long sequence, LocalDateTime createdAt) {
+        OutboxEventEntity event = new OutboxEventEntity();
+        event.setSequence(sequence);
+        event.setCreatedAt(createdAt);
+        return event;
     }
 }
@@ -0,0 +1,171 @@
+package org.usermanagement.usermanagement.shard;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.usermanagement.usermanagement.exception.ServiceUnavailableException;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Routes through the same proxy as ShardConfig, with one in-memory H2 database per shard. The
+ * directory tables live on shard 0, as Hibernate would create them there.
+ */
+class UserShardsTest {
+
+    private static final int BUCKETS = 16;
+
+    private ShardedDataSource shardedDataSource;
+    private ShardMap shardMap;
+    private JdbcTemplate jdbcTemplate;
+    private JdbcTemplate directory;
+    private TransactionTemplate writeTransaction;
+    private DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        shardedDataSource = new ShardedDataSource(List.of(shard("shard-0"), shard("shard-1"), shard("shard-2")), new SimpleMeterRegistry());
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(shardedDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+
+        directory = new JdbcTemplate(shardedDataSource.shard(ShardContext.DIRECTORY));
+        directory.execute("create table shard_bucket (bucket int primary key, shard int not null, moving boolean not null)");
+        directory.execute("create table user_email (email varchar(255) primary key, user_id binary(16) not null, claimed_at timestamp)");
+    }
+
+    @Test
+    @DisplayName("Should store every user on the shard of its id and merge scattered pages in id order")
+    void routesAndMergesById() {
+        UserShards userShards = userShards(3);
+        List<UUID> ids = insertUsers(userShards, 30);
+
+        for (int shard = 0; shard < 3; shard++) {
+            int owner = shard;
+            assertThat(idsOn(shard)).allMatch(id -> shardMap.shardOf(id) == owner);
+        }
+        List<UUID> firstPage = UserShards.merge(userShards.scatterOwned(shard -> jdbcTemplate.query(
+                        "select id from user_entity order by id limit 10", (rs, rowNum) -> UuidBytes.fromBytes(rs.getBytes(1))), id -> id),
+                UserShards.ID_ORDER, 0, 10);
+
+        assertThat(firstPage).containsExactlyElementsOf(ids.stream().sorted(UserShards.ID_ORDER).limit(10).toList());
+    }
+
+    @Test
+    @DisplayName("Should keep emails unique across shards and give a claim back when its transaction rolls back")
+    void emailsAreUniqueAcrossShards() {
+        UserShards userShards = userShards(3);
+        UUID first = userShards.newId();
+        UUID second = userShards.newId();
+
+        writeTransaction.executeWithoutResult(status -> {
+            assertThat(userShards.claimEmail("Dipesh@Example.com", first)).isTrue();
+            status.setRollbackOnly();
+        });
+
+        assertThat(userShards.claimEmail("dipesh@example.com", second)).isTrue();
+        assertThat(userShards.claimEmail("DIPESH@example.com", first)).isFalse();
+        assertThat(userShards.findExistingEmails(List.of("Dipesh@example.com", "other@example.com"))).containsExactly("dipesh@example.com");
+    }
+
+    @Test
+    @DisplayName("Should release the email of a user that was never stored and confirm the others")
+    void sweepsClaimsWithoutUser() {
+        UserShards userShards = userShards(3);
+        List<UUID> stored = insertUsers(userShards, 5);
+        stored.forEach(id -> assertThat(userShards.claimEmail(id + "@example.com", id)).isTrue());
+        UUID crashed = userShards.newId();
+        assertThat(userShards.claimEmail("lost@example.com", crashed)).isTrue();
+        // a negative grace period puts the cutoff after the claims just made
+        EmailClaimSweeper sweeper = new EmailClaimSweeper(new EmailDirectory(directory), shardedDataSource, Duration.ofSeconds(-1), 2);
+
+        assertThat(sweeper.sweep()).isEqualTo(1);
+
+        assertThat(userShards.findExistingEmails(List.of("lost@example.com"))).isEmpty();
+        assertThat(userShards.findExistingEmails(stored.stream().map(id -> id + "@example.com").toList())).hasSize(5);
+        assertThat(directory.queryForObject("select count(*) from user_email where claimed_at is not null", Integer.class)).isZero();
+        assertThat(sweeper.sweep()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should move an even share of buckets and their users to a newly added shard")
+    void rebalancesOntoNewShard() {
+        List<UUID> ids = insertUsers(userShards(2), 40);
+        userShards(3);
+        ShardRebalancer rebalancer = new ShardRebalancer(shardMap, shardedDataSource, 4, Duration.ZERO);
+
+        List<ShardRebalancer.BucketMove> moves = rebalancer.rebalance();
+
+        assertThat(moves).hasSize(BUCKETS / 3).allMatch(move -> move.to() == 2);
+        assertThat(rebalancer.plan()).isEmpty();
+        List<UUID> stored = new ArrayList<>();
+        for (int shard = 0; shard < 3; shard++) {
+            int owner = shard;
+            List<UUID> onShard = idsOn(shard);
+            assertThat(onShard).isNotEmpty().allMatch(id -> shardMap.shardOf(id) == owner);
+            stored.addAll(onShard);
+        }
+        assertThat(stored).containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    @Test
+    @DisplayName("Should reject writes to users whose bucket is moving but keep serving reads")
+    void movingBucketRejectsWrites() {
+        UserShards userShards = userShards(3);
+        UUID id = userShards.newId();
+        int bucket = shardMap.bucketOf(id);
+        shardMap.assign(bucket, shardMap.shardOfBucket(bucket), true);
+
+        assertThatThrownBy(() -> userShards.routeForWrite(id)).isInstanceOf(ServiceUnavailableException.class);
+        try (ShardContext.Scope scope = userShards.route(id)) {
+            assertThat(ShardContext.current()).isEqualTo(shardMap.shardOf(id));
+        }
+        assertThat(IntStream.range(0, 50).mapToObj(i -> userShards.newId())).noneMatch(newId -> shardMap.bucketOf(newId) == bucket);
+    }
+
+    private UserShards userShards(int shards) {
+        shardMap = new ShardMap(directory, BUCKETS, shards);
+        shardMap.load();
+        return new UserShards(shardMap, new EmailDirectory(directory), transactionManager);
+    }
+
+    private List<UUID> insertUsers(UserShards userShards, int count) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UUID id = userShards.newId();
+            try (ShardContext.Scope scope = userShards.routeForWrite(id)) {
+                writeTransaction.executeWithoutResult(status ->
+                        jdbcTemplate.update("insert into user_entity (id, email) values (?, ?)", UuidBytes.toBytes(id), id + "@example.com"));
+            }
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private List<UUID> idsOn(int shard) {
+        return new JdbcTemplate(shardedDataSource.shard(shard))
+                .query("select id from user_entity", (rs, rowNum) -> UuidBytes.fromBytes(rs.getBytes(1)));
+    }
+
+    private static DataSource shard(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new JdbcTemplate(dataSource).execute("create table user_entity (id binary(16) primary key, email varchar(255) not null)");
+        return dataSource;
+    }
+}
@@ -0,0 +1,44 @@
+package org.usermanagement.usermanagement.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientKeysTest {
+
+    private static final String HEADER = "X-Client-Id";
+    private static final List<String> PROXIES = List.of("10.0.0.1");
+
+    @Test
+    @DisplayName("Should ignore the client header unless a trusted proxy forwarded the request")
+    void trustsHeaderOnlyFromProxies() {
+        MockHttpServletRequest direct = request("203.0.113.7", "spoofed");
+        MockHttpServletRequest forwarded = request("10.0.0.1", "mobile-app");
+
+        assertThat(ClientKeys.resolve(direct, HEADER, PROXIES)).isEqualTo("203.0.113.7");
+        assertThat(ClientKeys.resolve(forwarded, HEADER, PROXIES)).isEqualTo("mobile-app");
+        assertThat(ClientKeys.resolve(request("10.0.0.1", null), HEADER, PROXIES)).isEqualTo("10.0.0.1");
+    }
+
+    @Test
+    @DisplayName("Should key an authenticated request by its principal whatever the header says")
+    void prefersPrincipal() {
+        MockHttpServletRequest request = request("10.0.0.1", "mobile-app");
+        request.setUserPrincipal(() -> "dipesh");
+
+        assertThat(ClientKeys.resolve(request, HEADER, PROXIES)).isEqualTo("user:dipesh");
+    }
+
+    private static MockHttpServletRequest request(String remoteAddress, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddress);
+        if (client != null) {
+            request.addHeader(HEADER, client);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,155 @@
+package org.usermanagement.usermanagement.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The leader's load blocks on a latch until every other caller has joined it, which the coalesced
+ * counter reports, so each test sees exactly one call in flight.
+ */
+class SingleFlightTest {
+
+    private static final int CALLERS = 5;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight singleFlight = new SingleFlight(meterRegistry);
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+    private final CountDownLatch loading = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should run the loader once for concurrent callers and hand every one its result")
+    void concurrentCallsShareOneLoad() throws Exception {
+        Object value = new Object();
+
+        List<Future<Object>> results = callConcurrently(() -> singleFlight.execute("users", 1, blockingLoader(() -> value)));
+
+        for (Future<Object> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(value);
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(calls("executed")).isEqualTo(1);
+        assertThat(calls("coalesced")).isEqualTo(CALLERS - 1);
+        assertThat(meterRegistry.get("user.singleflight.inflight").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should rethrow the loader's exception to every waiting caller and keep nothing")
+    void failureReachesEveryWaiter() throws Exception {
+        IllegalStateException failure = new IllegalStateException("database unavailable");
+
+        List<Future<Object>> results = callConcurrently(() -> singleFlight.execute("users", 1, blockingLoader(() -> {
+            throw failure;
+        })));
+
+        for (Future<Object> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasCause(failure);
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(singleFlight.execute("users", 1, () -> "reloaded")).isEqualTo("reloaded");
+    }
+
+    @Test
+    @DisplayName("Should load afresh after an eviction during a load and drop what the superseded load cached")
+    void evictionDuringLoadDropsValue() throws Exception {
+        Cache cache = new SingleFlightCache(new ConcurrentMapCache("users"), singleFlight);
+        Supplier<String> stale = blockingLoader(() -> "stale");
+
+        Future<String> leader = callers.submit(() -> cache.get(1, stale::get));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        cache.evict(1);
+        assertThat(cache.get(1, () -> "fresh")).isEqualTo("fresh");
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("stale");
+        assertThat(cache.get(1)).isNull();
+        assertThat(calls("executed")).isEqualTo(2);
+        assertThat(calls("coalesced")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should wrap a checked loader failure for every caller of the cache")
+    void cacheLoaderFailure() throws Exception {
+        Cache cache = new SingleFlightCache(new ConcurrentMapCache("users"), singleFlight);
+        Exception failure = new Exception("query failed");
+        Supplier<Object> loader = blockingLoader(() -> null);
+
+        List<Future<Object>> results = callConcurrently(() -> cache.get(1, () -> {
+            loader.get();
+            throw failure;
+        }));
+
+        for (Future<Object> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                    .cause().isInstanceOf(Cache.ValueRetrievalException.class).hasCause(failure);
+        }
+        assertThat(cache.get(1)).isNull();
+    }
+
+    /**
+     * Starts the leader, waits until its load runs, starts the other callers, waits until all of them
+     * joined the load and only then lets it finish.
+     */
+    private <T> List<Future<T>> callConcurrently(Callable<T> call) throws InterruptedException {
+        List<Future<T>> results = new ArrayList<>();
+        results.add(callers.submit(call));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i < CALLERS; i++) {
+            results.add(callers.submit(call));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls("coalesced") < CALLERS - 1) {
+            assertThat(System.nanoTime()).as("callers joining the load").isLessThan(deadline);
+            Thread.sleep(1);
+        }
+        release.countDown();
+        return results;
+    }
+
+    private <T> Supplier<T> blockingLoader(Supplier<T> result) {
+        return () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                if (!release.await(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("load was never released");
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            }
+            return result.get();
+        };
+    }
+
+    private double calls(String outcome) {
+        Counter counter = meterRegistry.find("user.singleflight.calls").tag("outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}